@@ -0,0 +1,170 @@
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Saves RecipeBooks on a background thread, coalescing bursts of saves.
+ *
+ * <p>{@link #saveAsync} snapshots the book on the calling thread and returns at
+ * once. The snapshot is the list of encoded recipes; only recipes changed since
+ * the last save are encoded, the rest reuse their cached bytes. The write happens
+ * {@code debounceMillis} later. Any further saves to the same file during that
+ * window replace the snapshot and share the pending write. The window is not
+ * extended, so a steady stream of saves still writes at least once per window.
+ *
+ * <p>Files are written to a temporary sibling, forced to disk and then moved over
+ * the target. A reader never sees a half-written file, and a completed future
+ * means the data is durable. Writes run one at a time in request order.
+ */
+public class AsyncSaver {
+    /** Debounce window used by {@link RecipeJsonStore#saveAsync}. */
+    public static final long DEFAULT_DEBOUNCE_MILLIS = 200;
+    private static final int WRITE_BUFFER_SIZE = 1 << 16;
+
+    private final long debounceMillis;
+    private final ScheduledExecutorService writer;
+    // Saves waiting for their debounce window to close, by target file
+    private final Map<Path, PendingSave> pending = new HashMap<>();
+    private long writes;
+
+    /**
+     * Creates a saver with its own daemon writer thread.
+     *
+     * @param debounceMillis how long to wait for further saves before writing; must not be negative
+     */
+    public AsyncSaver(long debounceMillis) {
+        if (debounceMillis < 0) {
+            throw new IllegalArgumentException("debounceMillis must not be negative");
+        }
+        this.debounceMillis = debounceMillis;
+        this.writer = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "recipe-saver");
+            t.setDaemon(true);
+            return t;
+        });
+    }
+
+    /**
+     * Schedules {@code book} to be saved to {@code filePath}.
+     *
+     * <p>The book may be changed as soon as this returns; later changes are not
+     * part of this save. The book counts as saved once the write succeeds, and
+     * only if it has not changed since; a failed write leaves it unsaved.
+     *
+     * @param book the recipe book to save; must not be null
+     * @param filePath the path to write; must not be null or blank
+     * @return a future completed once the file is on disk, or completed
+     *         exceptionally with the IOException if the write fails
+     */
+    public CompletableFuture<Void> saveAsync(RecipeBook book, String filePath) {
+        if (book == null) {
+            throw new IllegalArgumentException("RecipeBook must not be null");
+        }
+        if (filePath == null || filePath.isBlank()) {
+            throw new IllegalArgumentException("File path must not be null or blank");
+        }
+        Path path = Paths.get(filePath).toAbsolutePath().normalize();
+        List<byte[]> snapshot = RecipeJsonStore.encodeRecipes(book);
+        long generation = book.getGeneration();
+        synchronized (pending) {
+            PendingSave save = pending.get(path);
+            if (save == null) {
+                save = new PendingSave();
+                pending.put(path, save);
+                writer.schedule(() -> write(path), debounceMillis, TimeUnit.MILLISECONDS);
+            }
+            save.snapshot = snapshot;
+            save.book = book;
+            save.generation = generation;
+            return save.future;
+        }
+    }
+
+    /**
+     * Returns a future that completes once every save requested so far has finished,
+     * successfully or not.
+     *
+     * @return a future for the saves pending now
+     */
+    public CompletableFuture<Void> flush() {
+        List<CompletableFuture<Void>> futures = new ArrayList<>();
+        synchronized (pending) {
+            for (PendingSave save : pending.values()) {
+                futures.add(save.future);
+            }
+        }
+        return CompletableFuture.allOf(futures.toArray(CompletableFuture<?>[]::new))
+                .handle((v, e) -> null);
+    }
+
+    /**
+     * Returns how many files this saver has written, counting each coalesced burst once.
+     *
+     * @return the number of completed writes
+     */
+    public synchronized long writeCount() {
+        return writes;
+    }
+
+    private void write(Path path) {
+        PendingSave save;
+        synchronized (pending) {
+            save = pending.remove(path);
+        }
+        try {
+            writeAtomically(path, save.snapshot);
+            synchronized (this) {
+                writes++;
+            }
+            // Recorded before completing, so whoever waits on the future sees it saved
+            save.book.saveWritten(save.generation);
+            save.future.complete(null);
+        } catch (IOException | RuntimeException e) {
+            save.future.completeExceptionally(e);
+        }
+    }
+
+    private static void writeAtomically(Path path, List<byte[]> segments) throws IOException {
+        Path dir = path.getParent();
+        Path temp = Files.createTempFile(dir, path.getFileName().toString(), ".tmp");
+        try {
+            try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.WRITE)) {
+                OutputStream out = new BufferedOutputStream(Channels.newOutputStream(channel), WRITE_BUFFER_SIZE);
+                RecipeJsonStore.writeRecipes(segments, out);
+                out.flush();
+                channel.force(true);
+            }
+            try {
+                Files.move(temp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(temp, path, StandardCopyOption.REPLACE_EXISTING);
+            }
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    private static class PendingSave {
+        final CompletableFuture<Void> future = new CompletableFuture<>();
+        // The latest snapshot, and the book and generation it was taken from
+        List<byte[]> snapshot;
+        RecipeBook book;
+        long generation;
+    }
+}
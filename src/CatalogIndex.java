@@ -0,0 +1,410 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Inverted index over the words of recipe names and ingredient names.
+ *
+ * <p>Each recipe entry in a RecipeBook is assigned an ordinal when it is added.
+ * Ordinals increase monotonically, so iterating a {@link PostingList} (or a
+ * candidate BitSet built from them) in ordinal order yields recipes in
+ * insertion order.
+ *
+ * <p>Words are the lowercase, whitespace-separated pieces of the recipe name
+ * and every ingredient name; a search token (which never contains whitespace)
+ * is a substring of a recipe's text exactly when it is a substring of one of
+ * these words.
+ *
+ * <p>Each posting records how often the word occurs in the recipe name and in
+ * its ingredient names, and each entry records its length in words; these
+ * feed relevance scoring in {@link RankedSearch}.
+ *
+ * <p>The vocabulary is also kept in a {@link TermTrie} for typo-tolerant lookup,
+ * updated as words appear and disappear.
+ *
+ * <p>Full recipe names and ingredient names are also kept in
+ * {@link CompletionIndex}es for prefix completion. Since recipes only ever gain
+ * ingredients, the index remembers how many of each recipe's ingredients it has
+ * seen and only indexes the new ones on refresh.
+ *
+ * <p>For boolean ingredient queries ({@link IngredientQuery}) each distinct
+ * ingredient name has a {@link RoaringBitmap} of the ordinals using it, next to
+ * a bitmap of all live ordinals for negation.
+ *
+ * <p>This class is owned by RecipeBook and is not thread-safe.
+ */
+class CatalogIndex {
+    private Recipe[] byOrdinal = new Recipe[16];
+    private int[] lengths = new int[16];
+    private int nextOrdinal;
+    private int live;
+    private long totalLength;
+    private final IdentityHashMap<Recipe, int[]> ordinalsByRecipe = new IdentityHashMap<>();
+    private final Map<String, PostingList> postings = new HashMap<>();
+    private final TermTrie terms = new TermTrie();
+    private final CompletionIndex recipeNames = new CompletionIndex();
+    private final CompletionIndex ingredientNames = new CompletionIndex();
+    private final IdentityHashMap<Recipe, Integer> indexedIngredients = new IdentityHashMap<>();
+    // Keyed by lowercase ingredient name with single spaces, padded with a space on each side
+    private final Map<String, RoaringBitmap> ingredientBitmaps = new HashMap<>();
+    private final RoaringBitmap liveOrdinals = new RoaringBitmap();
+
+    /**
+     * Indexes a new entry for {@code r} and returns its ordinal.
+     */
+    int add(Recipe r) {
+        if (nextOrdinal == byOrdinal.length) {
+            if (live * 2 < nextOrdinal) {
+                compact();
+            }
+            if (nextOrdinal == byOrdinal.length) {
+                byOrdinal = Arrays.copyOf(byOrdinal, byOrdinal.length * 2);
+                lengths = Arrays.copyOf(lengths, byOrdinal.length);
+            }
+        }
+        int ord = nextOrdinal++;
+        byOrdinal[ord] = r;
+        live++;
+        int[] existing = ordinalsByRecipe.get(r);
+        if (existing == null) {
+            ordinalsByRecipe.put(r, new int[] {ord});
+        } else {
+            int[] grown = Arrays.copyOf(existing, existing.length + 1);
+            grown[existing.length] = ord;
+            ordinalsByRecipe.put(r, grown);
+        }
+        Map<String, Integer> freqs = termFrequencies(r);
+        for (Map.Entry<String, Integer> e : freqs.entrySet()) {
+            postingsFor(e.getKey()).add(ord, e.getValue());
+        }
+        lengths[ord] = lengthOf(freqs);
+        totalLength += lengths[ord];
+        recipeNames.add(r.getName());
+        List<String> inames = r.getIngredientNames();
+        for (String iname : inames) {
+            ingredientNames.add(iname);
+            ingredientBitmapFor(iname).add(ord);
+        }
+        indexedIngredients.put(r, inames.size());
+        liveOrdinals.add(ord);
+        return ord;
+    }
+
+    /**
+     * Removes every entry for {@code r}. Does nothing if r is not indexed.
+     */
+    void removeAll(Recipe r) {
+        int[] ords = ordinalsByRecipe.remove(r);
+        if (ords == null) {
+            return;
+        }
+        for (String w : termFrequencies(r).keySet()) {
+            PostingList list = postings.get(w);
+            if (list == null) continue;
+            for (int ord : ords) {
+                list.remove(ord);
+            }
+            if (list.isEmpty()) {
+                postings.remove(w);
+                terms.remove(w);
+            }
+        }
+        for (int ord : ords) {
+            byOrdinal[ord] = null;
+            totalLength -= lengths[ord];
+            lengths[ord] = 0;
+            recipeNames.remove(r.getName());
+            for (String iname : r.getIngredientNames()) {
+                ingredientNames.remove(iname);
+                String key = ingredientKey(iname);
+                RoaringBitmap bitmap = ingredientBitmaps.get(key);
+                if (bitmap != null && bitmap.remove(ord) && bitmap.isEmpty()) {
+                    ingredientBitmaps.remove(key);
+                }
+            }
+            liveOrdinals.remove(ord);
+        }
+        indexedIngredients.remove(r);
+        live -= ords.length;
+    }
+
+    /**
+     * Re-indexes {@code r} after it gained ingredients. Recipes never lose
+     * words, so only additions and frequency updates need to be applied.
+     */
+    void refresh(Recipe r) {
+        int[] ords = ordinalsByRecipe.get(r);
+        if (ords == null) {
+            return;
+        }
+        Map<String, Integer> freqs = termFrequencies(r);
+        for (Map.Entry<String, Integer> e : freqs.entrySet()) {
+            PostingList list = postingsFor(e.getKey());
+            for (int ord : ords) {
+                list.add(ord, e.getValue());
+            }
+        }
+        int length = lengthOf(freqs);
+        for (int ord : ords) {
+            totalLength += length - lengths[ord];
+            lengths[ord] = length;
+        }
+        List<String> inames = r.getIngredientNames();
+        int seen = indexedIngredients.get(r);
+        for (int i = seen; i < inames.size(); i++) {
+            for (int ord : ords) {
+                ingredientNames.add(inames.get(i));
+                ingredientBitmapFor(inames.get(i)).add(ord);
+            }
+        }
+        indexedIngredients.put(r, inames.size());
+    }
+
+    /**
+     * Removes all entries and resets ordinal numbering.
+     */
+    void clear() {
+        byOrdinal = new Recipe[16];
+        lengths = new int[16];
+        nextOrdinal = 0;
+        live = 0;
+        totalLength = 0;
+        ordinalsByRecipe.clear();
+        postings.clear();
+        terms.clear();
+        recipeNames.clear();
+        ingredientNames.clear();
+        indexedIngredients.clear();
+        ingredientBitmaps.clear();
+        liveOrdinals.clear();
+    }
+
+    /**
+     * Returns the number of indexed entries.
+     */
+    int size() {
+        return live;
+    }
+
+    /**
+     * Returns the number of distinct words in the index.
+     */
+    int vocabularySize() {
+        return postings.size();
+    }
+
+    /**
+     * Returns the length in words of the entry at {@code ord}.
+     */
+    int lengthAt(int ord) {
+        return lengths[ord];
+    }
+
+    /**
+     * Returns the mean entry length in words, or 1 for an empty index.
+     */
+    double averageLength() {
+        return live == 0 ? 1.0 : Math.max(1.0, (double) totalLength / live);
+    }
+
+    /**
+     * Returns the posting list for {@code word}, or null if it is not indexed.
+     */
+    PostingList postings(String word) {
+        return postings.get(word);
+    }
+
+    /**
+     * Returns the recipe stored at {@code ord}, or null if it was removed.
+     */
+    Recipe recipeAt(int ord) {
+        return byOrdinal[ord];
+    }
+
+    /**
+     * Returns the indexed words containing {@code lowerToken} as a substring.
+     */
+    List<String> wordsContaining(String lowerToken) {
+        List<String> words = new ArrayList<>();
+        for (String w : postings.keySet()) {
+            if (w.contains(lowerToken)) {
+                words.add(w);
+            }
+        }
+        return words;
+    }
+
+    /**
+     * Returns the indexed words within {@code maxDistance} edits of {@code lowerToken}.
+     */
+    List<String> wordsNear(String lowerToken, int maxDistance) {
+        return terms.within(lowerToken, maxDistance);
+    }
+
+    /**
+     * Returns up to {@code limit} recipe names starting with {@code prefix}.
+     */
+    List<String> completeRecipeName(String prefix, int limit) {
+        return recipeNames.complete(prefix, limit);
+    }
+
+    /**
+     * Returns up to {@code limit} ingredient names starting with {@code prefix}.
+     */
+    List<String> completeIngredientName(String prefix, int limit) {
+        return ingredientNames.complete(prefix, limit);
+    }
+
+    /**
+     * Returns the number of entries containing {@code word}.
+     */
+    int documentFrequency(String word) {
+        PostingList list = postings.get(word);
+        return list == null ? 0 : list.size();
+    }
+
+    /**
+     * Returns the ordinals of entries containing any of {@code words}.
+     */
+    BitSet union(List<String> words) {
+        BitSet result = new BitSet(nextOrdinal);
+        for (String w : words) {
+            PostingList list = postings.get(w);
+            if (list != null) {
+                list.orInto(result);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Returns the ordinals of entries with an ingredient whose name contains
+     * {@code phrase} (lowercase words separated by single spaces) as whole words.
+     * The result is a new bitmap.
+     */
+    RoaringBitmap ingredientOrdinals(String phrase) {
+        String padded = " " + phrase + " ";
+        RoaringBitmap result = new RoaringBitmap();
+        for (Map.Entry<String, RoaringBitmap> e : ingredientBitmaps.entrySet()) {
+            if (e.getKey().contains(padded)) {
+                result = result.or(e.getValue());
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Returns the ordinals of entries with an ingredient whose key (see
+     * {@link #ingredientKey}) is {@code key}, or null if there are none. The
+     * bitmap is live and must not be modified.
+     */
+    RoaringBitmap ordinalsWithIngredient(String key) {
+        return ingredientBitmaps.get(key);
+    }
+
+    /**
+     * Returns one more than the largest ordinal handed out since the last clear.
+     */
+    int ordinalLimit() {
+        return nextOrdinal;
+    }
+
+    /**
+     * Returns the ordinals of all entries. The bitmap is live and must not be modified.
+     */
+    RoaringBitmap liveOrdinals() {
+        return liveOrdinals;
+    }
+
+    /**
+     * Estimates the heap bytes of every structure in the index, but not the
+     * recipes it points to.
+     */
+    long estimateHeap(HeapEstimator est) {
+        long bytes = HeapEstimator.shallow(CatalogIndex.class) + HeapEstimator.referenceArray(byOrdinal.length)
+                + HeapEstimator.array(lengths.length, Integer.BYTES);
+        bytes += HeapEstimator.identityHashMap(ordinalsByRecipe.size());
+        for (int[] ords : ordinalsByRecipe.values()) {
+            bytes += HeapEstimator.array(ords.length, Integer.BYTES);
+        }
+        bytes += HeapEstimator.hashMap(postings.size());
+        for (Map.Entry<String, PostingList> e : postings.entrySet()) {
+            bytes += est.string(e.getKey()) + e.getValue().estimateHeap();
+        }
+        bytes += terms.estimateHeap(est) + recipeNames.estimateHeap(est) + ingredientNames.estimateHeap(est);
+        bytes += HeapEstimator.identityHashMap(indexedIngredients.size())
+                + indexedIngredients.size() * HeapEstimator.BOX;
+        bytes += HeapEstimator.hashMap(ingredientBitmaps.size());
+        for (Map.Entry<String, RoaringBitmap> e : ingredientBitmaps.entrySet()) {
+            bytes += est.string(e.getKey()) + e.getValue().estimateHeap();
+        }
+        return bytes + liveOrdinals.estimateHeap();
+    }
+
+    private RoaringBitmap ingredientBitmapFor(String ingredientName) {
+        return ingredientBitmaps.computeIfAbsent(ingredientKey(ingredientName), k -> new RoaringBitmap());
+    }
+
+    static String ingredientKey(String ingredientName) {
+        return " " + String.join(" ", ingredientName.trim().toLowerCase().split("\\s+")) + " ";
+    }
+
+    private PostingList postingsFor(String word) {
+        PostingList list = postings.get(word);
+        if (list == null) {
+            list = new PostingList();
+            postings.put(word, list);
+            terms.add(word);
+        }
+        return list;
+    }
+
+    /**
+     * Returns each lowercase word of the recipe name and ingredient names,
+     * mapped to its packed frequencies (see {@link PostingList#pack}).
+     */
+    static Map<String, Integer> termFrequencies(Recipe r) {
+        Map<String, Integer> freqs = new HashMap<>();
+        addWords(freqs, r.getName(), PostingList.pack(1, 0));
+        for (String iname : r.getIngredientNames()) {
+            addWords(freqs, iname, PostingList.pack(0, 1));
+        }
+        return freqs;
+    }
+
+    private static void addWords(Map<String, Integer> out, String text, int increment) {
+        for (String w : text.toLowerCase().split("\\s+")) {
+            if (!w.isEmpty()) {
+                out.merge(w, increment, PostingList::addPacked);
+            }
+        }
+    }
+
+    private static int lengthOf(Map<String, Integer> freqs) {
+        int length = 0;
+        for (int packed : freqs.values()) {
+            length += PostingList.nameCount(packed) + PostingList.ingredientCount(packed);
+        }
+        return length;
+    }
+
+    /**
+     * Renumbers live entries densely, preserving their relative order.
+     */
+    private void compact() {
+        Recipe[] old = byOrdinal;
+        int oldNext = nextOrdinal;
+        clear();
+        byOrdinal = new Recipe[Math.max(16, old.length)];
+        lengths = new int[byOrdinal.length];
+        for (int i = 0; i < oldNext; i++) {
+            if (old[i] != null) {
+                add(old[i]);
+            }
+        }
+    }
+}
@@ -0,0 +1,88 @@
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Prefix completion over a multiset of names.
+ *
+ * <p>Names are matched case-insensitively. Each distinct name is weighted by
+ * how many times it has been added, so names shared by many recipes complete
+ * first; equal weights complete alphabetically. Completions are returned with
+ * the casing of the first occurrence added.
+ */
+class CompletionIndex {
+    private final TermTrie trie = new TermTrie();
+    private final Map<String, Entry> entries = new HashMap<>();
+
+    /**
+     * Adds one occurrence of {@code name}.
+     */
+    void add(String name) {
+        String key = name.toLowerCase();
+        Entry e = entries.get(key);
+        if (e == null) {
+            e = new Entry(name);
+            entries.put(key, e);
+        }
+        e.count++;
+        trie.setWeight(key, e.count);
+    }
+
+    /**
+     * Removes one occurrence of {@code name}.
+     */
+    void remove(String name) {
+        String key = name.toLowerCase();
+        Entry e = entries.get(key);
+        if (e == null) {
+            return;
+        }
+        e.count--;
+        if (e.count == 0) {
+            entries.remove(key);
+        }
+        trie.setWeight(key, e.count);
+    }
+
+    /**
+     * Returns up to {@code limit} names starting with {@code prefix}.
+     */
+    List<String> complete(String prefix, int limit) {
+        List<String> out = new ArrayList<>();
+        for (String key : trie.complete(prefix.toLowerCase(), limit)) {
+            out.add(entries.get(key).display);
+        }
+        return out;
+    }
+
+    /**
+     * Returns the number of distinct names.
+     */
+    int size() {
+        return entries.size();
+    }
+
+    long estimateHeap(HeapEstimator est) {
+        long bytes = HeapEstimator.shallow(CompletionIndex.class) + trie.estimateHeap(est)
+                + HeapEstimator.hashMap(entries.size());
+        for (Map.Entry<String, Entry> e : entries.entrySet()) {
+            bytes += est.string(e.getKey()) + HeapEstimator.shallow(Entry.class) + est.string(e.getValue().display);
+        }
+        return bytes;
+    }
+
+    void clear() {
+        trie.clear();
+        entries.clear();
+    }
+
+    private static class Entry {
+        final String display;
+        int count;
+
+        Entry(String display) {
+            this.display = display;
+        }
+    }
+}
@@ -0,0 +1,292 @@
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * Block-compressed recipe file format used by {@link RecipeJsonStore#saveCompressed}.
+ *
+ * <p>Layout (all integers big-endian):
+ * <pre>
+ * "RCZ1"                          magic
+ * int blockCount, int recipeCount
+ * blockCount x (long offset, int compressedLength, int length, int recipes)
+ * blockCount x Deflate-compressed block
+ * </pre>
+ * A block holds the JSON of about {@value #BLOCK_SIZE} bytes of consecutive
+ * recipes, separated by commas: the inside of a recipe file's {@code "recipes"}
+ * array. Blocks are compressed independently, so saving compresses them in
+ * parallel and loading inflates and parses them in parallel.
+ */
+class CompressedRecipeFile {
+    static final byte[] MAGIC = {'R', 'C', 'Z', '1'};
+    // Uncompressed bytes per block; large enough for Deflate's 32 KB window to pay off
+    static final int BLOCK_SIZE = 1 << 18;
+    private static final int INDEX_ENTRY_SIZE = 20;
+    // Limits that keep a corrupt or hostile index from sizing huge arrays: the
+    // largest recipe JSON written or read, the largest inflated block, and
+    // Deflate's largest possible expansion of compressed bytes
+    static final int MAX_RECIPE_BYTES = 1 << 26;
+    private static final int MAX_BLOCK_LENGTH = 1 << 30;
+    private static final int MAX_INFLATE_RATIO = 1032;
+
+    private CompressedRecipeFile() {
+    }
+
+    /**
+     * Returns whether {@code path} starts with the compressed format's magic bytes.
+     */
+    static boolean isCompressed(Path path) throws IOException {
+        byte[] head = new byte[MAGIC.length];
+        try (InputStream in = Files.newInputStream(path)) {
+            return in.readNBytes(head, 0, head.length) == head.length && Arrays.equals(head, MAGIC);
+        }
+    }
+
+    /**
+     * Writes encoded recipes to {@code path} in the compressed format.
+     */
+    static void write(List<byte[]> segments, Path path) throws IOException {
+        for (int i = 0; i < segments.size(); i++) {
+            if (segments.get(i).length > MAX_RECIPE_BYTES) {
+                throw new IOException("Recipe " + i + " is larger than " + MAX_RECIPE_BYTES + " bytes of JSON");
+            }
+        }
+        List<int[]> ranges = new ArrayList<>();
+        int from = 0;
+        while (from < segments.size()) {
+            int to = from;
+            long size = 0;
+            while (to < segments.size() && (to == from || size + segments.get(to).length < BLOCK_SIZE)) {
+                size += segments.get(to).length + 1;
+                to++;
+            }
+            ranges.add(new int[] {from, to});
+            from = to;
+        }
+
+        List<Callable<Block>> tasks = new ArrayList<>();
+        for (int[] range : ranges) {
+            tasks.add(() -> compress(segments.subList(range[0], range[1])));
+        }
+        List<Block> blocks = runAll(tasks);
+
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(path), 1 << 16))) {
+            out.write(MAGIC);
+            out.writeInt(blocks.size());
+            out.writeInt(segments.size());
+            long offset = MAGIC.length + 8 + (long) INDEX_ENTRY_SIZE * blocks.size();
+            for (Block block : blocks) {
+                out.writeLong(offset);
+                out.writeInt(block.compressed.length);
+                out.writeInt(block.length);
+                out.writeInt(block.recipes);
+                offset += block.compressed.length;
+            }
+            for (Block block : blocks) {
+                out.write(block.compressed);
+            }
+        }
+    }
+
+    /**
+     * Reads a compressed file, returning its recipes in saved order.
+     *
+     * <p>Each block is read with a positional read and inflated by its own task,
+     * so only the compressed and inflated form of a few blocks is in memory at once
+     * besides the recipes themselves. Each block is parsed straight from its
+     * inflated bytes, with its own string pool.
+     */
+    static List<Recipe> read(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            long fileSize = channel.size();
+            ByteBuffer header = readFully(channel, 0, MAGIC.length + 8);
+            byte[] magic = new byte[MAGIC.length];
+            header.get(magic);
+            if (!Arrays.equals(magic, MAGIC)) {
+                throw new IOException("Not a compressed recipe file");
+            }
+            int blockCount = header.getInt();
+            int recipeCount = header.getInt();
+            if (blockCount < 0 || recipeCount < 0
+                    || MAGIC.length + 8 + (long) blockCount * INDEX_ENTRY_SIZE > fileSize) {
+                throw new IOException("Corrupt block index");
+            }
+            ByteBuffer index = readFully(channel, MAGIC.length + 8, blockCount * INDEX_ENTRY_SIZE);
+            List<Callable<List<Recipe>>> tasks = new ArrayList<>();
+            long recipes = 0;
+            for (int b = 0; b < blockCount; b++) {
+                long offset = index.getLong();
+                int compressedLength = index.getInt();
+                int length = index.getInt();
+                int blockRecipes = index.getInt();
+                int firstRecipe = (int) Math.min(recipes, Integer.MAX_VALUE);
+                recipes += blockRecipes;
+                if (offset < 0 || compressedLength < 0 || length < 0 || blockRecipes < 0
+                        || offset + compressedLength > fileSize) {
+                    throw new IOException("Block " + b + ": corrupt index entry");
+                }
+                // Checked before inflate allocates the block
+                if (length > MAX_BLOCK_LENGTH || length > (long) blockRecipes * MAX_RECIPE_BYTES
+                        || length > (long) compressedLength * MAX_INFLATE_RATIO + 64) {
+                    throw new IOException("Block " + b + ": inflated length " + length + " is implausible for "
+                            + blockRecipes + " recipes in " + compressedLength + " compressed bytes");
+                }
+                int block = b;
+                tasks.add(() -> {
+                    ByteBuffer compressed = readFully(channel, offset, compressedLength);
+                    byte[] json = inflate(compressed.array(), length, block);
+                    return RecipeJsonStore.parseRecipes(ByteBuffer.wrap(json), firstRecipe);
+                });
+            }
+            if (recipes != recipeCount) {
+                throw new IOException("Block index recipe counts do not add up to " + recipeCount);
+            }
+            // Sized from what was parsed, not from the untrusted header
+            List<List<Recipe>> parsed = runAll(tasks);
+            int parsedCount = 0;
+            for (List<Recipe> blockRecipes : parsed) {
+                parsedCount += blockRecipes.size();
+            }
+            List<Recipe> all = new ArrayList<>(parsedCount);
+            for (List<Recipe> blockRecipes : parsed) {
+                all.addAll(blockRecipes);
+            }
+            if (all.size() != recipeCount) {
+                throw new IOException("Expected " + recipeCount + " recipes but found " + all.size());
+            }
+            return all;
+        }
+    }
+
+    private static ByteBuffer readFully(FileChannel channel, long position, int length) throws IOException {
+        ByteBuffer buf = ByteBuffer.allocate(length);
+        while (buf.hasRemaining()) {
+            if (channel.read(buf, position + buf.position()) < 0) {
+                throw new IOException("Truncated compressed recipe file");
+            }
+        }
+        buf.flip();
+        return buf;
+    }
+
+    /**
+     * Deflates a run of segments joined by commas.
+     */
+    private static Block compress(List<byte[]> segments) {
+        ByteArrayOutputStream raw = new ByteArrayOutputStream(BLOCK_SIZE + 1024);
+        for (int i = 0; i < segments.size(); i++) {
+            if (i > 0) raw.write(',');
+            raw.writeBytes(segments.get(i));
+        }
+        byte[] input = raw.toByteArray();
+        Deflater deflater = new Deflater();
+        try {
+            deflater.setInput(input);
+            deflater.finish();
+            ByteArrayOutputStream compressed = new ByteArrayOutputStream(input.length / 4 + 64);
+            byte[] chunk = new byte[1 << 16];
+            while (!deflater.finished()) {
+                int n = deflater.deflate(chunk);
+                compressed.write(chunk, 0, n);
+            }
+            return new Block(compressed.toByteArray(), input.length, segments.size());
+        } finally {
+            deflater.end();
+        }
+    }
+
+    private static byte[] inflate(byte[] compressed, int length, int block) throws IOException {
+        Inflater inflater = new Inflater();
+        try {
+            inflater.setInput(compressed);
+            byte[] out = new byte[length];
+            int n = 0;
+            while (n < length && !inflater.finished()) {
+                int got = inflater.inflate(out, n, length - n);
+                if (got == 0 && (inflater.needsInput() || inflater.needsDictionary())) {
+                    break;
+                }
+                n += got;
+            }
+            if (n != length || !inflater.finished()) {
+                throw new IOException("Block " + block + ": expected " + length + " bytes after inflating");
+            }
+            return out;
+        } catch (DataFormatException e) {
+            throw new IOException("Block " + block + ": " + e.getMessage(), e);
+        } finally {
+            inflater.end();
+        }
+    }
+
+    /**
+     * Runs tasks on up to one thread per processor and returns their results in order.
+     */
+    private static <T> List<T> runAll(List<Callable<T>> tasks) throws IOException {
+        List<T> results = new ArrayList<>(tasks.size());
+        int threads = Math.min(tasks.size(), Runtime.getRuntime().availableProcessors());
+        try {
+            if (threads <= 1) {
+                for (Callable<T> task : tasks) {
+                    results.add(task.call());
+                }
+                return results;
+            }
+            ExecutorService pool = Executors.newFixedThreadPool(threads);
+            try {
+                List<Future<T>> futures = new ArrayList<>();
+                for (Callable<T> task : tasks) {
+                    futures.add(pool.submit(task));
+                }
+                for (Future<T> f : futures) {
+                    results.add(f.get());
+                }
+            } finally {
+                pool.shutdown();
+            }
+            return results;
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof IOException) {
+                throw (IOException) e.getCause();
+            }
+            throw new IOException(e.getCause().getMessage(), e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted", e);
+        } catch (IOException | RuntimeException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new IOException(e.getMessage(), e);
+        }
+    }
+
+    private static class Block {
+        final byte[] compressed;
+        final int length;
+        final int recipes;
+
+        Block(byte[] compressed, int length, int recipes) {
+            this.compressed = compressed;
+            this.length = length;
+            this.recipes = recipes;
+        }
+    }
+}
@@ -1,8 +1,23 @@
+import java.io.BufferedOutputStream;
+import java.io.BufferedReader;
+import java.io.FileDescriptor;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
 import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.PrintStream;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.CharBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.InvalidPathException;
+import java.nio.file.Paths;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
 import java.util.Scanner;
+import java.util.concurrent.CompletableFuture;
 import java.util.stream.Collectors;
 
 /**
@@ -10,14 +25,56 @@ import java.util.stream.Collectors;
  *
  * <p>Depends on service classes (RecipeBook, RecipeSorter, ShoppingCart) and
  * RecipeJsonStore for persistence. Does not manipulate internal data structures directly.
+ *
+ * <p>Besides the interactive menu, {@link #runBatch} executes a script of
+ * commands without prompts (see {@link #main} for the command syntax).
+ *
+ * <p>Listings, recipe details and carts are written through a {@link ListingRenderer},
+ * whose buffer is emptied into the output stream after each command. The stream
+ * itself is flushed before each interactive prompt, and in batch mode only as
+ * {@link #runBatch} describes. Interactive listings longer than the page size are
+ * shown one page at a time; entering {@code n} or {@code p} moves between pages.
  */
 public class ConsoleUI {
+    private static final int SUGGESTION_LIMIT = 5;
+    // Batch output is flushed after this many commands, and at the end
+    private static final int BATCH_FLUSH_COMMANDS = 1000;
+    private static final int DEFAULT_PAGE_SIZE = 20;
+
     private final RecipeBook book;
     private final Scanner scanner;
+    private PrintStream out;
+    private ListingRenderer renderer;
+    private int pageSize = DEFAULT_PAGE_SIZE;
+    // The most recent listing, kept so n/p can move between its pages
+    private String pagedTitle;
+    private List<Recipe> pagedListing;
+    private int currentPage;
+    // Background saves still to be reported; waited for before exiting
+    private CompletableFuture<Void> pendingSaves = CompletableFuture.completedFuture(null);
 
     public ConsoleUI(RecipeBook book, Scanner scanner) {
         this.book = book;
         this.scanner = scanner;
+        setOutput(System.out);
+    }
+
+    /**
+     * Sets how many recipes a listing shows per page; 0 disables paging.
+     *
+     * @param pageSize the page size; must not be negative
+     * @throws IllegalArgumentException if pageSize is negative
+     */
+    public void setPageSize(int pageSize) {
+        if (pageSize < 0) {
+            throw new IllegalArgumentException("pageSize must not be negative");
+        }
+        this.pageSize = pageSize;
+    }
+
+    private void setOutput(PrintStream stream) {
+        out = stream;
+        renderer = new ListingRenderer(new PrintStreamWriter(stream));
     }
 
     /**
@@ -26,13 +83,22 @@ public class ConsoleUI {
     public void run() {
         printMenu();
         while (true) {
-            System.out.print("\nEnter command: ");
+            out.print("\nEnter command: ");
+            out.flush();
             String input = scanner.nextLine();
             if (input == null) input = "";
             String trimmed = input.trim();
 
             if (trimmed.isEmpty()) {
-                System.out.println("Please enter a number (1-7).");
+                out.println("Please enter a number (1-8).");
+                continue;
+            }
+            if (trimmed.equalsIgnoreCase("n")) {
+                turnPage(1);
+                continue;
+            }
+            if (trimmed.equalsIgnoreCase("p")) {
+                turnPage(-1);
                 continue;
             }
 
@@ -40,7 +106,7 @@ public class ConsoleUI {
             try {
                 choice = Integer.parseInt(trimmed);
             } catch (NumberFormatException e) {
-                System.out.println("Invalid command. Please enter a number (1-7).");
+                out.println("Invalid command. Please enter a number (1-8).");
                 continue;
             }
 
@@ -64,60 +130,220 @@ public class ConsoleUI {
                     doSaveRecipes();
                     break;
                 case 7:
-                    System.out.println("Goodbye!");
+                    showMemoryStatistics();
+                    break;
+                case 8:
+                    pendingSaves.join();
+                    out.println("Goodbye!");
                     return;
                 default:
-                    System.out.println("Invalid command. Please enter a number (1-7).");
+                    out.println("Invalid command. Please enter a number (1-8).");
+            }
+        }
+    }
+
+    /**
+     * Executes a script of commands without prompts or menus.
+     *
+     * <p>Each non-blank line not starting with {@code #} is one command. Output is
+     * written to a buffered stream and flushed every {@value #BATCH_FLUSH_COMMANDS}
+     * commands and at the end of the script. A failed command prints its usual
+     * message followed by {@code Error (line N): <command>}, and execution continues
+     * with the next line; {@code exit} stops the script early. Paging is off
+     * unless the script enables it with {@code pagesize <n>}.
+     *
+     * @param script the command source; read until end of input or {@code exit}
+     * @param output where command output is written
+     * @return the number of commands that failed
+     * @throws IOException if the script cannot be read
+     */
+    public int runBatch(BufferedReader script, PrintStream output) throws IOException {
+        PrintStream previous = out;
+        int previousPageSize = pageSize;
+        setOutput(output);
+        pageSize = 0;
+        int errors = 0;
+        int sinceFlush = 0;
+        int lineNo = 0;
+        try {
+            String line;
+            while ((line = script.readLine()) != null) {
+                lineNo++;
+                String trimmed = line.trim();
+                if (trimmed.isEmpty() || trimmed.startsWith("#")) {
+                    continue;
+                }
+                int space = trimmed.indexOf(' ');
+                String command = (space < 0 ? trimmed : trimmed.substring(0, space)).toLowerCase();
+                String arg = space < 0 ? "" : trimmed.substring(space + 1).trim();
+                if (command.equals("exit") || command.equals("quit")) {
+                    break;
+                }
+                if (!executeCommand(command, arg)) {
+                    out.println("Error (line " + lineNo + "): " + trimmed);
+                    errors++;
+                }
+                if (++sinceFlush == BATCH_FLUSH_COMMANDS) {
+                    out.flush();
+                    sinceFlush = 0;
+                }
             }
+        } finally {
+            out.flush();
+            setOutput(previous);
+            pageSize = previousPageSize;
+        }
+        return errors;
+    }
+
+    /**
+     * Runs one batch command and returns whether it succeeded.
+     */
+    private boolean executeCommand(String command, String arg) {
+        switch (command) {
+            case "list":
+                listRecipes();
+                return true;
+            case "search":
+                return searchRecipes(arg);
+            case "view":
+                return viewRecipeDetails(arg);
+            case "cart":
+                return buildShoppingCart(arg);
+            case "load":
+                return loadRecipes(arg);
+            case "save":
+                return saveRecipes(arg);
+            case "export":
+                return exportRecipes(arg);
+            case "next":
+                return turnPage(1);
+            case "prev":
+                return turnPage(-1);
+            case "stats":
+                showMemoryStatistics();
+                return true;
+            case "pagesize":
+                try {
+                    setPageSize(Integer.parseInt(arg));
+                    return true;
+                } catch (IllegalArgumentException e) {
+                    out.println("Invalid page size: " + arg);
+                    return false;
+                }
+            default:
+                out.println("Unknown command: " + command);
+                return false;
         }
     }
 
     private void printMenu() {
-        System.out.println("=== Recipe Manager ===");
-        System.out.println("1. List all recipes");
-        System.out.println("2. Search recipes");
-        System.out.println("3. View recipe details");
-        System.out.println("4. Build shopping cart");
-        System.out.println("5. Load recipes from file");
-        System.out.println("6. Save recipes to file");
-        System.out.println("7. Exit");
+        out.println("=== Recipe Manager ===");
+        out.println("1. List all recipes");
+        out.println("2. Search recipes");
+        out.println("3. View recipe details");
+        out.println("4. Build shopping cart");
+        out.println("5. Load recipes from file");
+        out.println("6. Save recipes to file");
+        out.println("7. Show memory statistics");
+        out.println("8. Exit");
+        out.println("(n/p: next/previous page of the last listing)");
+    }
+
+    private String prompt(String message) {
+        out.print(message);
+        String input = scanner.nextLine();
+        return input == null ? "" : input.trim();
     }
 
     private void doListRecipes() {
-        List<Recipe> sorted = RecipeSorter.sortByName(book.getAllRecipes());
-        System.out.println("\nAll Recipes (" + sorted.size() + "):");
-        for (int i = 0; i < sorted.size(); i++) {
-            Recipe r = sorted.get(i);
-            System.out.println((i + 1) + ". " + r.getName() + " (" + r.getServings() + " servings)");
-        }
+        listRecipes();
     }
 
     private void doSearchRecipes() {
-        System.out.print("Enter search query: ");
-        String query = scanner.nextLine();
-        if (query == null) query = "";
-        query = query.trim();
-        if (query.isEmpty()) {
-            System.out.println("Search query cannot be empty.");
-            return;
+        searchRecipes(prompt("Enter search query: "));
+    }
+
+    private void doViewRecipeDetails() {
+        viewRecipeDetails(prompt("Enter recipe name: "));
+    }
+
+    private void doBuildShoppingCart() {
+        buildShoppingCart(prompt("Enter recipe names (comma-separated): "));
+    }
+
+    private void doLoadRecipes() {
+        loadRecipes(prompt("Enter file path: "));
+    }
+
+    private void doSaveRecipes() {
+        saveRecipesInBackground(prompt("Enter file path: "));
+    }
+
+    private void showMemoryStatistics() {
+        out.println(book.estimateFootprint());
+    }
+
+    private void listRecipes() {
+        showListing("All Recipes", RecipeSorter.sortByName(book.getAllRecipes()));
+    }
+
+    /**
+     * Renders a listing, paged when a page size is set, and remembers it for n/p.
+     */
+    private void showListing(String title, List<Recipe> recipes) {
+        try {
+            if (pageSize > 0) {
+                pagedTitle = title;
+                pagedListing = recipes;
+                currentPage = renderer.recipeListPage(title, recipes, 0, pageSize);
+            } else {
+                pagedListing = null;
+                renderer.recipeList(title, recipes);
+            }
+            renderer.flush();
+        } catch (IOException e) {
+            out.println("Error writing output: " + e.getMessage());
         }
+    }
 
-        List<Recipe> results = book.search(query);
-        System.out.println("\nSearch Results (" + results.size() + "):");
-        for (int i = 0; i < results.size(); i++) {
-            Recipe r = results.get(i);
-            System.out.println((i + 1) + ". " + r.getName() + " (" + r.getServings() + " servings)");
+    /**
+     * Shows the page {@code delta} pages away from the current one.
+     */
+    private boolean turnPage(int delta) {
+        if (pagedListing == null || pageSize == 0) {
+            out.println("No paged listing to move through.");
+            return false;
+        }
+        int target = currentPage + delta;
+        if (target < 0 || target >= ListingRenderer.pageCount(pagedListing.size(), pageSize)) {
+            out.println(delta > 0 ? "Already on the last page." : "Already on the first page.");
+            return false;
+        }
+        try {
+            currentPage = renderer.recipeListPage(pagedTitle, pagedListing, target, pageSize);
+            renderer.flush();
+            return true;
+        } catch (IOException e) {
+            out.println("Error writing output: " + e.getMessage());
+            return false;
         }
     }
 
-    private void doViewRecipeDetails() {
-        System.out.print("Enter recipe name: ");
-        String name = scanner.nextLine();
-        if (name == null) name = "";
-        name = name.trim();
+    private boolean searchRecipes(String query) {
+        if (query.isEmpty()) {
+            out.println("Search query cannot be empty.");
+            return false;
+        }
+
+        showListing("Search Results", book.search(query));
+        return true;
+    }
+
+    private boolean viewRecipeDetails(String name) {
         if (name.isEmpty()) {
-            System.out.println("Recipe name cannot be empty.");
-            return;
+            out.println("Recipe name cannot be empty.");
+            return false;
         }
 
         List<Recipe> all = book.getAllRecipes();
@@ -137,21 +363,25 @@ public class ConsoleUI {
         }
 
         if (found == null) {
-            System.out.println("Recipe not found: " + name);
-            return;
+            out.println("Recipe not found: " + name);
+            printSuggestions(name);
+            return false;
         }
 
-        System.out.println("\n" + found.toString());
+        try {
+            renderer.recipeDetails(found);
+            renderer.flush();
+        } catch (IOException e) {
+            out.println("Error writing output: " + e.getMessage());
+            return false;
+        }
+        return true;
     }
 
-    private void doBuildShoppingCart() {
-        System.out.print("Enter recipe names (comma-separated): ");
-        String input = scanner.nextLine();
-        if (input == null) input = "";
-        input = input.trim();
+    private boolean buildShoppingCart(String input) {
         if (input.isEmpty()) {
-            System.out.println("Please enter at least one recipe name.");
-            return;
+            out.println("Please enter at least one recipe name.");
+            return false;
         }
 
         List<String> names = Arrays.stream(input.split(","))
@@ -160,31 +390,48 @@ public class ConsoleUI {
                 .collect(Collectors.toList());
 
         List<Recipe> selected = new ArrayList<>();
+        boolean allFound = true;
         for (String name : names) {
+            Recipe match = null;
             for (Recipe r : book.getAllRecipes()) {
                 if (r.getName().equalsIgnoreCase(name)) {
-                    selected.add(r);
+                    match = r;
                     break;
                 }
             }
+            if (match != null) {
+                selected.add(match);
+            } else {
+                out.println("Recipe not found: " + name);
+                printSuggestions(name);
+                allFound = false;
+            }
+        }
+
+        try {
+            renderer.shoppingCart(ShoppingCart.aggregate(selected));
+            renderer.flush();
+        } catch (IOException e) {
+            out.println("Error writing output: " + e.getMessage());
+            return false;
         }
+        return allFound;
+    }
 
-        List<String> cart = ShoppingCart.aggregate(selected);
-        System.out.println("\n=== Shopping Cart ===");
-        System.out.println("Aggregated Ingredients:");
-        for (String line : cart) {
-            System.out.println("  - " + line);
+    /**
+     * Prints recipe names starting with what the user typed, if there are any.
+     */
+    private void printSuggestions(String typed) {
+        List<String> suggestions = book.completeRecipeName(typed, SUGGESTION_LIMIT);
+        if (!suggestions.isEmpty()) {
+            out.println("Did you mean: " + String.join(", ", suggestions) + "?");
         }
     }
 
-    private void doLoadRecipes() {
-        System.out.print("Enter file path: ");
-        String path = scanner.nextLine();
-        if (path == null) path = "";
-        path = path.trim();
+    private boolean loadRecipes(String path) {
         if (path.isEmpty()) {
-            System.out.println("File path cannot be empty.");
-            return;
+            out.println("File path cannot be empty.");
+            return false;
         }
 
         try {
@@ -193,35 +440,148 @@ public class ConsoleUI {
             for (Recipe r : loaded.getAllRecipes()) {
                 book.addRecipe(r);
             }
-            System.out.println("Successfully loaded " + loaded.size() + " recipes from " + path);
+            out.println("Successfully loaded " + loaded.size() + " recipes from " + path);
+            return true;
         } catch (IOException e) {
-            System.out.println("Error loading file: " + e.getMessage());
+            out.println("Error loading file: " + e.getMessage());
+            return false;
         }
     }
 
-    private void doSaveRecipes() {
-        System.out.print("Enter file path: ");
-        String path = scanner.nextLine();
-        if (path == null) path = "";
-        path = path.trim();
+    private boolean saveRecipes(String path) {
         if (path.isEmpty()) {
-            System.out.println("File path cannot be empty.");
-            return;
+            out.println("File path cannot be empty.");
+            return false;
         }
 
         try {
             RecipeJsonStore.save(book, path);
-            System.out.println("Successfully saved " + book.size() + " recipes to " + path);
+            out.println("Successfully saved " + book.size() + " recipes to " + path);
+            return true;
         } catch (IOException e) {
-            System.out.println("Error saving file: " + e.getMessage());
+            out.println("Error saving file: " + e.getMessage());
+            return false;
         }
     }
 
+    /**
+     * Writes the full text of every recipe, sorted by name, to a text file.
+     */
+    private boolean exportRecipes(String path) {
+        if (path.isEmpty()) {
+            out.println("File path cannot be empty.");
+            return false;
+        }
+
+        try (Writer writer = Files.newBufferedWriter(Paths.get(path), StandardCharsets.UTF_8)) {
+            ListingRenderer exporter = new ListingRenderer(writer);
+            exporter.recipeCatalog(RecipeSorter.sortByName(book.getAllRecipes()));
+            exporter.flush();
+            out.println("Successfully exported " + book.size() + " recipes to " + path);
+            return true;
+        } catch (IOException | InvalidPathException e) {
+            out.println("Error exporting file: " + e.getMessage());
+            return false;
+        }
+    }
+
+    /**
+     * Saves without blocking the menu; the outcome is reported when the write finishes.
+     */
+    private void saveRecipesInBackground(String path) {
+        if (path.isEmpty()) {
+            out.println("File path cannot be empty.");
+            return;
+        }
+
+        int count = book.size();
+        PrintStream console = out;
+        out.println("Saving " + count + " recipes to " + path + " in the background.");
+        CompletableFuture<Void> reported = RecipeJsonStore.saveAsync(book, path).handle((v, e) -> {
+            if (e == null) {
+                console.println("Successfully saved " + count + " recipes to " + path);
+            } else {
+                console.println("Error saving file: " + e.getMessage());
+            }
+            return null;
+        });
+        pendingSaves = CompletableFuture.allOf(pendingSaves, reported);
+    }
+
+    /**
+     * Starts the interactive menu, or runs a script with {@code --batch [file]}.
+     *
+     * <p>In batch mode commands are read from {@code file}, or from standard input
+     * when the file is omitted or {@code -}. Commands are {@code list},
+     * {@code search <query>}, {@code view <name>}, {@code cart <name, name, ...>},
+     * {@code load <path>}, {@code save <path>}, {@code export <path>} (every
+     * recipe's full text, sorted by name), {@code pagesize <n>}, {@code next},
+     * {@code prev}, {@code stats} and {@code exit}. The process exits
+     * with status 1 if any command failed and 2 if the script could not be read.
+     */
     public static void main(String[] args) {
         RecipeBook book = new RecipeBook();
+        if (args.length > 0 && args[0].equals("--batch")) {
+            String source = args.length > 1 ? args[1] : "-";
+            PrintStream output = new PrintStream(
+                    new BufferedOutputStream(new FileOutputStream(FileDescriptor.out), 1 << 16),
+                    false, StandardCharsets.UTF_8);
+            int status;
+            try (Reader script = new InputStreamReader(
+                    source.equals("-") ? System.in : new FileInputStream(source), StandardCharsets.UTF_8)) {
+                status = runScript(book, script, output);
+            } catch (IOException e) {
+                System.err.println("Error reading script: " + e.getMessage());
+                status = 2;
+            }
+            output.flush();
+            System.exit(status);
+        }
         Scanner scanner = new Scanner(System.in);
         ConsoleUI ui = new ConsoleUI(book, scanner);
         ui.run();
         scanner.close();
     }
+
+    /**
+     * Runs a batch script against {@code book} and returns the process exit status
+     * for it: 0 if every command succeeded, 1 if any failed and 2 if the script
+     * could not be read.
+     */
+    static int runScript(RecipeBook book, Reader script, PrintStream output) {
+        try {
+            return new ConsoleUI(book, null).runBatch(new BufferedReader(script), output) > 0 ? 1 : 0;
+        } catch (IOException e) {
+            System.err.println("Error reading script: " + e.getMessage());
+            return 2;
+        }
+    }
+
+    /**
+     * Writes characters into a PrintStream in its own charset. Flushing this writer
+     * does not flush the stream, so emptying the renderer's buffer after a command
+     * leaves it to the caller when output actually reaches the terminal.
+     */
+    private static class PrintStreamWriter extends Writer {
+        private final PrintStream stream;
+
+        PrintStreamWriter(PrintStream stream) {
+            this.stream = stream;
+        }
+
+        @Override
+        public void write(char[] cbuf, int off, int len) {
+            stream.append(CharBuffer.wrap(cbuf, off, len));
+        }
+
+        @Override
+        public void flush() {
+            // The stream is flushed by ConsoleUI, per prompt or per batch
+        }
+
+        @Override
+        public void close() {
+            // The stream belongs to ConsoleUI
+        }
+    }
 }
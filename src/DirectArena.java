@@ -0,0 +1,138 @@
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.Arrays;
+
+/**
+ * Append-only memory outside the Java heap, addressed by long positions.
+ *
+ * <p>Memory comes in direct ByteBuffer chunks of {@code 1 << chunkBits} bytes.
+ * An allocation never straddles two chunks; if it does not fit in the rest of
+ * the current chunk it starts at the next one. Allocations of a fixed size that
+ * divides the chunk size are therefore contiguous, which lets columns of ints or
+ * doubles be addressed as {@code index * size}. The last chunk starts small and
+ * doubles as it fills, so a small arena does not reserve a whole chunk.
+ *
+ * <p>The memory is released when the arena is garbage collected. Not thread-safe.
+ */
+class DirectArena {
+    private static final int MIN_CHUNK_CAPACITY = 1 << 12;
+
+    private final int chunkBits;
+    private final int chunkSize;
+    private ByteBuffer[] chunks = new ByteBuffer[4];
+    private int chunkCount;
+    private long size;
+
+    DirectArena(int chunkBits) {
+        if (chunkBits < 3 || chunkBits > 30) {
+            throw new IllegalArgumentException("chunkBits must be between 3 and 30");
+        }
+        this.chunkBits = chunkBits;
+        this.chunkSize = 1 << chunkBits;
+    }
+
+    /**
+     * Reserves {@code bytes} bytes and returns their position.
+     *
+     * @throws IllegalArgumentException if bytes is negative or larger than a chunk
+     */
+    long allocate(int bytes) {
+        if (bytes < 0 || bytes > chunkSize) {
+            throw new IllegalArgumentException("Cannot allocate " + bytes + " bytes in chunks of " + chunkSize);
+        }
+        long start = size;
+        int offset = offset(start);
+        if (offset + bytes > chunkSize) {
+            start += chunkSize - offset;
+            offset = 0;
+        }
+        int chunk = (int) (start >>> chunkBits);
+        if (chunk == chunkCount) {
+            if (chunkCount == chunks.length) {
+                chunks = Arrays.copyOf(chunks, chunkCount * 2);
+            }
+            chunks[chunkCount++] = allocateDirect(Math.min(chunkSize, Math.max(MIN_CHUNK_CAPACITY, bytes)));
+        }
+        ByteBuffer current = chunks[chunk];
+        if (current.capacity() < offset + bytes) {
+            int capacity = current.capacity();
+            while (capacity < offset + bytes) {
+                capacity = Math.min(chunkSize, capacity * 2);
+            }
+            ByteBuffer grown = allocateDirect(capacity);
+            grown.put(current.duplicate().clear());
+            chunks[chunk] = grown;
+        }
+        size = start + bytes;
+        return start;
+    }
+
+    /**
+     * Returns the end of the last allocation.
+     */
+    long size() {
+        return size;
+    }
+
+    /**
+     * Returns the bytes of direct memory held, including unused capacity.
+     */
+    long capacity() {
+        long total = 0;
+        for (int i = 0; i < chunkCount; i++) {
+            total += chunks[i].capacity();
+        }
+        return total;
+    }
+
+    int getInt(long pos) {
+        return chunk(pos).getInt(offset(pos));
+    }
+
+    void putInt(long pos, int value) {
+        chunk(pos).putInt(offset(pos), value);
+    }
+
+    long getLong(long pos) {
+        return chunk(pos).getLong(offset(pos));
+    }
+
+    void putLong(long pos, long value) {
+        chunk(pos).putLong(offset(pos), value);
+    }
+
+    double getDouble(long pos) {
+        return chunk(pos).getDouble(offset(pos));
+    }
+
+    void putDouble(long pos, double value) {
+        chunk(pos).putDouble(offset(pos), value);
+    }
+
+    /**
+     * Copies {@code length} bytes at {@code pos} into {@code dst}. The range must
+     * lie within one allocation.
+     */
+    void get(long pos, byte[] dst, int length) {
+        chunk(pos).get(offset(pos), dst, 0, length);
+    }
+
+    /**
+     * Copies {@code src} to {@code pos}. The range must lie within one allocation.
+     */
+    void put(long pos, byte[] src) {
+        chunk(pos).put(offset(pos), src);
+    }
+
+    private ByteBuffer chunk(long pos) {
+        return chunks[(int) (pos >>> chunkBits)];
+    }
+
+    private int offset(long pos) {
+        return (int) pos & (chunkSize - 1);
+    }
+
+    private static ByteBuffer allocateDirect(int capacity) {
+        return ByteBuffer.allocateDirect(capacity).order(ByteOrder.nativeOrder());
+    }
+}
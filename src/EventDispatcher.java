@@ -0,0 +1,145 @@
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executor;
+
+/**
+ * Delivers {@link RecipeEvent}s to the listeners of one book or recipe.
+ *
+ * <p>Synchronous listeners run on the thread that made the change, before the
+ * change method returns. Asynchronous listeners get their own queue, drained by
+ * one task at a time on their executor, so they too see batches in order and
+ * never concurrently. Between {@link #beginBatch} and the matching
+ * {@link #endBatch} events are collected and then delivered as one list.
+ */
+class EventDispatcher {
+    // Copied on write so a listener may unsubscribe while being notified
+    private final List<Subscription> subscriptions = new CopyOnWriteArrayList<>();
+    private List<RecipeEvent> pending;
+    private int batchDepth;
+
+    void addListener(RecipeListener listener, Executor executor) {
+        if (listener == null) {
+            throw new IllegalArgumentException("Listener must not be null");
+        }
+        subscriptions.add(new Subscription(listener, executor));
+    }
+
+    boolean removeListener(RecipeListener listener) {
+        for (Subscription s : subscriptions) {
+            if (s.listener == listener) {
+                return subscriptions.remove(s);
+            }
+        }
+        return false;
+    }
+
+    void publish(RecipeEvent event) {
+        if (subscriptions.isEmpty()) {
+            return;
+        }
+        if (batchDepth > 0) {
+            pending.add(event);
+        } else {
+            deliver(Collections.singletonList(event));
+        }
+    }
+
+    void beginBatch() {
+        if (batchDepth++ == 0) {
+            pending = new ArrayList<>();
+        }
+    }
+
+    void endBatch() {
+        if (--batchDepth > 0) {
+            return;
+        }
+        List<RecipeEvent> events = pending;
+        pending = null;
+        if (!events.isEmpty()) {
+            deliver(Collections.unmodifiableList(events));
+        }
+    }
+
+    /**
+     * Hands {@code events} to every subscription. A synchronous listener that
+     * throws does not stop the others; the first exception is rethrown afterwards.
+     */
+    private void deliver(List<RecipeEvent> events) {
+        RuntimeException failure = null;
+        for (Subscription s : subscriptions) {
+            try {
+                s.deliver(events);
+            } catch (RuntimeException e) {
+                if (failure == null) {
+                    failure = e;
+                } else {
+                    failure.addSuppressed(e);
+                }
+            }
+        }
+        if (failure != null) {
+            throw failure;
+        }
+    }
+
+    private static class Subscription {
+        final RecipeListener listener;
+        // Null for synchronous delivery
+        private final Executor executor;
+        private final Queue<List<RecipeEvent>> queue = new ArrayDeque<>();
+        private boolean draining;
+
+        Subscription(RecipeListener listener, Executor executor) {
+            this.listener = listener;
+            this.executor = executor;
+        }
+
+        void deliver(List<RecipeEvent> events) {
+            if (executor == null) {
+                listener.onEvents(events);
+                return;
+            }
+            synchronized (this) {
+                queue.add(events);
+                if (draining) {
+                    return;
+                }
+                draining = true;
+            }
+            try {
+                executor.execute(this::drain);
+            } catch (RuntimeException e) {
+                synchronized (this) {
+                    queue.clear();
+                    draining = false;
+                }
+                throw e;
+            }
+        }
+
+        private void drain() {
+            while (true) {
+                List<RecipeEvent> events;
+                synchronized (this) {
+                    events = queue.poll();
+                    if (events == null) {
+                        draining = false;
+                        return;
+                    }
+                }
+                try {
+                    listener.onEvents(events);
+                } catch (RuntimeException e) {
+                    // Keep draining; later batches must still arrive
+                    Thread t = Thread.currentThread();
+                    t.getUncaughtExceptionHandler().uncaughtException(t, e);
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,176 @@
+import java.lang.management.ManagementFactory;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.Set;
+
+import com.sun.management.HotSpotDiagnosticMXBean;
+
+/**
+ * Estimates heap bytes of objects from the HotSpot object layout, for
+ * {@link RecipeBook#estimateFootprint}.
+ *
+ * <p>Objects are a header plus their fields rounded up to 8 bytes; arrays add a
+ * length. The header and reference sizes follow the running JVM's
+ * compressed-pointer settings. Shallow sizes of classes are computed from their
+ * declared fields once. JDK collections are costed from their size, assuming
+ * default load factors; their internals are not inspected.
+ *
+ * <p>An estimator counts each String and array at most once, so values shared
+ * between recipes, such as pooled ingredient names, are not counted twice. The
+ * first subsystem to reach a shared object is charged for it. Not thread-safe.
+ */
+class HeapEstimator {
+    static final int REFERENCE;
+    static final int HEADER;
+    static final int ARRAY_HEADER;
+
+    static {
+        boolean compressedOops = true;
+        boolean compressedClasses = true;
+        try {
+            HotSpotDiagnosticMXBean hotspot = ManagementFactory.getPlatformMXBean(HotSpotDiagnosticMXBean.class);
+            compressedOops = Boolean.parseBoolean(hotspot.getVMOption("UseCompressedOops").getValue());
+            compressedClasses = Boolean.parseBoolean(hotspot.getVMOption("UseCompressedClassPointers").getValue());
+        } catch (RuntimeException | LinkageError e) {
+            // Not HotSpot; assume the defaults of a 64-bit JVM with a heap under 32 GB
+        }
+        REFERENCE = compressedOops ? 4 : 8;
+        HEADER = compressedClasses ? 12 : 16;
+        ARRAY_HEADER = (int) align(HEADER + 4);
+    }
+
+    private static final ClassValue<Long> SHALLOW = new ClassValue<>() {
+        @Override
+        protected Long computeValue(Class<?> type) {
+            long size = HEADER;
+            for (Class<?> c = type; c != null; c = c.getSuperclass()) {
+                for (Field f : c.getDeclaredFields()) {
+                    if (!Modifier.isStatic(f.getModifiers())) {
+                        size += fieldSize(f.getType());
+                    }
+                }
+            }
+            return align(size);
+        }
+    };
+
+    private static final long STRING = shallow(String.class);
+    private static final long HASH_MAP = shallow(HashMap.class);
+    private static final long LINKED_HASH_MAP = shallow(LinkedHashMap.class);
+    private static final long IDENTITY_HASH_MAP = shallow(IdentityHashMap.class);
+    private static final long ARRAY_LIST = shallow(ArrayList.class);
+    // HashMap.Node: hash, key, value, next; LinkedHashMap.Entry adds before and after
+    private static final long HASH_NODE = align(HEADER + 4 + 3L * REFERENCE);
+    private static final long LINKED_NODE = align(HEADER + 4 + 5L * REFERENCE);
+    // Integer, Long and Double boxes
+    static final long BOX = align(HEADER + 8);
+
+    private final Set<Object> seen = Collections.newSetFromMap(new IdentityHashMap<>());
+
+    /**
+     * Returns the size of an instance of {@code type}, not counting what its
+     * fields refer to.
+     */
+    static long shallow(Class<?> type) {
+        return SHALLOW.get(type);
+    }
+
+    /**
+     * Returns the size of an array of {@code length} elements of
+     * {@code elementBytes} each.
+     */
+    static long array(int length, int elementBytes) {
+        return align(ARRAY_HEADER + (long) length * elementBytes);
+    }
+
+    static long referenceArray(int length) {
+        return array(length, REFERENCE);
+    }
+
+    /**
+     * Returns the size of {@code s} and its characters, or 0 if it is null or
+     * was counted already.
+     */
+    long string(String s) {
+        if (s == null || !seen.add(s)) {
+            return 0;
+        }
+        boolean latin1 = true;
+        for (int i = 0; i < s.length() && latin1; i++) {
+            latin1 = s.charAt(i) <= 0xFF;
+        }
+        return STRING + array(s.length(), latin1 ? 1 : 2);
+    }
+
+    /**
+     * Returns the size of {@code bytes}, or 0 if it is null or was counted already.
+     */
+    long bytes(byte[] bytes) {
+        return bytes == null || !seen.add(bytes) ? 0 : array(bytes.length, 1);
+    }
+
+    /**
+     * Returns whether {@code o} has not been counted yet, and marks it counted.
+     */
+    boolean firstVisit(Object o) {
+        return o != null && seen.add(o);
+    }
+
+    /**
+     * Returns the size of a HashMap (or HashSet's map) of {@code size} entries,
+     * without its keys and values.
+     */
+    static long hashMap(int size) {
+        return HASH_MAP + (size == 0 ? 0 : referenceArray(tableLength(size))) + size * HASH_NODE;
+    }
+
+    static long linkedHashMap(int size) {
+        return LINKED_HASH_MAP + (size == 0 ? 0 : referenceArray(tableLength(size))) + size * LINKED_NODE;
+    }
+
+    /**
+     * Returns the size of an IdentityHashMap of {@code size} entries; keys and
+     * values share one array, kept at most two thirds full.
+     */
+    static long identityHashMap(int size) {
+        int capacity = 32;
+        while (capacity * 2 < size * 3) {
+            capacity *= 2;
+        }
+        return IDENTITY_HASH_MAP + referenceArray(2 * capacity);
+    }
+
+    /**
+     * Returns the size of an ArrayList of {@code size} elements, assuming the
+     * default initial capacity and an element array half a growth step larger
+     * than needed.
+     */
+    static long arrayList(int size) {
+        return ARRAY_LIST + (size == 0 ? 0 : referenceArray(Math.max(10, size + size / 4)));
+    }
+
+    private static int tableLength(int size) {
+        int length = 16;
+        while (length * 3 < size * 4) {
+            length *= 2;
+        }
+        return length;
+    }
+
+    private static int fieldSize(Class<?> type) {
+        if (type == long.class || type == double.class) return 8;
+        if (type == int.class || type == float.class) return 4;
+        if (type == short.class || type == char.class) return 2;
+        if (type == byte.class || type == boolean.class) return 1;
+        return REFERENCE;
+    }
+
+    private static long align(long size) {
+        return (size + 7) & ~7L;
+    }
+}
@@ -4,10 +4,18 @@
  * <p>Ingredients are value objects that store ingredient data as part of a recipe.
  * Names are stored as-is after trimming. Amounts are stored as raw doubles without
  * rounding to maintain precision for scaling operations.
+ *
+ * <p>A unit written in parentheses at the end of the name, as in
+ * "olive oil (cup)", is recognized once when the ingredient is created and
+ * kept as {@link #getUnit} and as the length of {@link #getBaseName} within
+ * the name, so no second copy of the name is stored.
  */
 public class Ingredient {
     private final String name;
     private final double amount;
+    // Length of the name without its unit suffix, and the unit; the whole name and null when there is none
+    private final int baseNameLength;
+    private final Unit unit;
 
     /**
      * Creates a new ingredient with the specified name and amount.
@@ -25,6 +33,27 @@ public class Ingredient {
         }
         this.name = name.trim();
         this.amount = amount;
+        // The name is trimmed, so a '(' past the start leaves a non-blank base name
+        int open = this.name.endsWith(")") ? this.name.lastIndexOf('(') : -1;
+        Unit parsed = open > 0
+                ? Unit.forSymbol(this.name.substring(open + 1, this.name.length() - 1))
+                : null;
+        this.unit = parsed;
+        int end = parsed != null ? open : this.name.length();
+        while (this.name.charAt(end - 1) <= ' ') {
+            end--;
+        }
+        this.baseNameLength = end;
+    }
+
+    /**
+     * Copies {@code other} with a new amount, reusing its parsed unit.
+     */
+    private Ingredient(Ingredient other, double amount) {
+        this.name = other.name;
+        this.amount = amount;
+        this.baseNameLength = other.baseNameLength;
+        this.unit = other.unit;
     }
 
     /**
@@ -45,6 +74,25 @@ public class Ingredient {
         return amount;
     }
 
+    /**
+     * Returns the name without its unit suffix: "olive oil" for
+     * "olive oil (cup)". Names without a known unit are returned whole.
+     *
+     * @return the base name
+     */
+    public String getBaseName() {
+        return name.substring(0, baseNameLength);
+    }
+
+    /**
+     * Returns the unit written after the name, if it is a known {@link Unit}.
+     *
+     * @return the unit, or null if the name has none
+     */
+    public Unit getUnit() {
+        return unit;
+    }
+
     /**
      * Creates a new Ingredient with the same name and a scaled amount.
      *
@@ -57,7 +105,14 @@ public class Ingredient {
         if (newAmount <= 0) {
             throw new IllegalArgumentException("Scaled amount must be positive");
         }
-        return new Ingredient(name, newAmount);
+        return new Ingredient(this, newAmount);
+    }
+
+    /**
+     * Estimates the heap bytes of this ingredient and the strings it holds.
+     */
+    long estimateHeap(HeapEstimator est) {
+        return HeapEstimator.shallow(Ingredient.class) + est.string(name);
     }
 
     @Override
@@ -0,0 +1,306 @@
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * A boolean query over the ingredients of recipes, for {@link RecipeBook#searchByIngredients}.
+ *
+ * <p>Build queries with {@link #has}, {@link #anyOf}, {@link #allOf} and the
+ * combinators, or parse them from text:
+ * <pre>
+ * IngredientQuery.has("chicken").and(IngredientQuery.has("garlic")).andNot(IngredientQuery.has("peanut"))
+ * IngredientQuery.parse("chicken AND garlic AND NOT peanut")
+ * IngredientQuery.parse("(basil OR oregano) AND olive oil")
+ * </pre>
+ *
+ * <p>An ingredient term matches a recipe with an ingredient whose name contains
+ * the term as whole words, ignoring case: "oil" matches "olive oil" but not
+ * "boiled eggs". Instances are immutable.
+ */
+public class IngredientQuery {
+    private enum Op { TERM, AND, OR, NOT }
+
+    private final Op op;
+    private final String term;
+    private final List<IngredientQuery> operands;
+
+    private IngredientQuery(Op op, String term, List<IngredientQuery> operands) {
+        this.op = op;
+        this.term = term;
+        this.operands = operands;
+    }
+
+    /**
+     * Matches recipes with an ingredient named {@code ingredient}.
+     *
+     * @param ingredient one or more words of an ingredient name; must not be blank
+     * @return the query
+     * @throws IllegalArgumentException if ingredient is null or blank
+     */
+    public static IngredientQuery has(String ingredient) {
+        if (ingredient == null || ingredient.isBlank()) {
+            throw new IllegalArgumentException("Ingredient must not be null or blank");
+        }
+        return new IngredientQuery(Op.TERM, String.join(" ", ingredient.trim().toLowerCase().split("\\s+")), null);
+    }
+
+    /**
+     * Matches recipes with at least one of {@code ingredients}.
+     *
+     * @param ingredients the ingredients; at least one, none blank
+     * @return the query
+     * @throws IllegalArgumentException if no ingredients are given or one is blank
+     */
+    public static IngredientQuery anyOf(String... ingredients) {
+        return combine(Op.OR, terms(ingredients));
+    }
+
+    /**
+     * Matches recipes with every one of {@code ingredients}.
+     *
+     * @param ingredients the ingredients; at least one, none blank
+     * @return the query
+     * @throws IllegalArgumentException if no ingredients are given or one is blank
+     */
+    public static IngredientQuery allOf(String... ingredients) {
+        return combine(Op.AND, terms(ingredients));
+    }
+
+    /**
+     * Matches recipes that {@code query} does not match.
+     *
+     * @param query the query to negate; must not be null
+     * @return the query
+     */
+    public static IngredientQuery not(IngredientQuery query) {
+        requireQuery(query);
+        return query.op == Op.NOT ? query.operands.get(0) : new IngredientQuery(Op.NOT, null, List.of(query));
+    }
+
+    /**
+     * Matches recipes that both this and {@code other} match.
+     *
+     * @param other the other query; must not be null
+     * @return the query
+     */
+    public IngredientQuery and(IngredientQuery other) {
+        return combine(Op.AND, List.of(this, requireQuery(other)));
+    }
+
+    /**
+     * Matches recipes that this or {@code other} (or both) match.
+     *
+     * @param other the other query; must not be null
+     * @return the query
+     */
+    public IngredientQuery or(IngredientQuery other) {
+        return combine(Op.OR, List.of(this, requireQuery(other)));
+    }
+
+    /**
+     * Matches recipes that this matches and {@code other} does not.
+     *
+     * @param other the query to exclude; must not be null
+     * @return the query
+     */
+    public IngredientQuery andNot(IngredientQuery other) {
+        return and(not(other));
+    }
+
+    /**
+     * Parses a query such as {@code "chicken AND garlic AND NOT peanut"}.
+     *
+     * <p>The operators are {@code AND}, {@code OR} and {@code NOT} in any case,
+     * with the usual precedence (NOT, then AND, then OR) and parentheses for
+     * grouping. Consecutive other words form one ingredient term, so
+     * {@code "olive oil OR butter"} has two terms.
+     *
+     * @param text the query text; must not be blank
+     * @return the query
+     * @throws IllegalArgumentException if text is blank or not a valid query
+     */
+    public static IngredientQuery parse(String text) {
+        if (text == null || text.isBlank()) {
+            throw new IllegalArgumentException("Query must not be null or blank");
+        }
+        List<String> tokens = new ArrayList<>();
+        for (String word : text.replace("(", " ( ").replace(")", " ) ").trim().split("\\s+")) {
+            tokens.add(word);
+        }
+        Parser parser = new Parser(text, tokens);
+        IngredientQuery query = parser.parseOr();
+        if (parser.pos < tokens.size()) {
+            throw parser.error("unexpected '" + tokens.get(parser.pos) + "'");
+        }
+        return query;
+    }
+
+    /**
+     * Returns the query in the syntax accepted by {@link #parse}.
+     */
+    @Override
+    public String toString() {
+        switch (op) {
+            case TERM:
+                return term;
+            case NOT:
+                return "NOT " + operands.get(0).operandString();
+            default:
+                StringBuilder sb = new StringBuilder();
+                for (IngredientQuery q : operands) {
+                    if (sb.length() > 0) sb.append(op == Op.AND ? " AND " : " OR ");
+                    sb.append(q.operandString());
+                }
+                return sb.toString();
+        }
+    }
+
+    /**
+     * Evaluates the query to the ordinals of matching entries in {@code index}.
+     *
+     * <p>Operands of AND are intersected smallest first, and negated operands
+     * are subtracted rather than complemented, so NOT only builds a complement
+     * when it has nothing to subtract from.
+     */
+    RoaringBitmap evaluate(CatalogIndex index) {
+        switch (op) {
+            case TERM:
+                return index.ingredientOrdinals(term);
+            case NOT:
+                return index.liveOrdinals().andNot(operands.get(0).evaluate(index));
+            case OR: {
+                RoaringBitmap result = new RoaringBitmap();
+                for (IngredientQuery q : operands) {
+                    result = result.or(q.evaluate(index));
+                }
+                return result;
+            }
+            default: {
+                List<RoaringBitmap> included = new ArrayList<>();
+                List<RoaringBitmap> excluded = new ArrayList<>();
+                for (IngredientQuery q : operands) {
+                    if (q.op == Op.NOT) {
+                        excluded.add(q.operands.get(0).evaluate(index));
+                    } else {
+                        included.add(q.evaluate(index));
+                    }
+                }
+                included.sort(Comparator.comparingInt(RoaringBitmap::cardinality));
+                RoaringBitmap result = included.isEmpty() ? index.liveOrdinals() : included.get(0);
+                for (int i = 1; i < included.size() && !result.isEmpty(); i++) {
+                    result = result.and(included.get(i));
+                }
+                for (int i = 0; i < excluded.size() && !result.isEmpty(); i++) {
+                    result = result.andNot(excluded.get(i));
+                }
+                return result;
+            }
+        }
+    }
+
+    private String operandString() {
+        return op == Op.AND || op == Op.OR ? "(" + this + ")" : toString();
+    }
+
+    private static IngredientQuery requireQuery(IngredientQuery query) {
+        if (query == null) {
+            throw new IllegalArgumentException("Query must not be null");
+        }
+        return query;
+    }
+
+    private static List<IngredientQuery> terms(String[] ingredients) {
+        if (ingredients == null || ingredients.length == 0) {
+            throw new IllegalArgumentException("At least one ingredient is required");
+        }
+        List<IngredientQuery> terms = new ArrayList<>();
+        for (String ingredient : ingredients) {
+            terms.add(has(ingredient));
+        }
+        return terms;
+    }
+
+    /**
+     * Joins queries with {@code op}, flattening operands that use the same operator.
+     */
+    private static IngredientQuery combine(Op op, List<IngredientQuery> queries) {
+        List<IngredientQuery> flat = new ArrayList<>();
+        for (IngredientQuery q : queries) {
+            if (q.op == op) {
+                flat.addAll(q.operands);
+            } else {
+                flat.add(q);
+            }
+        }
+        return flat.size() == 1 ? flat.get(0) : new IngredientQuery(op, null, Collections.unmodifiableList(flat));
+    }
+
+    private static class Parser {
+        final String text;
+        final List<String> tokens;
+        int pos;
+
+        Parser(String text, List<String> tokens) {
+            this.text = text;
+            this.tokens = tokens;
+        }
+
+        IngredientQuery parseOr() {
+            List<IngredientQuery> operands = new ArrayList<>();
+            operands.add(parseAnd());
+            while (accept("OR")) {
+                operands.add(parseAnd());
+            }
+            return combine(Op.OR, operands);
+        }
+
+        IngredientQuery parseAnd() {
+            List<IngredientQuery> operands = new ArrayList<>();
+            operands.add(parseNot());
+            while (accept("AND")) {
+                operands.add(parseNot());
+            }
+            return combine(Op.AND, operands);
+        }
+
+        IngredientQuery parseNot() {
+            if (accept("NOT")) {
+                return not(parseNot());
+            }
+            if (accept("(")) {
+                IngredientQuery inner = parseOr();
+                if (!accept(")")) {
+                    throw error("missing ')'");
+                }
+                return inner;
+            }
+            StringBuilder name = new StringBuilder();
+            while (pos < tokens.size() && !isOperator(tokens.get(pos))) {
+                if (name.length() > 0) name.append(' ');
+                name.append(tokens.get(pos++));
+            }
+            if (name.length() == 0) {
+                throw error(pos < tokens.size() ? "unexpected '" + tokens.get(pos) + "'" : "unexpected end");
+            }
+            return has(name.toString());
+        }
+
+        private boolean accept(String token) {
+            if (pos < tokens.size() && tokens.get(pos).equalsIgnoreCase(token)) {
+                pos++;
+                return true;
+            }
+            return false;
+        }
+
+        private static boolean isOperator(String token) {
+            return token.equalsIgnoreCase("AND") || token.equalsIgnoreCase("OR") || token.equalsIgnoreCase("NOT")
+                    || token.equals("(") || token.equals(")");
+        }
+
+        IllegalArgumentException error(String message) {
+            return new IllegalArgumentException("Invalid ingredient query '" + text + "': " + message);
+        }
+    }
+}
@@ -0,0 +1,78 @@
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Thread-safe latency histogram with logarithmic buckets.
+ *
+ * <p>Bucket {@code i} counts requests that took less than {@code 2^i} microseconds,
+ * so recording is a couple of atomic increments and percentiles are accurate to
+ * within a factor of two. Used by {@link RecipeServer} for per-endpoint metrics.
+ */
+class LatencyRecorder {
+    private static final int BUCKETS = 40;
+
+    private final AtomicLongArray buckets = new AtomicLongArray(BUCKETS);
+    private final AtomicLong count = new AtomicLong();
+    private final AtomicLong totalMicros = new AtomicLong();
+    private final AtomicLong maxMicros = new AtomicLong();
+    private final AtomicLong errors = new AtomicLong();
+
+    /**
+     * Records one request.
+     *
+     * @param nanos the request duration
+     * @param error whether the request failed
+     */
+    void record(long nanos, boolean error) {
+        long micros = Math.max(0, nanos / 1000);
+        int bucket = Math.min(BUCKETS - 1, 64 - Long.numberOfLeadingZeros(micros));
+        buckets.incrementAndGet(bucket);
+        count.incrementAndGet();
+        totalMicros.addAndGet(micros);
+        maxMicros.accumulateAndGet(micros, Math::max);
+        if (error) {
+            errors.incrementAndGet();
+        }
+    }
+
+    long count() {
+        return count.get();
+    }
+
+    long errors() {
+        return errors.get();
+    }
+
+    /**
+     * Returns the upper bound, in microseconds, of the bucket holding quantile {@code q}.
+     */
+    long percentileMicros(double q) {
+        long n = count.get();
+        if (n == 0) {
+            return 0;
+        }
+        long rank = (long) Math.ceil(q * n);
+        long seen = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            seen += buckets.get(i);
+            if (seen >= rank) {
+                return Math.min(1L << i, maxMicros.get());
+            }
+        }
+        return maxMicros.get();
+    }
+
+    /**
+     * Returns the metrics as a JSON object.
+     */
+    String toJson() {
+        long n = count.get();
+        return "{\"count\":" + n
+                + ",\"errors\":" + errors.get()
+                + ",\"meanMicros\":" + (n == 0 ? 0 : totalMicros.get() / n)
+                + ",\"p50Micros\":" + percentileMicros(0.50)
+                + ",\"p90Micros\":" + percentileMicros(0.90)
+                + ",\"p99Micros\":" + percentileMicros(0.99)
+                + ",\"maxMicros\":" + maxMicros.get() + "}";
+    }
+}
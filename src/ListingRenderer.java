@@ -0,0 +1,182 @@
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.List;
+
+/**
+ * Writes recipe listings, recipe details and shopping carts to a buffered Writer.
+ *
+ * <p>Lines are assembled in one reusable StringBuilder and copied through one
+ * reusable char buffer, so rendering a listing allocates nothing per line.
+ * Output is only pushed to the underlying stream by {@link #flush()}, which
+ * callers invoke once per command; large dumps therefore stream in big writes.
+ *
+ * <p>Listings can be rendered a page at a time with {@link #recipeListPage}.
+ * {@link #recipeCatalog} streams the full text of any number of recipes the same
+ * way, without building a string per recipe.
+ */
+public class ListingRenderer {
+    private static final int BUFFER_SIZE = 1 << 16;
+    private static final String NEWLINE = System.lineSeparator();
+
+    private final Writer out;
+    private final StringBuilder line = new StringBuilder(128);
+    private char[] chars = new char[128];
+
+    /**
+     * Creates a renderer writing to {@code out}, adding a 64 KB buffer unless
+     * it is already a BufferedWriter.
+     *
+     * @param out the destination; must not be null
+     */
+    public ListingRenderer(Writer out) {
+        if (out == null) {
+            throw new IllegalArgumentException("Writer must not be null");
+        }
+        this.out = out instanceof BufferedWriter ? out : new BufferedWriter(out, BUFFER_SIZE);
+    }
+
+    /**
+     * Writes a titled, numbered listing of every recipe.
+     *
+     * <p>Format matches the console listing: a blank line, {@code Title (count):}
+     * and one {@code N. name (S servings)} line per recipe.
+     *
+     * @param title the heading, e.g. "All Recipes"
+     * @param recipes the recipes to list, in display order
+     * @throws IOException if writing fails
+     */
+    public void recipeList(String title, List<Recipe> recipes) throws IOException {
+        header(title, recipes.size());
+        rows(recipes, 0, recipes.size());
+    }
+
+    /**
+     * Writes one page of a titled, numbered listing followed by a page footer.
+     *
+     * <p>Numbering continues across pages. When everything fits on one page the
+     * output is identical to {@link #recipeList} and no footer is written.
+     *
+     * @param title the heading
+     * @param recipes all recipes in the listing, in display order
+     * @param page the zero-based page to write; clamped to the valid range
+     * @param pageSize the number of recipes per page; must be positive
+     * @return the page that was written, after clamping
+     * @throws IOException if writing fails
+     */
+    public int recipeListPage(String title, List<Recipe> recipes, int page, int pageSize) throws IOException {
+        if (pageSize <= 0) {
+            throw new IllegalArgumentException("pageSize must be positive");
+        }
+        int pages = pageCount(recipes.size(), pageSize);
+        page = Math.max(0, Math.min(page, pages - 1));
+        int from = page * pageSize;
+        int to = Math.min(recipes.size(), from + pageSize);
+        header(title, recipes.size());
+        rows(recipes, from, to);
+        if (pages > 1) {
+            line.setLength(0);
+            line.append("Page ").append(page + 1).append(" of ").append(pages)
+                    .append(" (enter n for next page, p for previous page)").append(NEWLINE);
+            emit();
+        }
+        return page;
+    }
+
+    /**
+     * Returns the number of pages needed for {@code count} items, at least 1.
+     *
+     * @param count the number of items
+     * @param pageSize the items per page; must be positive
+     * @return the page count
+     */
+    public static int pageCount(int count, int pageSize) {
+        return Math.max(1, (count + pageSize - 1) / pageSize);
+    }
+
+    /**
+     * Writes a recipe's full description preceded by a blank line.
+     *
+     * @param recipe the recipe to describe
+     * @throws IOException if writing fails
+     */
+    public void recipeDetails(Recipe recipe) throws IOException {
+        line.setLength(0);
+        // toString caches the text on the recipe, so viewing it again costs nothing
+        line.append(NEWLINE).append(recipe.toString()).append(NEWLINE);
+        emit();
+    }
+
+    /**
+     * Writes the full description of every recipe, each followed by a blank line,
+     * as a printable export of a whole book.
+     *
+     * <p>Recipes are rendered straight into this renderer's buffers. Their cached
+     * text is used when present, but none is cached by the export, so exporting a
+     * large book does not keep a copy of its text.
+     *
+     * @param recipes the recipes to write, in order, e.g. from
+     *        {@link RecipeBook#getAllRecipes} or {@link RecipeSorter#sortByName}
+     * @throws IOException if writing fails
+     */
+    public void recipeCatalog(List<Recipe> recipes) throws IOException {
+        for (int i = 0; i < recipes.size(); i++) {
+            line.setLength(0);
+            recipes.get(i).appendTo(line);
+            line.append(NEWLINE);
+            emit();
+        }
+    }
+
+    /**
+     * Writes aggregated shopping cart lines under the cart heading.
+     *
+     * @param cartLines the lines produced by {@link ShoppingCart#aggregate}
+     * @throws IOException if writing fails
+     */
+    public void shoppingCart(List<String> cartLines) throws IOException {
+        line.setLength(0);
+        line.append(NEWLINE).append("=== Shopping Cart ===").append(NEWLINE)
+                .append("Aggregated Ingredients:").append(NEWLINE);
+        emit();
+        for (int i = 0; i < cartLines.size(); i++) {
+            line.setLength(0);
+            line.append("  - ").append(cartLines.get(i)).append(NEWLINE);
+            emit();
+        }
+    }
+
+    /**
+     * Pushes buffered output to the underlying stream.
+     *
+     * @throws IOException if writing fails
+     */
+    public void flush() throws IOException {
+        out.flush();
+    }
+
+    private void header(String title, int count) throws IOException {
+        line.setLength(0);
+        line.append(NEWLINE).append(title).append(" (").append(count).append("):").append(NEWLINE);
+        emit();
+    }
+
+    private void rows(List<Recipe> recipes, int from, int to) throws IOException {
+        for (int i = from; i < to; i++) {
+            Recipe r = recipes.get(i);
+            line.setLength(0);
+            line.append(i + 1).append(". ").append(r.getName())
+                    .append(" (").append(r.getServings()).append(" servings)").append(NEWLINE);
+            emit();
+        }
+    }
+
+    private void emit() throws IOException {
+        int len = line.length();
+        if (len > chars.length) {
+            chars = new char[Math.max(len, chars.length * 2)];
+        }
+        line.getChars(0, len, chars, 0);
+        out.write(chars, 0, len);
+    }
+}
@@ -0,0 +1,393 @@
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Read-only view of a recipe file that parses ingredients on demand.
+ *
+ * <p>{@link #open} memory-maps the file and makes one pass over its bytes. The
+ * pass decodes only each recipe's name and servings, and records where the
+ * recipe's JSON object starts and ends. The ingredients of a recipe are parsed
+ * from the mapping the first time anything asks for them, and the recipe keeps
+ * them from then on. Listing recipes and looking them up by name never parses
+ * ingredients. A book built with {@link #toRecipeBook} also delays its search
+ * index until the first query that needs it.
+ *
+ * <p>Only names and servings are validated when the file is opened. A malformed
+ * ingredient list is reported when that recipe is first used, as an
+ * UncheckedIOException. The file must not be modified while recipes from it are
+ * still unparsed. Saving over it is safe, because saving parses every recipe
+ * before writing.
+ */
+public class MappedRecipeCatalog {
+    // Files are mapped in 1 GB regions because one mapping cannot exceed 2 GB
+    private static final int REGION_BITS = 30;
+    private static final long REGION_MASK = (1L << REGION_BITS) - 1;
+
+    private final String source;
+    private final MappedByteBuffer[] regions;
+    private final long length;
+    private long pos;
+    // Scratch buffer for decoding strings during the scan
+    private byte[] scratch = new byte[64];
+
+    private long[] starts = new long[1024];
+    private int[] lengths = new int[1024];
+    private final List<Recipe> recipes = new ArrayList<>();
+    // Shared by lazy parses so materialized recipes share ingredient name strings
+    private final StringPool pool = new StringPool();
+
+    private MappedRecipeCatalog(String source, MappedByteBuffer[] regions, long length) {
+        this.source = source;
+        this.regions = regions;
+        this.length = length;
+    }
+
+    /**
+     * Maps a recipe file and indexes its recipes without parsing their ingredients.
+     *
+     * @param filePath the file written by {@link RecipeJsonStore#save}; must not be null
+     * @return the catalog
+     * @throws IOException if the file cannot be read, is not a recipe file, or a
+     *         recipe has a missing or invalid name or servings
+     */
+    public static MappedRecipeCatalog open(String filePath) throws IOException {
+        if (filePath == null || filePath.isBlank()) {
+            throw new IllegalArgumentException("File path must not be null or blank");
+        }
+        Path path = Paths.get(filePath);
+        if (!Files.exists(path)) {
+            throw new IOException("File not found: " + filePath);
+        }
+        MappedRecipeCatalog catalog;
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            long size = channel.size();
+            int count = (int) ((size + REGION_MASK) >>> REGION_BITS);
+            MappedByteBuffer[] regions = new MappedByteBuffer[count];
+            for (int i = 0; i < count; i++) {
+                long offset = (long) i << REGION_BITS;
+                regions[i] = channel.map(FileChannel.MapMode.READ_ONLY, offset, Math.min(1L << REGION_BITS, size - offset));
+            }
+            catalog = new MappedRecipeCatalog(filePath, regions, size);
+        }
+        catalog.scan();
+        return catalog;
+    }
+
+    /**
+     * Returns the number of recipes in the file.
+     *
+     * @return the recipe count
+     */
+    public int size() {
+        return recipes.size();
+    }
+
+    /**
+     * Returns the recipe at {@code index}, in file order. Its ingredients are
+     * parsed when first accessed.
+     *
+     * @param index the position of the recipe in the file
+     * @return the recipe
+     * @throws IndexOutOfBoundsException if index is out of range
+     */
+    public Recipe recipeAt(int index) {
+        return recipes.get(index);
+    }
+
+    /**
+     * Returns how many recipes have had their ingredients parsed so far.
+     *
+     * @return the number of materialized recipes
+     */
+    public int materializedCount() {
+        int loaded = 0;
+        for (Recipe r : recipes) {
+            if (r.isLoaded()) loaded++;
+        }
+        return loaded;
+    }
+
+    /**
+     * Returns a RecipeBook holding this catalog's recipes. The book counts as saved.
+     *
+     * @return a new RecipeBook backed by this catalog
+     */
+    public RecipeBook toRecipeBook() {
+        RecipeBook book = new RecipeBook();
+        for (Recipe r : recipes) {
+            book.addRecipe(r);
+        }
+        book.markSaved();
+        return book;
+    }
+
+    /**
+     * Parses the ingredients of recipe {@code index} from the mapping. The pool is
+     * not thread-safe, and different recipes may be first used from several
+     * threads; Recipe runs this at most once per recipe.
+     */
+    private List<Ingredient> loadIngredients(int index) {
+        try {
+            Recipe parsed;
+            synchronized (pool) {
+                parsed = RecipeJsonStore.parseRecipe(recipeBytes(index), index, pool);
+            }
+            List<String> names = parsed.getIngredientNames();
+            List<Double> amounts = parsed.getIngredientAmounts();
+            List<Ingredient> ingredients = new ArrayList<>(names.size());
+            for (int i = 0; i < names.size(); i++) {
+                ingredients.add(new Ingredient(names.get(i), amounts.get(i)));
+            }
+            return ingredients;
+        } catch (IOException e) {
+            throw new UncheckedIOException(source + ": " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Returns the JSON of recipe {@code index}: a slice of the mapping, or a copy
+     * if the recipe straddles two regions.
+     */
+    private ByteBuffer recipeBytes(int index) {
+        long start = starts[index];
+        int len = lengths[index];
+        int region = (int) (start >>> REGION_BITS);
+        if (region == (int) ((start + len - 1) >>> REGION_BITS)) {
+            return regions[region].slice((int) (start & REGION_MASK), len);
+        }
+        byte[] bytes = new byte[len];
+        for (int i = 0; i < len; i++) {
+            bytes[i] = byteAt(start + i);
+        }
+        return ByteBuffer.wrap(bytes);
+    }
+
+    // --- Scanning ---
+
+    private void scan() throws IOException {
+        skipWhitespace();
+        expect('{');
+        boolean sawRecipes = false;
+        skipWhitespace();
+        while (peek() != '}') {
+            String key = readString();
+            skipWhitespace();
+            expect(':');
+            skipWhitespace();
+            if ("recipes".equals(key)) {
+                if (sawRecipes) {
+                    throw error("Duplicate 'recipes' key");
+                }
+                sawRecipes = true;
+                scanRecipes();
+            } else {
+                skipValue();
+            }
+            skipWhitespace();
+            if (peek() == ',') {
+                pos++;
+                skipWhitespace();
+            }
+        }
+        pos++;
+        skipWhitespace();
+        if (pos < length) {
+            throw error("Unexpected content after JSON");
+        }
+        if (!sawRecipes) {
+            throw new IOException("Missing required 'recipes' key");
+        }
+        starts = Arrays.copyOf(starts, recipes.size());
+        lengths = Arrays.copyOf(lengths, recipes.size());
+    }
+
+    private void scanRecipes() throws IOException {
+        expect('[');
+        skipWhitespace();
+        if (peek() == ']') {
+            pos++;
+            return;
+        }
+        while (true) {
+            skipWhitespace();
+            scanRecipe();
+            skipWhitespace();
+            byte b = next();
+            if (b == ']') return;
+            if (b != ',') {
+                throw error("Expected ',' or ']' in recipes array");
+            }
+        }
+    }
+
+    private void scanRecipe() throws IOException {
+        int index = recipes.size();
+        long start = pos;
+        expect('{');
+        String name = null;
+        Integer servings = null;
+        skipWhitespace();
+        while (peek() != '}') {
+            String key = readString();
+            skipWhitespace();
+            expect(':');
+            skipWhitespace();
+            if ("name".equals(key)) {
+                name = readString();
+            } else if ("servings".equals(key)) {
+                servings = readInt();
+            } else {
+                skipValue();
+            }
+            skipWhitespace();
+            if (peek() == ',') {
+                pos++;
+                skipWhitespace();
+            }
+        }
+        pos++;
+        if (pos - start > Integer.MAX_VALUE) {
+            throw new IOException("Recipe " + index + ": too large");
+        }
+        if (name == null || name.trim().isEmpty()) {
+            throw new IOException("Recipe " + index + ": missing or blank 'name'");
+        }
+        if (servings == null || servings <= 0) {
+            throw new IOException("Recipe " + index + ": 'servings' must be present and > 0");
+        }
+        if (index == starts.length) {
+            starts = Arrays.copyOf(starts, index * 2);
+            lengths = Arrays.copyOf(lengths, index * 2);
+        }
+        starts[index] = start;
+        lengths[index] = (int) (pos - start);
+        recipes.add(Recipe.deferred(name.trim(), servings, () -> loadIngredients(index)));
+    }
+
+    /**
+     * Skips a value of any type without decoding it.
+     */
+    private void skipValue() throws IOException {
+        byte b = peek();
+        if (b == '"') {
+            skipString();
+        } else if (b == '{' || b == '[') {
+            int depth = 0;
+            do {
+                b = next();
+                if (b == '"') {
+                    pos--;
+                    skipString();
+                } else if (b == '{' || b == '[') {
+                    depth++;
+                } else if (b == '}' || b == ']') {
+                    depth--;
+                }
+            } while (depth > 0);
+        } else {
+            while (pos < length) {
+                b = byteAt(pos);
+                if (b == ',' || b == '}' || b == ']' || isWhitespace(b)) break;
+                pos++;
+            }
+        }
+    }
+
+    private void skipString() throws IOException {
+        expect('"');
+        while (true) {
+            byte b = next();
+            if (b == '"') return;
+            if (b == '\\') next();
+        }
+    }
+
+    private String readString() throws IOException {
+        expect('"');
+        int len = 0;
+        while (true) {
+            byte b = next();
+            if (b == '"') break;
+            if (b == '\\') {
+                byte e = next();
+                if (e == 'n') b = '\n';
+                else if (e == 'r') b = '\r';
+                else if (e == 't') b = '\t';
+                else if (e == '"' || e == '\\') b = e;
+                else throw error("Invalid escape \\" + (char) e);
+            }
+            if (len == scratch.length) {
+                scratch = Arrays.copyOf(scratch, len * 2);
+            }
+            scratch[len++] = b;
+        }
+        return new String(scratch, 0, len, StandardCharsets.UTF_8);
+    }
+
+    private int readInt() throws IOException {
+        long start = pos;
+        boolean negative = peek() == '-';
+        if (negative) pos++;
+        long value = 0;
+        while (pos < length && byteAt(pos) >= '0' && byteAt(pos) <= '9') {
+            value = value * 10 + (byteAt(pos) - '0');
+            if (value > Integer.MAX_VALUE) {
+                throw error("Invalid integer");
+            }
+            pos++;
+        }
+        if (pos == start || (negative && pos == start + 1)) {
+            throw error("Expected number");
+        }
+        return (int) (negative ? -value : value);
+    }
+
+    private void expect(char c) throws IOException {
+        if (pos >= length || byteAt(pos) != c) {
+            throw error("Expected '" + c + "'");
+        }
+        pos++;
+    }
+
+    private byte peek() throws IOException {
+        if (pos >= length) {
+            throw error("Unexpected end of file");
+        }
+        return byteAt(pos);
+    }
+
+    private byte next() throws IOException {
+        byte b = peek();
+        pos++;
+        return b;
+    }
+
+    private void skipWhitespace() {
+        while (pos < length && isWhitespace(byteAt(pos))) {
+            pos++;
+        }
+    }
+
+    private static boolean isWhitespace(byte b) {
+        return b == ' ' || b == '\n' || b == '\r' || b == '\t';
+    }
+
+    private byte byteAt(long p) {
+        return regions[(int) (p >>> REGION_BITS)].get((int) (p & REGION_MASK));
+    }
+
+    private IOException error(String message) {
+        return new IOException(message + " at position " + pos);
+    }
+}
@@ -0,0 +1,132 @@
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Estimated heap bytes retained by a {@link RecipeBook}, by subsystem, from
+ * {@link RecipeBook#estimateFootprint}.
+ *
+ * <p>Subsystems fall into three groups: storage (the recipes, their ingredients
+ * and strings), indexes (search and similarity indexes) and caches (query
+ * results, cached encodings and text, and save bookkeeping). Instances are
+ * immutable snapshots.
+ */
+public class MemoryFootprint {
+    /** Subsystem holding the recipes themselves. */
+    public static final String RECIPES = "recipes";
+    /** Subsystem of the word, completion and ingredient indexes. */
+    public static final String SEARCH_INDEX = "search index";
+    /** Subsystem of the near-duplicate index; empty until similarity is first asked for. */
+    public static final String SIMILARITY_INDEX = "similarity index";
+    /** Subsystem of memoized query results. */
+    public static final String QUERY_CACHE = "query cache";
+    /** Subsystem of cached JSON encodings and dirty tracking for incremental saves. */
+    public static final String SAVE_STATE = "save state";
+    /** Subsystem of recipe text cached by {@link Recipe#toString}. */
+    public static final String RENDERED_TEXT = "rendered text";
+
+    private final int recipeCount;
+    private final Map<String, Long> subsystems;
+
+    MemoryFootprint(int recipeCount, Map<String, Long> subsystems) {
+        this.recipeCount = recipeCount;
+        this.subsystems = Collections.unmodifiableMap(new LinkedHashMap<>(subsystems));
+    }
+
+    /**
+     * Returns the number of recipes in the book when it was measured.
+     *
+     * @return the recipe count
+     */
+    public int getRecipeCount() {
+        return recipeCount;
+    }
+
+    /**
+     * Returns the estimated bytes of the recipes, their ingredients and strings.
+     *
+     * @return the storage bytes
+     */
+    public long getStorageBytes() {
+        return bytes(RECIPES);
+    }
+
+    /**
+     * Returns the estimated bytes of the search and similarity indexes.
+     *
+     * @return the index bytes
+     */
+    public long getIndexBytes() {
+        return bytes(SEARCH_INDEX) + bytes(SIMILARITY_INDEX);
+    }
+
+    /**
+     * Returns the estimated bytes of the query cache, save state and rendered text.
+     *
+     * @return the cache bytes
+     */
+    public long getCacheBytes() {
+        return bytes(QUERY_CACHE) + bytes(SAVE_STATE) + bytes(RENDERED_TEXT);
+    }
+
+    /**
+     * Returns the estimated bytes of the whole book.
+     *
+     * @return the total bytes
+     */
+    public long getTotalBytes() {
+        long total = 0;
+        for (long b : subsystems.values()) {
+            total += b;
+        }
+        return total;
+    }
+
+    /**
+     * Returns the total bytes divided by the number of recipes.
+     *
+     * @return the average bytes per recipe, or 0 for an empty book
+     */
+    public double getBytesPerRecipe() {
+        return recipeCount == 0 ? 0 : (double) getTotalBytes() / recipeCount;
+    }
+
+    /**
+     * Returns the estimated bytes of each subsystem, keyed by the constants of
+     * this class, in a fixed order.
+     *
+     * @return an unmodifiable map from subsystem name to bytes
+     */
+    public Map<String, Long> getSubsystemBytes() {
+        return subsystems;
+    }
+
+    /**
+     * Returns a multi-line table of the subsystems and totals, for display.
+     */
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder();
+        sb.append(String.format("Memory footprint of %d recipes (estimated)%n", recipeCount));
+        for (Map.Entry<String, Long> e : subsystems.entrySet()) {
+            sb.append(String.format("  %-18s %12s%n", e.getKey(), format(e.getValue())));
+        }
+        sb.append(String.format("  %-18s %12s%n", "total", format(getTotalBytes())));
+        sb.append(String.format("  %-18s %12s", "per recipe", format(Math.round(getBytesPerRecipe()))));
+        return sb.toString();
+    }
+
+    private long bytes(String subsystem) {
+        return subsystems.getOrDefault(subsystem, 0L);
+    }
+
+    private static String format(long bytes) {
+        if (bytes < 1024) {
+            return bytes + " B";
+        }
+        if (bytes < 1024 * 1024) {
+            return String.format("%.1f KB", bytes / 1024.0);
+        }
+        return String.format("%.1f MB", bytes / (1024.0 * 1024));
+    }
+}
@@ -0,0 +1,296 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+
+/**
+ * Locality-sensitive index of recipes by their ingredient sets, for finding
+ * near-duplicates without comparing every pair.
+ *
+ * <p>Each recipe's set of ingredient keys ({@link CatalogIndex#ingredientKey}) gets a MinHash
+ * signature of {@value #HASHES} values: the minimum of each of {@value #HASHES}
+ * hash functions over the set. Two sets agree on any one value with probability
+ * equal to their Jaccard similarity. The signature is cut into {@value #BANDS}
+ * bands of {@value #ROWS} values and every band is a bucket key, so recipes
+ * sharing any whole band become candidates. A pair with similarity s is a
+ * candidate with probability 1 - (1 - s^4)^32: about 87% at 0.5, 99% at 0.6
+ * and certain in practice from 0.7. Candidates are then checked against their
+ * exact Jaccard similarity, so results never include pairs below the threshold.
+ *
+ * <p>Recipes are queued when added and signed on the next query, so lazily
+ * loaded recipes are not parsed until similarity is asked for. A recipe that
+ * gains an ingredient or is removed from the book is re-signed or dropped.
+ *
+ * <p>This class is owned by RecipeBook and is not thread-safe.
+ */
+class MinHashIndex {
+    private static final int BANDS = 32;
+    private static final int ROWS = 4;
+    private static final int HASHES = BANDS * ROWS;
+    // Multipliers and offsets of the hash functions; fixed so signatures are reproducible
+    private static final long[] MULTIPLIERS = new long[HASHES];
+    private static final long[] OFFSETS = new long[HASHES];
+
+    static {
+        Random random = new Random(0x5eed);
+        for (int i = 0; i < HASHES; i++) {
+            MULTIPLIERS[i] = random.nextLong() | 1;
+            OFFSETS[i] = random.nextLong();
+        }
+    }
+
+    private final Map<Recipe, Entry> entries = new IdentityHashMap<>();
+    private final Map<Long, List<Entry>> buckets = new HashMap<>();
+    // Recipes added or changed since the last query, in order (Recipe uses identity equality)
+    private final Set<Recipe> pending = new LinkedHashSet<>();
+    private long nextSequence;
+
+    /**
+     * Queues {@code r} to be signed on the next query. Re-adding a recipe that is
+     * already indexed re-signs it.
+     */
+    void add(Recipe r) {
+        pending.add(r);
+    }
+
+    void remove(Recipe r) {
+        pending.remove(r);
+        Entry e = entries.remove(r);
+        if (e != null) {
+            unbucket(e);
+        }
+    }
+
+    void clear() {
+        entries.clear();
+        buckets.clear();
+        pending.clear();
+    }
+
+    /**
+     * Returns the indexed recipes whose ingredient sets have Jaccard similarity of
+     * at least {@code threshold} with {@code r}'s, most similar first and then in
+     * insertion order. {@code r} itself is left out.
+     */
+    List<ScoredRecipe> similarTo(Recipe r, double threshold) {
+        signPending();
+        Entry probe = entries.get(r);
+        if (probe == null) {
+            probe = new Entry(r, -1);
+        }
+        List<Entry> matches = new ArrayList<>();
+        Map<Entry, Double> scores = new IdentityHashMap<>();
+        for (Entry candidate : candidates(probe)) {
+            if (candidate.recipe == r) {
+                continue;
+            }
+            double similarity = jaccard(probe.keys, candidate.keys);
+            if (similarity >= threshold) {
+                matches.add(candidate);
+                scores.put(candidate, similarity);
+            }
+        }
+        matches.sort(Comparator.comparingDouble((Entry e) -> -scores.get(e)).thenComparingLong(e -> e.sequence));
+        List<ScoredRecipe> results = new ArrayList<>(matches.size());
+        for (Entry e : matches) {
+            results.add(new ScoredRecipe(e.recipe, scores.get(e)));
+        }
+        return results;
+    }
+
+    /**
+     * Groups the indexed recipes into clusters linked by pairs with similarity of
+     * at least {@code threshold}. Clusters with one recipe are left out. Each
+     * cluster is in insertion order, and clusters are ordered by their first recipe.
+     */
+    List<List<Recipe>> clusters(double threshold) {
+        signPending();
+        List<Entry> all = new ArrayList<>(entries.values());
+        all.sort(Comparator.comparingLong(e -> e.sequence));
+        Map<Entry, Integer> position = new IdentityHashMap<>();
+        for (int i = 0; i < all.size(); i++) {
+            position.put(all.get(i), i);
+        }
+        int[] parent = new int[all.size()];
+        for (int i = 0; i < parent.length; i++) {
+            parent[i] = i;
+        }
+        // Recipes with the same ingredient set are joined directly; only the first
+        // of each set is compared through the buckets, which it shares with the rest
+        Map<List<String>, Integer> firstWithKeys = new HashMap<>();
+        for (int i = 0; i < all.size(); i++) {
+            Entry e = all.get(i);
+            Integer first = firstWithKeys.putIfAbsent(Arrays.asList(e.keys), i);
+            if (first != null) {
+                parent[find(parent, i)] = find(parent, first);
+                continue;
+            }
+            for (Entry candidate : candidates(e)) {
+                int j = position.get(candidate);
+                // Each pair once, and only if not already joined
+                if (j > i && find(parent, i) != find(parent, j) && jaccard(e.keys, candidate.keys) >= threshold) {
+                    parent[find(parent, j)] = find(parent, i);
+                }
+            }
+        }
+        Map<Integer, List<Recipe>> byRoot = new HashMap<>();
+        List<List<Recipe>> clusters = new ArrayList<>();
+        for (int i = 0; i < all.size(); i++) {
+            List<Recipe> cluster = byRoot.get(find(parent, i));
+            if (cluster == null) {
+                cluster = new ArrayList<>();
+                byRoot.put(find(parent, i), cluster);
+                clusters.add(cluster);
+            }
+            cluster.add(all.get(i).recipe);
+        }
+        clusters.removeIf(c -> c.size() < 2);
+        return clusters;
+    }
+
+    /**
+     * Estimates the heap bytes of the signatures and buckets, but not the recipes
+     * they refer to.
+     */
+    long estimateHeap(HeapEstimator est) {
+        long bytes = HeapEstimator.shallow(MinHashIndex.class) + HeapEstimator.identityHashMap(entries.size())
+                + HeapEstimator.linkedHashMap(pending.size()) + HeapEstimator.hashMap(buckets.size());
+        for (Entry e : entries.values()) {
+            bytes += HeapEstimator.shallow(Entry.class) + HeapEstimator.referenceArray(e.keys.length)
+                    + HeapEstimator.array(HASHES, Integer.BYTES);
+            for (String key : e.keys) {
+                bytes += est.string(key);
+            }
+        }
+        for (List<Entry> bucket : buckets.values()) {
+            bytes += HeapEstimator.BOX + HeapEstimator.arrayList(bucket.size());
+        }
+        return bytes;
+    }
+
+    private void signPending() {
+        for (Recipe r : pending) {
+            Entry old = entries.get(r);
+            // A re-signed recipe keeps its place in insertion order
+            Entry e = new Entry(r, old != null ? old.sequence : nextSequence++);
+            if (old != null) {
+                unbucket(old);
+            }
+            entries.put(r, e);
+            for (int band = 0; band < BANDS && e.keys.length > 0; band++) {
+                buckets.computeIfAbsent(bandKey(e.signature, band), k -> new ArrayList<>()).add(e);
+            }
+        }
+        pending.clear();
+    }
+
+    private void unbucket(Entry e) {
+        for (int band = 0; band < BANDS && e.keys.length > 0; band++) {
+            Long key = bandKey(e.signature, band);
+            List<Entry> bucket = buckets.get(key);
+            bucket.remove(e);
+            if (bucket.isEmpty()) {
+                buckets.remove(key);
+            }
+        }
+    }
+
+    /**
+     * Returns the entries sharing at least one band with {@code e}, each once.
+     */
+    private Set<Entry> candidates(Entry e) {
+        Set<Entry> out = Collections.newSetFromMap(new IdentityHashMap<>());
+        for (int band = 0; band < BANDS && e.keys.length > 0; band++) {
+            List<Entry> bucket = buckets.get(bandKey(e.signature, band));
+            if (bucket != null) {
+                out.addAll(bucket);
+            }
+        }
+        return out;
+    }
+
+    private static long bandKey(int[] signature, int band) {
+        long h = band;
+        for (int i = band * ROWS; i < (band + 1) * ROWS; i++) {
+            h = h * 0x9E3779B97F4A7C15L + signature[i];
+        }
+        return h;
+    }
+
+    private static int find(int[] parent, int i) {
+        while (parent[i] != i) {
+            parent[i] = parent[parent[i]];
+            i = parent[i];
+        }
+        return i;
+    }
+
+    /**
+     * Returns |a ∩ b| / |a ∪ b| for two sorted arrays of distinct keys.
+     */
+    static double jaccard(String[] a, String[] b) {
+        if (a.length == 0 || b.length == 0) {
+            return 0;
+        }
+        int common = 0;
+        int i = 0;
+        int j = 0;
+        while (i < a.length && j < b.length) {
+            int cmp = a[i].compareTo(b[j]);
+            if (cmp == 0) {
+                common++;
+                i++;
+                j++;
+            } else if (cmp < 0) {
+                i++;
+            } else {
+                j++;
+            }
+        }
+        return (double) common / (a.length + b.length - common);
+    }
+
+    /**
+     * A signed recipe: its sorted distinct ingredient keys and MinHash signature.
+     */
+    private static class Entry {
+        final Recipe recipe;
+        final long sequence;
+        final String[] keys;
+        final int[] signature = new int[HASHES];
+
+        Entry(Recipe recipe, long sequence) {
+            this.recipe = recipe;
+            this.sequence = sequence;
+            Set<String> distinct = new LinkedHashSet<>();
+            for (Ingredient i : recipe.ingredientList()) {
+                distinct.add(CatalogIndex.ingredientKey(i.getName()));
+            }
+            keys = distinct.toArray(new String[0]);
+            Arrays.sort(keys);
+            Arrays.fill(signature, Integer.MAX_VALUE);
+            for (String key : keys) {
+                long x = mix(key.hashCode());
+                for (int h = 0; h < HASHES; h++) {
+                    int value = (int) ((MULTIPLIERS[h] * x + OFFSETS[h]) >>> 32);
+                    if (value < signature[h]) {
+                        signature[h] = value;
+                    }
+                }
+            }
+        }
+
+        private static long mix(long x) {
+            x = (x ^ (x >>> 33)) * 0xff51afd7ed558ccdL;
+            x = (x ^ (x >>> 33)) * 0xc4ceb9fe1a85ec53L;
+            return x ^ (x >>> 33);
+        }
+    }
+}
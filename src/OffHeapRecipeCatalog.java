@@ -0,0 +1,302 @@
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Recipe catalog stored in direct memory, for catalogs too large to keep as
+ * Recipe objects.
+ *
+ * <p>A heap-based book costs several objects per recipe and per ingredient, and
+ * the garbage collector traces all of them. This catalog keeps recipes in
+ * off-heap columns instead:
+ * <ul>
+ *   <li>a fixed-size record per recipe holding its servings and where its name
+ *       and ingredients are,</li>
+ *   <li>recipe names as UTF-8 bytes,</li>
+ *   <li>ingredient name ids and amounts as int and double columns.</li>
+ * </ul>
+ * The only heap objects are the distinct ingredient names, which are few
+ * compared with recipes, and the arena chunks. Heap use and collection pauses
+ * therefore stay flat as the catalog grows.
+ *
+ * <p>The primitive accessors ({@link #getServings}, {@link #getIngredientAmount}
+ * and so on) read the columns without creating objects. {@link #recipeAt} returns
+ * a Recipe view. Views are created on every call and kept by nobody, so they
+ * cost nothing once dropped. Scaling a view or adding an ingredient to it writes
+ * the change back to the catalog. The space taken by the replaced ingredient
+ * list is not reclaimed.
+ *
+ * <p>Recipe names are not required to be unique, as in RecipeBook. Not thread-safe.
+ */
+public class OffHeapRecipeCatalog {
+    // 16 MB chunks
+    private static final int CHUNK_BITS = 24;
+    // Record layout: long nameOffset, int nameLength, int servings, long firstIngredient, int ingredientCount
+    private static final int RECORD_SIZE = 32;
+    private static final int NAME_OFFSET = 0;
+    private static final int NAME_LENGTH = 8;
+    private static final int SERVINGS = 12;
+    private static final int FIRST_INGREDIENT = 16;
+    private static final int INGREDIENT_COUNT = 24;
+
+    private final DirectArena records = new DirectArena(CHUNK_BITS);
+    private final DirectArena names = new DirectArena(CHUNK_BITS);
+    private final DirectArena ingredientIds = new DirectArena(CHUNK_BITS);
+    private final DirectArena ingredientAmounts = new DirectArena(CHUNK_BITS);
+    private final List<String> vocabulary = new ArrayList<>();
+    private final Map<String, Integer> vocabularyIds = new HashMap<>();
+    private int size;
+    // Ingredient entries written so far, including replaced ones
+    private long ingredientEntries;
+
+    /**
+     * Creates an empty catalog.
+     */
+    public OffHeapRecipeCatalog() {
+    }
+
+    /**
+     * Creates a catalog holding a copy of every recipe in {@code book}, in order.
+     *
+     * @param book the book to copy; must not be null
+     * @return the new catalog
+     * @throws IllegalArgumentException if book is null
+     */
+    public static OffHeapRecipeCatalog copyOf(RecipeBook book) {
+        if (book == null) {
+            throw new IllegalArgumentException("RecipeBook must not be null");
+        }
+        OffHeapRecipeCatalog catalog = new OffHeapRecipeCatalog();
+        for (Recipe r : book.getAllRecipes()) {
+            catalog.add(r);
+        }
+        return catalog;
+    }
+
+    /**
+     * Appends a copy of {@code recipe}. Later changes to the recipe are not copied.
+     *
+     * @param recipe the recipe to add; must not be null
+     * @return the index of the new entry
+     * @throws IllegalArgumentException if recipe is null
+     */
+    public int add(Recipe recipe) {
+        if (recipe == null) {
+            throw new IllegalArgumentException("Recipe must not be null");
+        }
+        byte[] name = recipe.getName().getBytes(StandardCharsets.UTF_8);
+        long nameOffset = names.allocate(name.length);
+        names.put(nameOffset, name);
+        long record = records.allocate(RECORD_SIZE);
+        records.putLong(record + NAME_OFFSET, nameOffset);
+        records.putInt(record + NAME_LENGTH, name.length);
+        writeContents(record, recipe);
+        return size++;
+    }
+
+    /**
+     * Returns the number of recipes in the catalog.
+     *
+     * @return the recipe count
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Returns the name of recipe {@code index}.
+     *
+     * @param index the recipe index
+     * @return the recipe name, decoded from off-heap memory
+     * @throws IndexOutOfBoundsException if index is out of range
+     */
+    public String getName(int index) {
+        long record = record(index);
+        byte[] bytes = new byte[records.getInt(record + NAME_LENGTH)];
+        names.get(records.getLong(record + NAME_OFFSET), bytes, bytes.length);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Returns the servings of recipe {@code index}.
+     *
+     * @param index the recipe index
+     * @return the servings
+     * @throws IndexOutOfBoundsException if index is out of range
+     */
+    public int getServings(int index) {
+        return records.getInt(record(index) + SERVINGS);
+    }
+
+    /**
+     * Returns how many ingredients recipe {@code index} has.
+     *
+     * @param index the recipe index
+     * @return the ingredient count
+     * @throws IndexOutOfBoundsException if index is out of range
+     */
+    public int getIngredientCount(int index) {
+        return records.getInt(record(index) + INGREDIENT_COUNT);
+    }
+
+    /**
+     * Returns the name of ingredient {@code i} of recipe {@code index}.
+     *
+     * @param index the recipe index
+     * @param i the ingredient position within the recipe
+     * @return the ingredient name; equal names are the same instance
+     * @throws IndexOutOfBoundsException if either index is out of range
+     */
+    public String getIngredientName(int index, int i) {
+        return vocabulary.get(ingredientIds.getInt(ingredient(index, i) * Integer.BYTES));
+    }
+
+    /**
+     * Returns the amount of ingredient {@code i} of recipe {@code index}.
+     *
+     * @param index the recipe index
+     * @param i the ingredient position within the recipe
+     * @return the amount
+     * @throws IndexOutOfBoundsException if either index is out of range
+     */
+    public double getIngredientAmount(int index, int i) {
+        return ingredientAmounts.getDouble(ingredient(index, i) * Double.BYTES);
+    }
+
+    /**
+     * Returns a Recipe view of entry {@code index}.
+     *
+     * <p>Its ingredients are read from the catalog when first used. Scaling the
+     * view or adding an ingredient to it updates the catalog; other views of the
+     * same entry that already read their ingredients do not see the change.
+     *
+     * @param index the recipe index
+     * @return a new view of the recipe
+     * @throws IndexOutOfBoundsException if index is out of range
+     */
+    public Recipe recipeAt(int index) {
+        Recipe view = Recipe.deferred(getName(index), getServings(index), () -> readIngredients(index));
+        view.addChangeHook(event -> writeContents(record(index), event.getRecipe()));
+        return view;
+    }
+
+    /**
+     * Returns views of the recipes with an ingredient whose name contains
+     * {@code query}, ignoring case, in catalog order.
+     *
+     * <p>The query is matched against the distinct ingredient names once; the
+     * recipes are then found by scanning the id column, without creating objects
+     * for recipes that do not match.
+     *
+     * @param query the search string; null or blank matches nothing
+     * @return a new list of matching recipe views
+     */
+    public List<Recipe> searchByIngredient(String query) {
+        List<Recipe> results = new ArrayList<>();
+        if (query == null || query.isBlank()) {
+            return results;
+        }
+        String lowerQuery = query.trim().toLowerCase();
+        boolean[] matching = new boolean[vocabulary.size()];
+        boolean any = false;
+        for (int id = 0; id < matching.length; id++) {
+            matching[id] = vocabulary.get(id).toLowerCase().contains(lowerQuery);
+            any |= matching[id];
+        }
+        if (!any) {
+            return results;
+        }
+        for (int index = 0; index < size; index++) {
+            long record = record(index);
+            long first = records.getLong(record + FIRST_INGREDIENT);
+            int count = records.getInt(record + INGREDIENT_COUNT);
+            for (long k = first; k < first + count; k++) {
+                if (matching[ingredientIds.getInt(k * Integer.BYTES)]) {
+                    results.add(recipeAt(index));
+                    break;
+                }
+            }
+        }
+        return results;
+    }
+
+    /**
+     * Returns a RecipeBook of views of every recipe, in order. The book counts as
+     * saved, and its search index is built on the first query that needs it.
+     *
+     * @return a new RecipeBook backed by this catalog
+     */
+    public RecipeBook toRecipeBook() {
+        RecipeBook book = new RecipeBook();
+        for (int i = 0; i < size; i++) {
+            book.addRecipe(recipeAt(i));
+        }
+        book.markSaved();
+        return book;
+    }
+
+    /**
+     * Returns the direct memory held by the catalog, in bytes.
+     *
+     * @return the off-heap footprint
+     */
+    public long offHeapBytes() {
+        return records.capacity() + names.capacity() + ingredientIds.capacity() + ingredientAmounts.capacity();
+    }
+
+    private long record(int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("Index " + index + " out of bounds for size " + size);
+        }
+        return (long) index * RECORD_SIZE;
+    }
+
+    private long ingredient(int index, int i) {
+        long record = record(index);
+        int count = records.getInt(record + INGREDIENT_COUNT);
+        if (i < 0 || i >= count) {
+            throw new IndexOutOfBoundsException("Ingredient " + i + " out of bounds for " + count + " ingredients");
+        }
+        return records.getLong(record + FIRST_INGREDIENT) + i;
+    }
+
+    /**
+     * Writes the servings and ingredients of {@code recipe} to {@code record},
+     * appending a new run of ingredient entries.
+     */
+    private void writeContents(long record, Recipe recipe) {
+        List<String> ingredientNames = recipe.getIngredientNames();
+        List<Double> amounts = recipe.getIngredientAmounts();
+        long first = ingredientEntries;
+        for (int i = 0; i < ingredientNames.size(); i++) {
+            // Both sizes divide the chunk size, so entry k is at k * size in each column
+            ingredientIds.putInt(ingredientIds.allocate(Integer.BYTES), idOf(ingredientNames.get(i)));
+            ingredientAmounts.putDouble(ingredientAmounts.allocate(Double.BYTES), amounts.get(i));
+            ingredientEntries++;
+        }
+        records.putInt(record + SERVINGS, recipe.getServings());
+        records.putLong(record + FIRST_INGREDIENT, first);
+        records.putInt(record + INGREDIENT_COUNT, ingredientNames.size());
+    }
+
+    private List<Ingredient> readIngredients(int index) {
+        int count = getIngredientCount(index);
+        List<Ingredient> ingredients = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            ingredients.add(new Ingredient(getIngredientName(index, i), getIngredientAmount(index, i)));
+        }
+        return ingredients;
+    }
+
+    private int idOf(String ingredientName) {
+        Integer id = vocabularyIds.get(ingredientName);
+        if (id == null) {
+            id = vocabulary.size();
+            vocabulary.add(ingredientName);
+            vocabularyIds.put(ingredientName, id);
+        }
+        return id;
+    }
+}
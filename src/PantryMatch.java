@@ -0,0 +1,74 @@
+import java.util.List;
+
+/**
+ * A recipe found by {@link RecipeBook#matchPantry}, with how much of it the
+ * pantry covers.
+ *
+ * <p>Instances are immutable snapshots; they do not follow later changes to the
+ * recipe or the pantry.
+ */
+public class PantryMatch {
+    private final Recipe recipe;
+    private final int servings;
+    private final double coverage;
+    private final List<Ingredient> missing;
+
+    PantryMatch(Recipe recipe, int servings, double coverage, List<Ingredient> missing) {
+        this.recipe = recipe;
+        this.servings = servings;
+        this.coverage = coverage;
+        this.missing = missing;
+    }
+
+    /**
+     * Returns the matching recipe.
+     *
+     * @return the recipe
+     */
+    public Recipe getRecipe() {
+        return recipe;
+    }
+
+    /**
+     * Returns the servings the pantry was checked for.
+     *
+     * @return the servings
+     */
+    public int getServings() {
+        return servings;
+    }
+
+    /**
+     * Returns the fraction of the recipe's distinct ingredients the pantry holds
+     * enough of, from 0 (exclusive) to 1.
+     *
+     * @return the coverage
+     */
+    public double getCoverage() {
+        return coverage;
+    }
+
+    /**
+     * Returns the ingredients the pantry is short of, each with the missing
+     * amount at {@link #getServings} servings.
+     *
+     * @return an unmodifiable list, empty if the recipe can be cooked
+     */
+    public List<Ingredient> getMissingIngredients() {
+        return missing;
+    }
+
+    /**
+     * Returns whether the pantry holds enough of every ingredient.
+     *
+     * @return true if nothing is missing
+     */
+    public boolean isCookable() {
+        return missing.isEmpty();
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%s x%d (%.0f%%, missing %d)", recipe.getName(), servings, coverage * 100, missing.size());
+    }
+}
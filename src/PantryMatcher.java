@@ -0,0 +1,180 @@
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.PriorityQueue;
+
+/**
+ * Finds the recipes a pantry can cover, best covered first, for
+ * {@link RecipeBook#matchPantry}.
+ *
+ * <p>Only recipes that use a pantry ingredient are visited: for each pantry
+ * ingredient the matcher walks that ingredient's bitmap in {@link CatalogIndex}
+ * and counts, per recipe, how many of its distinct ingredients the pantry holds
+ * enough of. Amounts are compared with the serving factor applied to the
+ * required amount, so no recipe is copied or scaled. The counted recipes are
+ * heapified in linear time and popped one at a time, so taking the first few
+ * matches does not pay for ranking the rest.
+ *
+ * <p>Ingredients are identified by their index key: names that differ only in
+ * case or spacing are the same ingredient, and repeated ingredients in a recipe
+ * are summed. The book must not be modified while iterating.
+ */
+class PantryMatcher implements Iterator<PantryMatch> {
+    // Relative slack so amounts that scale to the pantry amount still count as enough
+    private static final double TOLERANCE = 1e-9;
+
+    private final Map<String, Double> available = new HashMap<>();
+    private final int servings;
+    private final PriorityQueue<Candidate> queue;
+
+    /**
+     * @param pantry available amount by ingredient name
+     * @param servings the servings to check every recipe for, or 0 for each
+     *        recipe's own servings
+     */
+    PantryMatcher(CatalogIndex index, Map<String, Double> pantry, int servings) {
+        this.servings = servings;
+        for (Map.Entry<String, Double> e : pantry.entrySet()) {
+            String name = e.getKey();
+            Double amount = e.getValue();
+            if (name == null || name.isBlank()) {
+                throw new IllegalArgumentException("Pantry ingredient names must not be null or blank");
+            }
+            if (amount == null || !(amount >= 0) || amount.isInfinite()) {
+                throw new IllegalArgumentException("Pantry amount for '" + name + "' must be a non-negative number");
+            }
+            available.merge(CatalogIndex.ingredientKey(name), amount, Double::sum);
+        }
+
+        Candidate[] byOrdinal = new Candidate[index.ordinalLimit()];
+        List<Candidate> touched = new ArrayList<>();
+        for (Map.Entry<String, Double> e : available.entrySet()) {
+            RoaringBitmap ords = index.ordinalsWithIngredient(e.getKey());
+            if (ords == null) {
+                continue;
+            }
+            String key = e.getKey();
+            double have = e.getValue();
+            ords.forEach(ord -> {
+                Candidate c = byOrdinal[ord];
+                if (c == null) {
+                    c = new Candidate(ord, index.recipeAt(ord));
+                    byOrdinal[ord] = c;
+                    touched.add(c);
+                }
+                if (required(c, key) * factor(c.recipe) <= have * (1 + TOLERANCE)) {
+                    c.covered++;
+                }
+            });
+        }
+
+        List<Candidate> candidates = new ArrayList<>(touched.size());
+        for (Candidate c : touched) {
+            if (c.covered > 0) {
+                candidates.add(c);
+            }
+        }
+        queue = new PriorityQueue<>(candidates);
+    }
+
+    @Override
+    public boolean hasNext() {
+        return !queue.isEmpty();
+    }
+
+    @Override
+    public PantryMatch next() {
+        Candidate c = queue.poll();
+        if (c == null) {
+            throw new NoSuchElementException();
+        }
+        double factor = factor(c.recipe);
+        List<Ingredient> ingredients = c.recipe.ingredientList();
+        List<Ingredient> missing = new ArrayList<>();
+        for (int i = 0; i < ingredients.size(); i++) {
+            String key = c.keys[i];
+            if (seenBefore(c.keys, i)) {
+                continue;
+            }
+            double needed = required(c, key) * factor;
+            double have = available.getOrDefault(key, 0.0);
+            if (needed > have * (1 + TOLERANCE)) {
+                missing.add(new Ingredient(ingredients.get(i).getName(), needed - have));
+            }
+        }
+        int matchServings = servings == 0 ? c.recipe.getServings() : servings;
+        return new PantryMatch(c.recipe, matchServings, (double) c.covered / c.distinct,
+                Collections.unmodifiableList(missing));
+    }
+
+    private double factor(Recipe r) {
+        return servings == 0 ? 1 : (double) servings / r.getServings();
+    }
+
+    private static double required(Candidate c, String key) {
+        List<Ingredient> ingredients = c.recipe.ingredientList();
+        double total = 0;
+        for (int i = 0; i < c.keys.length; i++) {
+            if (c.keys[i].equals(key)) {
+                total += ingredients.get(i).getAmount();
+            }
+        }
+        return total;
+    }
+
+    // Quadratic, but recipes have few ingredients and this allocates nothing
+    private static int distinctKeys(String[] keys) {
+        int count = 0;
+        for (int i = 0; i < keys.length; i++) {
+            if (!seenBefore(keys, i)) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    private static boolean seenBefore(String[] keys, int i) {
+        for (int j = 0; j < i; j++) {
+            if (keys[j].equals(keys[i])) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * A recipe the pantry covers part of, ordered by coverage (highest first)
+     * and then by ordinal, so equal coverage keeps insertion order. Its
+     * ingredient keys are computed once, in recipe order, when the recipe is
+     * first visited.
+     */
+    private static class Candidate implements Comparable<Candidate> {
+        final int ordinal;
+        final Recipe recipe;
+        final String[] keys;
+        final int distinct;
+        int covered;
+
+        Candidate(int ordinal, Recipe recipe) {
+            this.ordinal = ordinal;
+            this.recipe = recipe;
+            List<Ingredient> ingredients = recipe.ingredientList();
+            keys = new String[ingredients.size()];
+            for (int i = 0; i < keys.length; i++) {
+                keys[i] = CatalogIndex.ingredientKey(ingredients.get(i).getName());
+            }
+            distinct = distinctKeys(keys);
+        }
+
+        @Override
+        public int compareTo(Candidate other) {
+            // Compare covered/distinct fractions without division
+            int byCoverage = Long.compare((long) other.covered * distinct, (long) covered * other.distinct);
+            return byCoverage != 0 ? byCoverage : Integer.compare(ordinal, other.ordinal);
+        }
+    }
+}
@@ -0,0 +1,143 @@
+import java.util.Arrays;
+import java.util.BitSet;
+
+/**
+ * Sorted set of recipe ordinals for one indexed word, with per-entry frequencies.
+ *
+ * <p>Ordinals are usually added in increasing order, so adds are amortized
+ * appends. Storage is proportional to the number of entries rather than to the
+ * largest ordinal, which keeps rare words cheap in large catalogs.
+ *
+ * <p>Each entry carries a packed frequency: how often the word occurs in the
+ * recipe name (high 16 bits) and in its ingredient names (low 16 bits).
+ */
+class PostingList {
+    private int[] ords = new int[2];
+    private int[] freqs = new int[2];
+    private int size;
+
+    /**
+     * Packs name and ingredient occurrence counts into one int, saturating at 65535.
+     */
+    static int pack(int nameCount, int ingredientCount) {
+        return (Math.min(nameCount, 0xFFFF) << 16) | Math.min(ingredientCount, 0xFFFF);
+    }
+
+    static int nameCount(int packed) {
+        return packed >>> 16;
+    }
+
+    static int ingredientCount(int packed) {
+        return packed & 0xFFFF;
+    }
+
+    static int addPacked(int a, int b) {
+        return pack(nameCount(a) + nameCount(b), ingredientCount(a) + ingredientCount(b));
+    }
+
+    /**
+     * Adds {@code ord} with the given packed frequency, or updates its frequency if present.
+     */
+    void add(int ord, int freq) {
+        if (size > 0 && ords[size - 1] < ord) {
+            ensureCapacity(size + 1);
+            ords[size] = ord;
+            freqs[size] = freq;
+            size++;
+            return;
+        }
+        int pos = Arrays.binarySearch(ords, 0, size, ord);
+        if (pos >= 0) {
+            freqs[pos] = freq;
+            return;
+        }
+        pos = -pos - 1;
+        ensureCapacity(size + 1);
+        System.arraycopy(ords, pos, ords, pos + 1, size - pos);
+        System.arraycopy(freqs, pos, freqs, pos + 1, size - pos);
+        ords[pos] = ord;
+        freqs[pos] = freq;
+        size++;
+    }
+
+    /**
+     * Removes {@code ord} if present.
+     */
+    void remove(int ord) {
+        int pos = Arrays.binarySearch(ords, 0, size, ord);
+        if (pos < 0) {
+            return;
+        }
+        System.arraycopy(ords, pos + 1, ords, pos, size - pos - 1);
+        System.arraycopy(freqs, pos + 1, freqs, pos, size - pos - 1);
+        size--;
+    }
+
+    boolean contains(int ord) {
+        return Arrays.binarySearch(ords, 0, size, ord) >= 0;
+    }
+
+    int size() {
+        return size;
+    }
+
+    boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * Returns the i-th smallest ordinal.
+     */
+    int get(int i) {
+        return ords[i];
+    }
+
+    /**
+     * Returns the packed frequency of the i-th entry.
+     */
+    int freqAt(int i) {
+        return freqs[i];
+    }
+
+    /**
+     * Returns the index of the first entry with ordinal at least {@code target},
+     * searching from {@code from}; returns {@link #size()} if there is none.
+     */
+    int seek(int target, int from) {
+        if (from >= size || ords[from] >= target) {
+            return from;
+        }
+        // Gallop forward, then binary search the bracketed range
+        int step = 1;
+        int lo = from;
+        int hi = from + 1;
+        while (hi < size && ords[hi] < target) {
+            lo = hi;
+            step <<= 1;
+            hi = from + step;
+        }
+        int pos = Arrays.binarySearch(ords, lo + 1, Math.min(hi, size - 1) + 1, target);
+        return pos >= 0 ? pos : -pos - 1;
+    }
+
+    /**
+     * Sets the bit of every ordinal in this list.
+     */
+    void orInto(BitSet bits) {
+        for (int i = 0; i < size; i++) {
+            bits.set(ords[i]);
+        }
+    }
+
+    long estimateHeap() {
+        return HeapEstimator.shallow(PostingList.class) + 2 * HeapEstimator.array(ords.length, Integer.BYTES);
+    }
+
+    private void ensureCapacity(int needed) {
+        if (needed > ords.length) {
+            int capacity = Math.max(needed, ords.length * 2);
+            ords = Arrays.copyOf(ords, capacity);
+            freqs = Arrays.copyOf(freqs, capacity);
+        }
+    }
+}
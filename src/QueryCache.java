@@ -0,0 +1,168 @@
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Bounded LRU cache of search results for a RecipeBook.
+ *
+ * <p>Entries are keyed by search kind and normalized query. Each entry is
+ * stamped with the book's generation at the time it was computed; a lookup
+ * only hits when the stamp matches the current generation, so results
+ * computed before a mutation are never returned. Stale entries are not
+ * cleared eagerly; they age out through normal LRU eviction.
+ */
+public class QueryCache {
+    /** Default number of distinct queries retained. */
+    public static final int DEFAULT_CAPACITY = 256;
+
+    private final int capacity;
+    private final LinkedHashMap<String, Entry> entries;
+    private long hits;
+    private long misses;
+
+    /**
+     * Creates a cache holding at most {@code capacity} query results.
+     *
+     * @param capacity the maximum number of entries; must be positive
+     * @throws IllegalArgumentException if capacity is not positive
+     */
+    public QueryCache(int capacity) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("Cache capacity must be positive");
+        }
+        this.capacity = capacity;
+        this.entries = new LinkedHashMap<String, Entry>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+                return size() > QueryCache.this.capacity;
+            }
+        };
+    }
+
+    /**
+     * Returns the cached result for {@code key} if it was computed at {@code generation}.
+     *
+     * @param key the normalized cache key
+     * @param generation the current generation of the owning book
+     * @return a new list with the cached results, or null on a miss
+     */
+    List<Recipe> get(String key, long generation) {
+        Entry e = entries.get(key);
+        if (e == null || e.generation != generation) {
+            misses++;
+            return null;
+        }
+        hits++;
+        return new ArrayList<>(e.results);
+    }
+
+    /**
+     * Stores a result computed at {@code generation}. The list is copied.
+     */
+    void put(String key, long generation, List<Recipe> results) {
+        entries.put(key, new Entry(generation, new ArrayList<>(results)));
+    }
+
+    /**
+     * Removes all entries. Hit and miss counters are kept.
+     */
+    public void invalidateAll() {
+        entries.clear();
+    }
+
+    /**
+     * Returns the maximum number of entries this cache retains.
+     *
+     * @return the capacity
+     */
+    public int capacity() {
+        return capacity;
+    }
+
+    /**
+     * Returns the number of entries currently held, including stale ones.
+     *
+     * @return the number of entries
+     */
+    public int size() {
+        return entries.size();
+    }
+
+    /**
+     * Returns the number of lookups answered from the cache.
+     *
+     * @return the hit count
+     */
+    public long hitCount() {
+        return hits;
+    }
+
+    /**
+     * Returns the number of lookups that had to run the full search.
+     *
+     * @return the miss count
+     */
+    public long missCount() {
+        return misses;
+    }
+
+    /**
+     * Returns hits divided by total lookups, or 0 if there have been none.
+     *
+     * @return the hit rate in the range [0, 1]
+     */
+    public double hitRate() {
+        long total = hits + misses;
+        return total == 0 ? 0.0 : (double) hits / total;
+    }
+
+    /**
+     * Returns the fraction of lookups that missed, or 0 if there have been none.
+     *
+     * @return the miss rate in the range [0, 1]
+     */
+    public double missRate() {
+        long total = hits + misses;
+        return total == 0 ? 0.0 : (double) misses / total;
+    }
+
+    /**
+     * Resets the hit and miss counters to zero.
+     */
+    public void resetStats() {
+        hits = 0;
+        misses = 0;
+    }
+
+    /**
+     * Estimates the heap bytes of the cache: its keys and result lists, but not
+     * the recipes in them.
+     */
+    long estimateHeap(HeapEstimator est) {
+        long bytes = HeapEstimator.shallow(QueryCache.class) + HeapEstimator.linkedHashMap(entries.size());
+        for (Map.Entry<String, Entry> e : entries.entrySet()) {
+            bytes += est.string(e.getKey()) + HeapEstimator.shallow(Entry.class);
+            if (est.firstVisit(e.getValue().results)) {
+                bytes += HeapEstimator.arrayList(e.getValue().results.size());
+            }
+        }
+        return bytes;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("QueryCache[size=%d/%d, hits=%d, misses=%d, hitRate=%.2f]",
+                entries.size(), capacity, hits, misses, hitRate());
+    }
+
+    private static class Entry {
+        final long generation;
+        final List<Recipe> results;
+
+        Entry(long generation, List<Recipe> results) {
+            this.generation = generation;
+            this.results = results;
+        }
+    }
+}
@@ -0,0 +1,211 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Plans and executes multi-token searches against a {@link CatalogIndex}.
+ *
+ * <p>Each token is resolved to the indexed words containing it, and its
+ * selectivity is estimated as the summed document frequency of those words
+ * (an upper bound on the number of matching recipes). Tokens are evaluated
+ * rarest first: the first token's posting lists seed the candidate set, and
+ * each later token narrows it, either by intersecting posting lists or, when
+ * only a few candidates remain, by checking those recipes directly. Evaluation
+ * stops as soon as the candidate set is empty.
+ *
+ * <p>Results are identical to checking every recipe against every token, and
+ * are returned in insertion order.
+ */
+class QueryPlanner {
+    // Verify candidates directly once they are this many times rarer than the token
+    private static final int VERIFY_RATIO = 8;
+
+    private final CatalogIndex index;
+
+    QueryPlanner(CatalogIndex index) {
+        this.index = index;
+    }
+
+    /**
+     * Runs the query and returns matching recipes in insertion order.
+     *
+     * @param tokens the whitespace-free query tokens, in any case
+     * @param explain receives a description of the plan, or null
+     */
+    List<Recipe> execute(String[] tokens, StringBuilder explain) {
+        long start = System.nanoTime();
+
+        Set<String> distinct = new LinkedHashSet<>();
+        for (String t : tokens) {
+            distinct.add(t.toLowerCase());
+        }
+        List<Stage> stages = new ArrayList<>();
+        for (String t : distinct) {
+            List<String> words = index.wordsContaining(t);
+            long estimate = 0;
+            for (String w : words) {
+                estimate += index.documentFrequency(w);
+            }
+            stages.add(new Stage(t, words, Math.min(estimate, index.size())));
+        }
+        stages.sort((a, b) -> Long.compare(a.estimate, b.estimate));
+        long planned = System.nanoTime();
+
+        BitSet candidates = null;
+        for (Stage s : stages) {
+            long stageStart = System.nanoTime();
+            if (candidates == null) {
+                s.strategy = "postings";
+                candidates = index.union(s.words);
+            } else if ((long) candidates.cardinality() * VERIFY_RATIO < s.estimate) {
+                s.strategy = "verify";
+                for (int ord = candidates.nextSetBit(0); ord >= 0; ord = candidates.nextSetBit(ord + 1)) {
+                    if (!matchesToken(index.recipeAt(ord), s.token)) {
+                        candidates.clear(ord);
+                    }
+                }
+            } else {
+                s.strategy = "intersect";
+                candidates.and(index.union(s.words));
+            }
+            s.remaining = candidates.cardinality();
+            s.nanos = System.nanoTime() - stageStart;
+            s.executed = true;
+            if (candidates.isEmpty()) {
+                break;
+            }
+        }
+
+        List<Recipe> results = new ArrayList<>();
+        if (candidates != null) {
+            for (int ord = candidates.nextSetBit(0); ord >= 0; ord = candidates.nextSetBit(ord + 1)) {
+                results.add(index.recipeAt(ord));
+            }
+        }
+        long end = System.nanoTime();
+
+        if (explain != null) {
+            describe(explain, tokens, stages, results.size(), planned - start, end - start);
+        }
+        return results;
+    }
+
+    /**
+     * Runs a typo-tolerant query and returns matching recipes in insertion order.
+     *
+     * <p>Each token is resolved to the indexed words within {@code maxDistance}
+     * edits of it, and a recipe matches when every token resolves to at least one
+     * of its words. With {@code ingredientsOnly}, the matching word must come from
+     * an ingredient name rather than the recipe name.
+     */
+    List<Recipe> executeFuzzy(String[] tokens, int maxDistance, boolean ingredientsOnly) {
+        List<Set<String>> resolved = new ArrayList<>();
+        for (String t : new LinkedHashSet<>(Arrays.asList(tokens))) {
+            List<String> words = index.wordsNear(t.toLowerCase(), maxDistance);
+            if (words.isEmpty()) {
+                return new ArrayList<>();
+            }
+            resolved.add(new HashSet<>(words));
+        }
+        resolved.sort((a, b) -> Integer.compare(a.size(), b.size()));
+
+        BitSet candidates = null;
+        for (Set<String> words : resolved) {
+            BitSet bits = index.union(new ArrayList<>(words));
+            if (candidates == null) {
+                candidates = bits;
+            } else {
+                candidates.and(bits);
+            }
+            if (candidates.isEmpty()) {
+                return new ArrayList<>();
+            }
+        }
+
+        List<Recipe> results = new ArrayList<>();
+        for (int ord = candidates.nextSetBit(0); ord >= 0; ord = candidates.nextSetBit(ord + 1)) {
+            Recipe r = index.recipeAt(ord);
+            if (!ingredientsOnly || ingredientWordsCoverAll(r, resolved)) {
+                results.add(r);
+            }
+        }
+        return results;
+    }
+
+    private static boolean ingredientWordsCoverAll(Recipe r, List<Set<String>> resolved) {
+        Set<String> ingredientWords = new HashSet<>();
+        for (String iname : r.getIngredientNames()) {
+            for (String w : iname.toLowerCase().split("\\s+")) {
+                ingredientWords.add(w);
+            }
+        }
+        for (Set<String> words : resolved) {
+            boolean covered = false;
+            for (String w : words) {
+                if (ingredientWords.contains(w)) {
+                    covered = true;
+                    break;
+                }
+            }
+            if (!covered) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Checks one lowercase token against a recipe's name and ingredient names.
+     */
+    static boolean matchesToken(Recipe r, String lowerToken) {
+        if (r.getName().toLowerCase().contains(lowerToken)) {
+            return true;
+        }
+        for (String iname : r.getIngredientNames()) {
+            if (iname.toLowerCase().contains(lowerToken)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void describe(StringBuilder out, String[] tokens, List<Stage> stages,
+                          int resultCount, long planNanos, long totalNanos) {
+        out.append("Query plan for \"").append(String.join(" ", tokens)).append("\" (")
+                .append(index.size()).append(" recipes, ")
+                .append(index.vocabularySize()).append(" terms)\n");
+        out.append(String.format("  plan: %d token(s), estimated in %.3f ms%n",
+                stages.size(), planNanos / 1e6));
+        for (int i = 0; i < stages.size(); i++) {
+            Stage s = stages.get(i);
+            if (s.executed) {
+                out.append(String.format("  %d. \"%s\" est=%d terms=%d %s -> %d candidates (%.3f ms)%n",
+                        i + 1, s.token, s.estimate, s.words.size(), s.strategy, s.remaining, s.nanos / 1e6));
+            } else {
+                out.append(String.format("  %d. \"%s\" est=%d terms=%d skipped (no candidates left)%n",
+                        i + 1, s.token, s.estimate, s.words.size()));
+            }
+        }
+        out.append(String.format("  result: %d recipe(s) in %.3f ms%n", resultCount, totalNanos / 1e6));
+    }
+
+    private static class Stage {
+        final String token;
+        final List<String> words;
+        final long estimate;
+        String strategy;
+        int remaining;
+        long nanos;
+        boolean executed;
+
+        Stage(String token, List<String> words, long estimate) {
+            this.token = token;
+            this.words = words;
+            this.estimate = estimate;
+        }
+    }
+}
@@ -0,0 +1,188 @@
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.Set;
+
+/**
+ * BM25-ranked top-K retrieval over a {@link CatalogIndex}.
+ *
+ * <p>A recipe matches when at least one query token matches it (as a substring
+ * of one of its words, like {@link RecipeBook#search}). Each matching token
+ * contributes {@code idf * tf * (K1 + 1) / (tf + K1 * (1 - B + B * len / avgLen))},
+ * where occurrences in the recipe name count {@link #NAME_BOOST} times as much as
+ * occurrences in ingredient names.
+ *
+ * <p>Candidates are visited with the WAND algorithm: each token's contribution is
+ * bounded by {@code idf * (K1 + 1)}, and a recipe is only scored when the bounds of
+ * the tokens that could match it exceed the current K-th best score. Skipped
+ * recipes are never materialized, and the best K are kept in a bounded heap.
+ */
+class RankedSearch {
+    static final double K1 = 1.2;
+    static final double B = 0.75;
+    static final double NAME_BOOST = 2.0;
+
+    private final CatalogIndex index;
+    // Number of recipes fully scored by the last query, for diagnostics
+    int lastScored;
+
+    RankedSearch(CatalogIndex index) {
+        this.index = index;
+    }
+
+    /**
+     * Returns the {@code k} highest-scoring recipes, best first. Ties keep insertion order.
+     */
+    List<ScoredRecipe> topK(String[] tokens, int k) {
+        lastScored = 0;
+        int n = index.size();
+        double avgLength = index.averageLength();
+
+        Set<String> distinct = new LinkedHashSet<>();
+        for (String t : tokens) {
+            distinct.add(t.toLowerCase());
+        }
+        List<TermCursor> cursors = new ArrayList<>();
+        for (String t : distinct) {
+            List<PostingList> lists = new ArrayList<>();
+            long df = 0;
+            for (String w : index.wordsContaining(t)) {
+                PostingList list = index.postings(w);
+                lists.add(list);
+                df += list.size();
+            }
+            if (lists.isEmpty()) continue;
+            df = Math.min(df, n);
+            double idf = Math.log(1 + (n - df + 0.5) / (df + 0.5));
+            cursors.add(new TermCursor(lists.toArray(new PostingList[0]), idf));
+        }
+
+        // Min-heap of the best k so far; the root is the weakest hit
+        PriorityQueue<Hit> heap = new PriorityQueue<>(k + 1, (a, b) -> {
+            int cmp = Double.compare(a.score, b.score);
+            return cmp != 0 ? cmp : Integer.compare(b.ord, a.ord);
+        });
+
+        while (true) {
+            cursors.removeIf(c -> c.doc == Integer.MAX_VALUE);
+            if (cursors.isEmpty()) break;
+            cursors.sort((a, b) -> Integer.compare(a.doc, b.doc));
+
+            double threshold = heap.size() < k ? 0.0 : heap.peek().score;
+            double bound = 0;
+            int pivot = -1;
+            for (int i = 0; i < cursors.size(); i++) {
+                bound += cursors.get(i).upperBound;
+                if (bound > threshold) {
+                    pivot = i;
+                    break;
+                }
+            }
+            if (pivot < 0) break;
+
+            int pivotDoc = cursors.get(pivot).doc;
+            if (cursors.get(0).doc == pivotDoc) {
+                double score = 0;
+                double norm = K1 * (1 - B + B * index.lengthAt(pivotDoc) / avgLength);
+                for (TermCursor c : cursors) {
+                    if (c.doc != pivotDoc) break;
+                    double tf = c.weightedFrequency();
+                    score += c.idf * tf * (K1 + 1) / (tf + norm);
+                    c.next();
+                }
+                lastScored++;
+                if (heap.size() < k) {
+                    heap.add(new Hit(pivotDoc, score));
+                } else if (score > heap.peek().score) {
+                    heap.poll();
+                    heap.add(new Hit(pivotDoc, score));
+                }
+            } else {
+                for (int i = 0; i < pivot; i++) {
+                    cursors.get(i).advance(pivotDoc);
+                }
+            }
+        }
+
+        List<Hit> hits = new ArrayList<>(heap);
+        hits.sort((a, b) -> {
+            int cmp = Double.compare(b.score, a.score);
+            return cmp != 0 ? cmp : Integer.compare(a.ord, b.ord);
+        });
+        List<ScoredRecipe> results = new ArrayList<>(hits.size());
+        for (Hit h : hits) {
+            results.add(new ScoredRecipe(index.recipeAt(h.ord), h.score));
+        }
+        return results;
+    }
+
+    /**
+     * Iterates the union of the posting lists of every word a token matches.
+     */
+    private static class TermCursor {
+        final PostingList[] lists;
+        final int[] positions;
+        final double idf;
+        final double upperBound;
+        int doc;
+
+        TermCursor(PostingList[] lists, double idf) {
+            this.lists = lists;
+            this.positions = new int[lists.length];
+            this.idf = idf;
+            this.upperBound = idf * (K1 + 1);
+            updateDoc();
+        }
+
+        /**
+         * Returns the boosted occurrence count at the current document.
+         */
+        double weightedFrequency() {
+            double tf = 0;
+            for (int i = 0; i < lists.length; i++) {
+                if (positions[i] < lists[i].size() && lists[i].get(positions[i]) == doc) {
+                    int packed = lists[i].freqAt(positions[i]);
+                    tf += NAME_BOOST * PostingList.nameCount(packed) + PostingList.ingredientCount(packed);
+                }
+            }
+            return tf;
+        }
+
+        void next() {
+            for (int i = 0; i < lists.length; i++) {
+                if (positions[i] < lists[i].size() && lists[i].get(positions[i]) == doc) {
+                    positions[i]++;
+                }
+            }
+            updateDoc();
+        }
+
+        void advance(int target) {
+            for (int i = 0; i < lists.length; i++) {
+                positions[i] = lists[i].seek(target, positions[i]);
+            }
+            updateDoc();
+        }
+
+        private void updateDoc() {
+            int min = Integer.MAX_VALUE;
+            for (int i = 0; i < lists.length; i++) {
+                if (positions[i] < lists[i].size()) {
+                    min = Math.min(min, lists[i].get(positions[i]));
+                }
+            }
+            doc = min;
+        }
+    }
+
+    private static class Hit {
+        final int ord;
+        final double score;
+
+        Hit(int ord, double score) {
+            this.ord = ord;
+            this.score = score;
+        }
+    }
+}
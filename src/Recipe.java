@@ -1,12 +1,27 @@
 // src/Recipe.java
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
 import java.util.stream.Collectors;
 
 public class Recipe {
     private final String name;
     private int servings;
     private final List<Ingredient> ingredients = new ArrayList<>();
+    // Owners (e.g. RecipeBook) that must be told when this recipe changes
+    private final List<Consumer<RecipeEvent>> changeHooks = new ArrayList<>();
+    // Public listeners; created when the first one is added
+    private EventDispatcher listeners;
+    // UTF-8 JSON written by RecipeJsonStore, reused until this recipe changes
+    private byte[] encodedJson;
+    // Text returned by toString, reused until this recipe changes
+    private String rendered;
+    // Parses the ingredients of a lazily loaded recipe on first access; then null.
+    // Volatile so a thread that sees null also sees the loaded ingredients.
+    private volatile Supplier<List<Ingredient>> ingredientLoader;
 
     public Recipe(String name, int servings) {
         if (name == null || name.isBlank()) {
@@ -19,6 +34,23 @@ public class Recipe {
         this.servings = servings;
     }
 
+    /**
+     * Creates a recipe whose ingredients are supplied by {@code loader} the first
+     * time they are needed. Used by {@link MappedRecipeCatalog}.
+     */
+    static Recipe deferred(String name, int servings, Supplier<List<Ingredient>> loader) {
+        Recipe r = new Recipe(name, servings);
+        r.ingredientLoader = loader;
+        return r;
+    }
+
+    /**
+     * Returns whether this recipe's ingredients are in memory.
+     */
+    boolean isLoaded() {
+        return ingredientLoader == null;
+    }
+
     /**
      * Returns the name of this recipe.
      *
@@ -61,7 +93,9 @@ public class Recipe {
             System.err.println("Invalid ingredient: amount must be greater than 0. Ingredient not added.");
             return;
         }
-        ingredients.add(new Ingredient(ingredientName.trim(), amount));
+        Ingredient ingredient = new Ingredient(ingredientName.trim(), amount);
+        loadedIngredients().add(ingredient);
+        fireChanged(RecipeEvent.ingredientAdded(this, ingredient.getName(), amount));
     }
 
     /**
@@ -73,7 +107,7 @@ public class Recipe {
      * @return a new list of ingredient names in the order they were added
      */
     public List<String> getIngredientNames() {
-        return ingredients.stream()
+        return loadedIngredients().stream()
                 .map(Ingredient::getName)
                 .collect(Collectors.toList());
     }
@@ -88,7 +122,7 @@ public class Recipe {
      * @return a new list of ingredient amounts in the order they were added
      */
     public List<Double> getIngredientAmounts() {
-        return ingredients.stream()
+        return loadedIngredients().stream()
                 .map(Ingredient::getAmount)
                 .collect(Collectors.toList());
     }
@@ -99,7 +133,7 @@ public class Recipe {
      * @return the number of ingredients added to the recipe
      */
     public int totalIngredientCount() {
-        return ingredients.size();
+        return loadedIngredients().size();
     }
 
     /**
@@ -118,12 +152,14 @@ public class Recipe {
         }
         double factor = (double) newServings / this.servings;
         List<Ingredient> scaled = new ArrayList<>();
-        for (Ingredient i : ingredients) {
+        for (Ingredient i : loadedIngredients()) {
             scaled.add(i.scale(factor));
         }
         ingredients.clear();
         ingredients.addAll(scaled);
+        int previousServings = this.servings;
         this.servings = newServings;
+        fireChanged(RecipeEvent.scaled(this, previousServings, newServings));
     }
 
     /**
@@ -141,16 +177,19 @@ public class Recipe {
      * integer values display without decimals, non-integers display with up to
      * two decimals with trailing zeros trimmed.
      *
+     * <p>The string is cached until the recipe is scaled or gains an ingredient,
+     * so showing an unchanged recipe again costs nothing.
+     *
      * @return a formatted string representation of the recipe
      */
     @Override
     public String toString() {
-        StringBuilder sb = new StringBuilder();
-        sb.append(name).append(" (serves ").append(servings).append(")\n");
-        for (Ingredient i : ingredients) {
-            sb.append("- ").append(formatAmount(i.getAmount())).append(" ").append(i.getName()).append("\n");
+        if (rendered == null) {
+            StringBuilder sb = new StringBuilder(32 + 24 * ingredients.size());
+            render(sb);
+            rendered = sb.toString();
         }
-        return sb.toString();
+        return rendered;
     }
 
     /**
@@ -164,16 +203,192 @@ public class Recipe {
         return toString();
     }
 
-    private String formatAmount(double x) {
+    /**
+     * Registers a listener that is notified synchronously after this recipe is
+     * scaled or gains an ingredient.
+     *
+     * <p>Listeners of a {@link RecipeBook} also see the changes of its recipes;
+     * use this to follow a recipe on its own.
+     *
+     * @param listener the listener; must not be null
+     * @throws IllegalArgumentException if listener is null
+     */
+    public void addListener(RecipeListener listener) {
+        addListener(listener, null);
+    }
+
+    /**
+     * Registers a listener that is notified on {@code executor} after this recipe
+     * changes. Events are delivered in order, one call at a time.
+     *
+     * @param listener the listener; must not be null
+     * @param executor runs the notifications; null notifies synchronously
+     * @throws IllegalArgumentException if listener is null
+     */
+    public void addListener(RecipeListener listener, Executor executor) {
+        if (listeners == null) {
+            listeners = new EventDispatcher();
+        }
+        listeners.addListener(listener, executor);
+    }
+
+    /**
+     * Removes one registration of {@code listener}.
+     *
+     * @param listener the listener to remove
+     * @return true if it was registered
+     */
+    public boolean removeListener(RecipeListener listener) {
+        return listeners != null && listeners.removeListener(listener);
+    }
+
+    /**
+     * Registers a hook that is invoked after every mutation of this recipe,
+     * before any listener.
+     *
+     * <p>Used by collections that cache derived data. A hook registered twice
+     * is invoked twice and must be removed twice.
+     */
+    void addChangeHook(Consumer<RecipeEvent> hook) {
+        changeHooks.add(hook);
+    }
+
+    /**
+     * Appends the text of {@link #toString} to {@code sb}, without caching it when
+     * it is not cached already. Used to stream many recipes through one buffer.
+     */
+    void appendTo(StringBuilder sb) {
+        if (rendered != null) {
+            sb.append(rendered);
+        } else {
+            render(sb);
+        }
+    }
+
+    /**
+     * Returns the cached text of {@link #toString}, or null if it is not cached.
+     */
+    String getRenderedText() {
+        return rendered;
+    }
+
+    /**
+     * Returns this recipe's cached encoding, or null if it changed since it was
+     * last encoded.
+     */
+    byte[] getEncodedJson() {
+        return encodedJson;
+    }
+
+    /**
+     * Caches this recipe's encoding; the cache is dropped on the next change.
+     */
+    void setEncodedJson(byte[] encoded) {
+        this.encodedJson = encoded;
+    }
+
+    /**
+     * Removes one registration of a hook added with {@link #addChangeHook}.
+     */
+    void removeChangeHook(Consumer<RecipeEvent> hook) {
+        changeHooks.remove(hook);
+    }
+
+    /**
+     * Returns this recipe's ingredients without copying them.
+     */
+    List<Ingredient> ingredientList() {
+        return Collections.unmodifiableList(loadedIngredients());
+    }
+
+    /**
+     * Estimates the heap bytes held by this recipe: the object, its name, its
+     * lists and its ingredients. The cached encoding and text are left to the
+     * caller, and ingredients not loaded yet are not counted.
+     */
+    long estimateHeap(HeapEstimator est) {
+        long bytes = HeapEstimator.shallow(Recipe.class) + est.string(name)
+                + HeapEstimator.arrayList(ingredients.size()) + HeapEstimator.arrayList(changeHooks.size());
+        for (Ingredient i : ingredients) {
+            bytes += i.estimateHeap(est);
+        }
+        if (ingredientLoader != null) {
+            bytes += HeapEstimator.shallow(ingredientLoader.getClass());
+        }
+        if (listeners != null) {
+            bytes += HeapEstimator.shallow(EventDispatcher.class);
+        }
+        return bytes;
+    }
+
+    /**
+     * Returns the ingredients, loading them first if this recipe is deferred.
+     * Deferred recipes may be first used from several threads at once, so the
+     * load runs under this recipe's lock and only once.
+     */
+    private List<Ingredient> loadedIngredients() {
+        if (ingredientLoader != null) {
+            synchronized (this) {
+                Supplier<List<Ingredient>> loader = ingredientLoader;
+                if (loader != null) {
+                    ingredients.addAll(loader.get());
+                    ingredientLoader = null;
+                }
+            }
+        }
+        return ingredients;
+    }
+
+    private void fireChanged(RecipeEvent event) {
+        encodedJson = null;
+        rendered = null;
+        for (int i = 0; i < changeHooks.size(); i++) {
+            changeHooks.get(i).accept(event);
+        }
+        if (listeners != null) {
+            listeners.publish(event);
+        }
+    }
+
+    private void render(StringBuilder sb) {
+        sb.append(name).append(" (serves ").append(servings).append(")\n");
+        for (Ingredient i : loadedIngredients()) {
+            sb.append("- ");
+            appendAmount(sb, i.getAmount());
+            sb.append(' ').append(i.getName()).append('\n');
+        }
+    }
+
+    /**
+     * Appends {@code x} as an integer when it is one, else with up to two decimals
+     * and trailing zeros trimmed, like {@code String.format("%.2f")} would round it.
+     * Amounts that are whole hundredths, the common case, are written digit by
+     * digit; the rest go through String.format.
+     */
+    static void appendAmount(StringBuilder sb, double x) {
         double rounded = Math.rint(x);
         if (Math.abs(x - rounded) < 1e-9) {
-            return String.valueOf((long) rounded);
+            sb.append((long) rounded);
+            return;
+        }
+        double hundredths = Math.rint(x * 100);
+        if (x > 0 && x < 1e12 && Math.abs(x * 100 - hundredths) < 1e-7) {
+            long cents = (long) hundredths;
+            int fraction = (int) (cents % 100);
+            sb.append(cents / 100);
+            if (fraction != 0) {
+                sb.append('.').append(fraction / 10);
+                if (fraction % 10 != 0) {
+                    sb.append(fraction % 10);
+                }
+            }
+            return;
         }
         String s = String.format("%.2f", x);
         if (s.indexOf('.') >= 0) {
             s = s.replaceAll("0+$", "");
             s = s.replaceAll("\\.$", "");
         }
-        return s;
+        sb.append(s);
     }
 }
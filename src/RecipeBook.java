@@ -1,5 +1,14 @@
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
 
 /**
  * Manages a collection of recipes.
@@ -7,15 +16,67 @@ import java.util.List;
  * <p>RecipeBook maintains recipes in insertion order and provides operations
  * for adding, removing, and retrieving recipes. Recipes are uniquely identified
  * by their name (case-sensitive).
+ *
+ * <p>Results of {@link #search}, {@link #searchByName} and {@link #searchByIngredient}
+ * are memoized in a bounded {@link QueryCache}. A generation counter is advanced
+ * whenever the book or one of its recipes changes, which invalidates every
+ * cached result at once.
+ *
+ * <p>Multi-token {@link #search} is answered from an inverted word index by a
+ * {@link QueryPlanner} that evaluates the rarest token first; {@link #explain}
+ * shows the chosen plan.
+ *
+ * <p>The book also tracks which recipes were added or changed since it was last
+ * saved, so {@link RecipeJsonStore} only re-encodes those.
+ *
+ * <p>{@link RecipeListener}s registered with {@link #addListener} are told about
+ * every change to the book and its recipes, so views derived from the book can
+ * be updated incrementally. {@link #batch} groups changes into one delivery.
+ *
+ * <p>{@link #findSimilar} and {@link #findNearDuplicates} find recipes with
+ * nearly the same ingredients through a {@link MinHashIndex}, without comparing
+ * every pair.
+ *
+ * <p>{@link #estimateFootprint} reports how much heap the recipes, indexes and
+ * caches hold.
  */
 public class RecipeBook {
     private final List<Recipe> recipes;
+    private final QueryCache queryCache;
+    private final CatalogIndex index = new CatalogIndex();
+    private final QueryPlanner planner = new QueryPlanner(index);
+    private final RankedSearch ranker = new RankedSearch(index);
+    private final Consumer<RecipeEvent> recipeChangeHook = this::recipeChanged;
+    private final EventDispatcher listeners = new EventDispatcher();
+    private long generation;
+    // Generation at the last save, and recipes added or changed since then
+    private long savedGeneration;
+    private final Set<Recipe> dirtyRecipes = Collections.newSetFromMap(new IdentityHashMap<>());
+    // Latest generation written by an AsyncSaver. Its writer thread only sets this;
+    // the save state above is updated from it on the book's own thread.
+    private final AtomicLong writtenGeneration = new AtomicLong(-1);
+    // Recipes not yet in the index, in insertion order; see ensureIndexed
+    private final List<Recipe> unindexed = new ArrayList<>();
+    // Built on the first similarity query, then kept up to date
+    private MinHashIndex similarity;
 
     /**
      * Creates a new empty RecipeBook.
      */
     public RecipeBook() {
+        this(QueryCache.DEFAULT_CAPACITY);
+    }
+
+    /**
+     * Creates a new empty RecipeBook whose search cache holds at most
+     * {@code cacheCapacity} distinct queries.
+     *
+     * @param cacheCapacity the query cache capacity; must be positive
+     * @throws IllegalArgumentException if cacheCapacity is not positive
+     */
+    public RecipeBook(int cacheCapacity) {
         this.recipes = new ArrayList<>();
+        this.queryCache = new QueryCache(cacheCapacity);
     }
 
     /**
@@ -30,7 +91,21 @@ public class RecipeBook {
         if (recipe == null) {
             throw new IllegalArgumentException("Recipe must not be null");
         }
+        applyWrittenSave();
         recipes.add(recipe);
+        if (recipe.isLoaded() && unindexed.isEmpty()) {
+            index.add(recipe);
+        } else {
+            // Indexing would parse a lazy recipe; defer it to the first indexed query
+            unindexed.add(recipe);
+        }
+        recipe.addChangeHook(recipeChangeHook);
+        dirtyRecipes.add(recipe);
+        if (similarity != null) {
+            similarity.add(recipe);
+        }
+        generation++;
+        listeners.publish(RecipeEvent.added(recipe));
     }
 
     /**
@@ -45,7 +120,32 @@ public class RecipeBook {
         if (recipeName == null) {
             return false;
         }
-        return recipes.removeIf(r -> r.getName().equals(recipeName));
+        applyWrittenSave();
+        List<Recipe> removed = new ArrayList<>();
+        Iterator<Recipe> it = recipes.iterator();
+        while (it.hasNext()) {
+            Recipe r = it.next();
+            if (r.getName().equals(recipeName)) {
+                it.remove();
+                if (!unindexed.remove(r)) {
+                    index.removeAll(r);
+                }
+                r.removeChangeHook(recipeChangeHook);
+                dirtyRecipes.remove(r);
+                if (similarity != null) {
+                    similarity.remove(r);
+                }
+                removed.add(r);
+            }
+        }
+        if (removed.isEmpty()) {
+            return false;
+        }
+        generation++;
+        for (Recipe r : removed) {
+            listeners.publish(RecipeEvent.removed(r));
+        }
+        return true;
     }
 
     /**
@@ -73,7 +173,178 @@ public class RecipeBook {
      * Removes all recipes from this recipe book.
      */
     public void clear() {
+        applyWrittenSave();
+        for (Recipe r : recipes) {
+            r.removeChangeHook(recipeChangeHook);
+        }
         recipes.clear();
+        index.clear();
+        unindexed.clear();
+        dirtyRecipes.clear();
+        similarity = null;
+        generation++;
+        listeners.publish(RecipeEvent.cleared());
+    }
+
+    /**
+     * Registers a listener that is notified synchronously, before the change
+     * method returns, whenever a recipe is added or removed, the book is cleared,
+     * or a contained recipe is scaled or gains an ingredient.
+     *
+     * @param listener the listener; must not be null
+     * @throws IllegalArgumentException if listener is null
+     */
+    public void addListener(RecipeListener listener) {
+        listeners.addListener(listener, null);
+    }
+
+    /**
+     * Registers a listener that is notified on {@code executor} instead of on the
+     * thread making the change. Events are still delivered in order, one call at a
+     * time, so the listener needs no locking of its own.
+     *
+     * @param listener the listener; must not be null
+     * @param executor runs the notifications; null notifies synchronously
+     * @throws IllegalArgumentException if listener is null
+     */
+    public void addListener(RecipeListener listener, Executor executor) {
+        listeners.addListener(listener, executor);
+    }
+
+    /**
+     * Removes one registration of {@code listener}.
+     *
+     * @param listener the listener to remove
+     * @return true if it was registered
+     */
+    public boolean removeListener(RecipeListener listener) {
+        return listeners.removeListener(listener);
+    }
+
+    /**
+     * Runs {@code changes} and delivers the events they cause to each listener as
+     * one list afterwards. Batches may be nested; events are delivered when the
+     * outermost batch ends, even if {@code changes} throws.
+     *
+     * @param changes the changes to make; must not be null
+     * @throws IllegalArgumentException if changes is null
+     */
+    public void batch(Runnable changes) {
+        if (changes == null) {
+            throw new IllegalArgumentException("Changes must not be null");
+        }
+        listeners.beginBatch();
+        try {
+            changes.run();
+        } finally {
+            listeners.endBatch();
+        }
+    }
+
+    /**
+     * Returns the current generation of this book.
+     *
+     * <p>The value changes on every add, remove and clear, and whenever a
+     * contained recipe is scaled or gains an ingredient. Equal generations
+     * imply identical search results.
+     *
+     * @return the current generation
+     */
+    public long getGeneration() {
+        return generation;
+    }
+
+    /**
+     * Returns whether this book changed since it was last saved or loaded.
+     *
+     * <p>Removals count as changes even though they leave no dirty recipe.
+     *
+     * @return true if there are unsaved changes
+     */
+    public boolean hasUnsavedChanges() {
+        applyWrittenSave();
+        return generation != savedGeneration;
+    }
+
+    /**
+     * Returns how many recipes were added or changed since the last save or load.
+     *
+     * @return the number of dirty recipes
+     */
+    public int getDirtyRecipeCount() {
+        applyWrittenSave();
+        return dirtyRecipes.size();
+    }
+
+    /**
+     * Marks the current contents as saved. Called by RecipeJsonStore.
+     */
+    void markSaved() {
+        savedGeneration = generation;
+        dirtyRecipes.clear();
+    }
+
+    /**
+     * Records that a snapshot taken at {@code snapshotGeneration} is on disk.
+     * Called by AsyncSaver's writer thread, which touches nothing else in the
+     * book. The book counts as saved the next time it checks, if it has not
+     * changed since the snapshot.
+     */
+    void saveWritten(long snapshotGeneration) {
+        writtenGeneration.accumulateAndGet(snapshotGeneration, Math::max);
+    }
+
+    /**
+     * Marks the book saved if a background write of its current generation has
+     * finished. Called before the save state is read or changed.
+     */
+    private void applyWrittenSave() {
+        if (writtenGeneration.get() == generation && savedGeneration != generation) {
+            markSaved();
+        }
+    }
+
+    /**
+     * Returns the search result cache, for inspecting hit and miss rates.
+     *
+     * @return the query cache used by this book
+     */
+    public QueryCache getQueryCache() {
+        return queryCache;
+    }
+
+    /**
+     * Estimates the heap bytes held by this book, by subsystem, from the object
+     * layout of the running JVM. Shared strings are charged once, to the first
+     * subsystem that reaches them, in the order recipes, indexes, caches.
+     * Indexes are measured as they are; nothing is built for the estimate.
+     *
+     * @return a snapshot of the estimated footprint
+     */
+    public MemoryFootprint estimateFootprint() {
+        applyWrittenSave();
+        HeapEstimator est = new HeapEstimator();
+        Map<String, Long> subsystems = new LinkedHashMap<>();
+        long storage = HeapEstimator.shallow(RecipeBook.class) + HeapEstimator.arrayList(recipes.size())
+                + HeapEstimator.arrayList(unindexed.size());
+        for (Recipe r : recipes) {
+            storage += r.estimateHeap(est);
+        }
+        subsystems.put(MemoryFootprint.RECIPES, storage);
+        subsystems.put(MemoryFootprint.SEARCH_INDEX, index.estimateHeap(est));
+        subsystems.put(MemoryFootprint.SIMILARITY_INDEX, similarity == null ? 0L : similarity.estimateHeap(est));
+        subsystems.put(MemoryFootprint.QUERY_CACHE, queryCache.estimateHeap(est));
+        long saveState = HeapEstimator.identityHashMap(dirtyRecipes.size());
+        for (Recipe r : recipes) {
+            saveState += est.bytes(r.getEncodedJson());
+        }
+        subsystems.put(MemoryFootprint.SAVE_STATE, saveState);
+        long renderedText = 0;
+        for (Recipe r : recipes) {
+            renderedText += est.string(r.getRenderedText());
+        }
+        subsystems.put(MemoryFootprint.RENDERED_TEXT, renderedText);
+        return new MemoryFootprint(recipes.size(), subsystems);
     }
 
     /**
@@ -95,6 +366,11 @@ public class RecipeBook {
         }
         
         String lowerQuery = trimmed.toLowerCase();
+        String key = "name:" + lowerQuery;
+        List<Recipe> cached = queryCache.get(key, generation);
+        if (cached != null) {
+            return cached;
+        }
         List<Recipe> results = new ArrayList<>();
         
         for (Recipe r : recipes) {
@@ -103,6 +379,7 @@ public class RecipeBook {
             }
         }
         
+        queryCache.put(key, generation, results);
         return results;
     }
 
@@ -126,6 +403,11 @@ public class RecipeBook {
         }
         
         String lowerQuery = trimmed.toLowerCase();
+        String key = "ingredient:" + lowerQuery;
+        List<Recipe> cached = queryCache.get(key, generation);
+        if (cached != null) {
+            return cached;
+        }
         List<Recipe> results = new ArrayList<>();
         
         for (Recipe r : recipes) {
@@ -137,6 +419,7 @@ public class RecipeBook {
             }
         }
         
+        queryCache.put(key, generation, results);
         return results;
     }
 
@@ -165,37 +448,311 @@ public class RecipeBook {
             return new ArrayList<>();
         }
         
+        // Tokens are matched independently, so runs of whitespace collapse
+        String key = "all:" + String.join(" ", tokens).toLowerCase();
+        List<Recipe> cached = queryCache.get(key, generation);
+        if (cached != null) {
+            return cached;
+        }
+        ensureIndexed();
+        List<Recipe> results = planner.execute(tokens, null);
+        queryCache.put(key, generation, results);
+        return results;
+    }
+
+    /**
+     * Returns the recipes matching a boolean ingredient query, such as
+     * {@code IngredientQuery.parse("chicken AND garlic AND NOT peanut")}.
+     *
+     * <p>Each distinct ingredient name has a compressed bitmap of the recipes
+     * using it, kept current as recipes are added, changed and removed. A query
+     * is answered by combining those bitmaps with word-wide AND, OR and AND-NOT
+     * operations, so its cost depends on how many recipes match, not on how
+     * many are scanned.
+     *
+     * @param query the query; must not be null
+     * @return a new list of matching recipes, in insertion order
+     * @throws IllegalArgumentException if query is null
+     */
+    public List<Recipe> searchByIngredients(IngredientQuery query) {
+        if (query == null) {
+            throw new IllegalArgumentException("Query must not be null");
+        }
+        String key = "ingredients:" + query;
+        List<Recipe> cached = queryCache.get(key, generation);
+        if (cached != null) {
+            return cached;
+        }
+        ensureIndexed();
         List<Recipe> results = new ArrayList<>();
-        for (Recipe r : recipes) {
-            if (matchesAllTokens(r, tokens)) {
-                results.add(r);
-            }
+        query.evaluate(index).forEach(ord -> results.add(index.recipeAt(ord)));
+        queryCache.put(key, generation, results);
+        return results;
+    }
+
+    /**
+     * Returns the recipes that use at least one pantry ingredient, best covered
+     * first, each at its own servings. Same as {@code matchPantry(pantry, servings)}
+     * without scaling.
+     *
+     * @param pantry available amount by ingredient name; must not be null
+     * @return an iterator over the matches
+     * @throws IllegalArgumentException if pantry is null or has a blank name or
+     *         a negative or missing amount
+     */
+    public Iterator<PantryMatch> matchPantry(Map<String, Double> pantry) {
+        return matchPantry(pantry, 0);
+    }
+
+    /**
+     * Returns the recipes that use at least one pantry ingredient, ranked by the
+     * fraction of their ingredients the pantry holds enough of when cooked for
+     * {@code servings}. Recipes that can be cooked outright come first; equal
+     * coverage keeps insertion order.
+     *
+     * <p>Pantry names are matched like ingredient names in the index, ignoring
+     * case and spacing; amounts are in the recipes' units. Only recipes sharing
+     * an ingredient with the pantry are examined, and matches are ranked as the
+     * iterator is advanced, so stopping after the first few is cheap. The
+     * recipes are not scaled. The book must not be modified while iterating.
+     *
+     * @param pantry available amount by ingredient name; must not be null
+     * @param servings the servings to cook; positive, or 0 for each recipe's own
+     * @return an iterator over the matches
+     * @throws IllegalArgumentException if pantry is null or has a blank name or
+     *         a negative or missing amount, or servings is negative
+     */
+    public Iterator<PantryMatch> matchPantry(Map<String, Double> pantry, int servings) {
+        if (pantry == null) {
+            throw new IllegalArgumentException("Pantry must not be null");
+        }
+        if (servings < 0) {
+            throw new IllegalArgumentException("servings must not be negative");
+        }
+        ensureIndexed();
+        return new PantryMatcher(index, pantry, servings);
+    }
+
+    /**
+     * Returns the recipes whose ingredients are similar to {@code recipe}'s, most
+     * similar first; equal similarity keeps insertion order.
+     *
+     * <p>Similarity is the Jaccard similarity of the two sets of ingredient
+     * names, ignoring case, spacing and amounts: shared names divided by
+     * distinct names overall. Candidates are found through MinHash signatures
+     * bucketed by locality-sensitive hashing, so a lookup does not scan the book.
+     * Each candidate's exact similarity is then checked against the threshold.
+     * The bucketing reliably finds pairs from about 0.6; at lower thresholds some
+     * qualifying recipes may be missed.
+     *
+     * <p>The signatures are computed on the first similarity query and kept up to
+     * date as the book changes.
+     *
+     * @param recipe the recipe to compare with; need not be in this book; must not be null
+     * @param threshold the minimum similarity, greater than 0 and at most 1
+     * @return a new list of scored recipes, not including {@code recipe} itself
+     * @throws IllegalArgumentException if recipe is null or threshold is out of range
+     */
+    public List<ScoredRecipe> findSimilar(Recipe recipe, double threshold) {
+        if (recipe == null) {
+            throw new IllegalArgumentException("Recipe must not be null");
         }
+        return similarityIndex(threshold).similarTo(recipe, threshold);
+    }
+
+    /**
+     * Groups near-duplicate recipes: recipes are in one group when a chain of
+     * pairs with ingredient similarity of at least {@code threshold} links them,
+     * as measured by {@link #findSimilar}. Recipes without a near-duplicate are
+     * left out.
+     *
+     * <p>Only pairs sharing a MinHash bucket are compared, so the cost grows with
+     * the number of recipes and near-duplicates, not with the number of pairs.
+     *
+     * @param threshold the minimum similarity, greater than 0 and at most 1
+     * @return a new list of groups of two or more recipes, each in insertion
+     *         order, ordered by their first recipe
+     * @throws IllegalArgumentException if threshold is out of range
+     */
+    public List<List<Recipe>> findNearDuplicates(double threshold) {
+        return similarityIndex(threshold).clusters(threshold);
+    }
+
+    /**
+     * Returns the {@code k} most relevant recipes for a query, best first.
+     *
+     * <p>Unlike {@link #search}, a recipe only needs to match one token. Matches
+     * are scored with BM25 term weights over recipe and ingredient names, with
+     * name matches boosted, so rare tokens and recipes named after the query rank
+     * highest. Equal scores keep insertion order. Only the top {@code k} are
+     * materialized; recipes that cannot reach them are skipped without scoring.
+     *
+     * @param query the search string (may contain multiple space-separated tokens)
+     * @param k the maximum number of results; must be positive
+     * @return a new list of at most k scored recipes, highest score first
+     * @throws IllegalArgumentException if k is not positive
+     */
+    public List<ScoredRecipe> searchRanked(String query, int k) {
+        if (k <= 0) {
+            throw new IllegalArgumentException("k must be positive");
+        }
+        if (query == null || query.trim().isEmpty()) {
+            return new ArrayList<>();
+        }
+        ensureIndexed();
+        return ranker.topK(query.trim().split("\\s+"), k);
+    }
+
+    /**
+     * Returns recipe names that start with {@code prefix}, for typeahead.
+     *
+     * <p>Matching is case-insensitive. Names held by several recipes come first,
+     * then names in alphabetical order. The completion index is updated as
+     * recipes are added and removed, so lookups cost microseconds regardless of
+     * catalog size.
+     *
+     * @param prefix the typed prefix; null is treated as empty
+     * @param limit the maximum number of completions
+     * @return a new list of at most limit distinct recipe names
+     */
+    public List<String> completeRecipeName(String prefix, int limit) {
+        ensureIndexed();
+        return index.completeRecipeName(prefix == null ? "" : prefix.trim(), limit);
+    }
+
+    /**
+     * Returns ingredient names that start with {@code prefix}, for typeahead.
+     *
+     * <p>Matching is case-insensitive. Ingredients used by more recipes come first,
+     * then names in alphabetical order.
+     *
+     * @param prefix the typed prefix; null is treated as empty
+     * @param limit the maximum number of completions
+     * @return a new list of at most limit distinct ingredient names
+     */
+    public List<String> completeIngredientName(String prefix, int limit) {
+        ensureIndexed();
+        return index.completeIngredientName(prefix == null ? "" : prefix.trim(), limit);
+    }
+
+    /**
+     * Searches for recipes whose name or ingredient words approximately match every
+     * token of the query.
+     *
+     * <p>Each token matches a word (a whitespace-separated piece of a recipe or
+     * ingredient name, compared case-insensitively) that is within
+     * {@code maxDistance} insertions, deletions or substitutions of it, so
+     * "spagheti" finds "spaghetti (g)". Unlike {@link #search}, tokens are compared
+     * to whole words rather than substrings. Lookups walk a trie over the
+     * book's vocabulary, which is maintained as recipes are added.
+     *
+     * @param query the search string (may contain multiple space-separated tokens)
+     * @param maxDistance the largest edit distance accepted per token; typically 1 or 2
+     * @return a new list of matching recipes, in insertion order
+     * @throws IllegalArgumentException if maxDistance is negative
+     */
+    public List<Recipe> searchFuzzy(String query, int maxDistance) {
+        return fuzzy(query, maxDistance, false);
+    }
+
+    /**
+     * Searches for recipes with ingredient words approximately matching every token
+     * of the query.
+     *
+     * <p>Same matching rules as {@link #searchFuzzy}, restricted to ingredient names,
+     * so "galric" finds recipes containing "garlic cloves".
+     *
+     * @param query the search string
+     * @param maxDistance the largest edit distance accepted per token; typically 1 or 2
+     * @return a new list of matching recipes, in insertion order
+     * @throws IllegalArgumentException if maxDistance is negative
+     */
+    public List<Recipe> searchByIngredientFuzzy(String query, int maxDistance) {
+        return fuzzy(query, maxDistance, true);
+    }
+
+    private List<Recipe> fuzzy(String query, int maxDistance, boolean ingredientsOnly) {
+        if (maxDistance < 0) {
+            throw new IllegalArgumentException("maxDistance must not be negative");
+        }
+        if (query == null || query.trim().isEmpty()) {
+            return new ArrayList<>();
+        }
+        String[] tokens = query.trim().toLowerCase().split("\\s+");
+        String key = (ingredientsOnly ? "fuzzy-ingredient:" : "fuzzy:") + maxDistance + ":"
+                + String.join(" ", tokens);
+        List<Recipe> cached = queryCache.get(key, generation);
+        if (cached != null) {
+            return cached;
+        }
+        ensureIndexed();
+        List<Recipe> results = planner.executeFuzzy(tokens, maxDistance, ingredientsOnly);
+        queryCache.put(key, generation, results);
         return results;
     }
 
     /**
-     * Checks if a recipe matches all search tokens (in name or ingredients).
+     * Describes how {@link #search} evaluates {@code query}.
+     *
+     * <p>The query is executed (bypassing the result cache) and the output lists
+     * each token in evaluation order with its estimated selectivity, the number
+     * of indexed terms it matched, the strategy used, the candidates remaining
+     * afterwards and the time spent in that stage.
+     *
+     * @param query the search string
+     * @return a multi-line description of the query plan
      */
-    private boolean matchesAllTokens(Recipe r, String[] tokens) {
-        String recipeName = r.getName().toLowerCase();
-            List<String> ingredientNames = r.getIngredientNames();
-            
-            for (String token : tokens) {
-                String lowerToken = token.toLowerCase();
-                boolean tokenMatches = recipeName.contains(lowerToken);
-                if (!tokenMatches) {
-                    for (String iname : ingredientNames) {
-                        if (iname.toLowerCase().contains(lowerToken)) {
-                            tokenMatches = true;
-                            break;
-                        }
-                    }
-                }
-                if (!tokenMatches) {
-                    return false;
-                }
+    public String explain(String query) {
+        String trimmed = query == null ? "" : query.trim();
+        if (trimmed.isEmpty()) {
+            return "Empty query: no plan\n";
+        }
+        ensureIndexed();
+        StringBuilder sb = new StringBuilder();
+        planner.execute(trimmed.split("\\s+"), sb);
+        return sb.toString();
+    }
+
+    /**
+     * Indexes recipes whose indexing was deferred because they were added lazily
+     * (see {@link MappedRecipeCatalog}). This parses every such recipe, so only
+     * index-backed queries call it; listing and name lookups never do.
+     */
+    private void ensureIndexed() {
+        if (unindexed.isEmpty()) {
+            return;
+        }
+        for (Recipe r : unindexed) {
+            index.add(r);
+        }
+        unindexed.clear();
+    }
+
+    private MinHashIndex similarityIndex(double threshold) {
+        if (!(threshold > 0 && threshold <= 1)) {
+            throw new IllegalArgumentException("threshold must be greater than 0 and at most 1");
+        }
+        if (similarity == null) {
+            similarity = new MinHashIndex();
+            for (Recipe r : recipes) {
+                similarity.add(r);
             }
-            return true;
+        }
+        return similarity;
+    }
+
+    /**
+     * Called after a contained recipe is scaled or gains an ingredient.
+     */
+    private void recipeChanged(RecipeEvent event) {
+        Recipe r = event.getRecipe();
+        applyWrittenSave();
+        index.refresh(r);
+        dirtyRecipes.add(r);
+        if (similarity != null && event.getType() == RecipeEvent.Type.INGREDIENT_ADDED) {
+            similarity.add(r);
+        }
+        generation++;
+        listeners.publish(event);
     }
 }
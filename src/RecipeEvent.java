@@ -0,0 +1,132 @@
+/**
+ * A change to a {@link RecipeBook} or {@link Recipe}, delivered to a {@link RecipeListener}.
+ *
+ * <p>Instances are immutable. Besides the recipe itself, an event carries the
+ * values of the change as they were when it happened. An asynchronous
+ * subscriber can therefore apply events in order even if the recipe changed
+ * again in the meantime.
+ */
+public class RecipeEvent {
+    /**
+     * The kind of change.
+     */
+    public enum Type {
+        /** A recipe was added to a book. */
+        RECIPE_ADDED,
+        /** A recipe was removed from a book. */
+        RECIPE_REMOVED,
+        /** Every recipe was removed from a book at once; {@link #getRecipe} is null. */
+        CLEARED,
+        /** A recipe was scaled to a new number of servings. */
+        SCALED,
+        /** An ingredient was added to a recipe. */
+        INGREDIENT_ADDED
+    }
+
+    private final Type type;
+    private final Recipe recipe;
+    private final int previousServings;
+    private final int servings;
+    private final String ingredientName;
+    private final double amount;
+
+    private RecipeEvent(Type type, Recipe recipe, int previousServings, int servings,
+                        String ingredientName, double amount) {
+        this.type = type;
+        this.recipe = recipe;
+        this.previousServings = previousServings;
+        this.servings = servings;
+        this.ingredientName = ingredientName;
+        this.amount = amount;
+    }
+
+    static RecipeEvent added(Recipe recipe) {
+        return new RecipeEvent(Type.RECIPE_ADDED, recipe, 0, 0, null, 0);
+    }
+
+    static RecipeEvent removed(Recipe recipe) {
+        return new RecipeEvent(Type.RECIPE_REMOVED, recipe, 0, 0, null, 0);
+    }
+
+    static RecipeEvent cleared() {
+        return new RecipeEvent(Type.CLEARED, null, 0, 0, null, 0);
+    }
+
+    static RecipeEvent scaled(Recipe recipe, int previousServings, int servings) {
+        return new RecipeEvent(Type.SCALED, recipe, previousServings, servings, null, 0);
+    }
+
+    static RecipeEvent ingredientAdded(Recipe recipe, String ingredientName, double amount) {
+        return new RecipeEvent(Type.INGREDIENT_ADDED, recipe, 0, 0, ingredientName, amount);
+    }
+
+    /**
+     * Returns the kind of change.
+     *
+     * @return the event type
+     */
+    public Type getType() {
+        return type;
+    }
+
+    /**
+     * Returns the recipe that was added, removed or changed.
+     *
+     * @return the recipe, or null for {@link Type#CLEARED}
+     */
+    public Recipe getRecipe() {
+        return recipe;
+    }
+
+    /**
+     * Returns the servings before a {@link Type#SCALED} change.
+     *
+     * @return the previous servings, or 0 for other event types
+     */
+    public int getPreviousServings() {
+        return previousServings;
+    }
+
+    /**
+     * Returns the servings after a {@link Type#SCALED} change. Amounts were
+     * multiplied by {@code getServings() / (double) getPreviousServings()}.
+     *
+     * @return the new servings, or 0 for other event types
+     */
+    public int getServings() {
+        return servings;
+    }
+
+    /**
+     * Returns the (trimmed) name of the ingredient added by an
+     * {@link Type#INGREDIENT_ADDED} change.
+     *
+     * @return the ingredient name, or null for other event types
+     */
+    public String getIngredientName() {
+        return ingredientName;
+    }
+
+    /**
+     * Returns the amount of the ingredient added by an {@link Type#INGREDIENT_ADDED} change.
+     *
+     * @return the amount, or 0 for other event types
+     */
+    public double getAmount() {
+        return amount;
+    }
+
+    @Override
+    public String toString() {
+        switch (type) {
+            case CLEARED:
+                return "CLEARED";
+            case SCALED:
+                return "SCALED " + recipe.getName() + " " + previousServings + " -> " + servings;
+            case INGREDIENT_ADDED:
+                return "INGREDIENT_ADDED " + recipe.getName() + ": " + amount + " " + ingredientName;
+            default:
+                return type + " " + recipe.getName();
+        }
+    }
+}
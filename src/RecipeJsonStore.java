@@ -1,10 +1,16 @@
+import java.io.BufferedOutputStream;
 import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.CharacterCodingException;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
 
 /**
  * Persistence layer for RecipeBook: saves and loads recipe collections as JSON.
@@ -20,6 +26,9 @@ public class RecipeJsonStore {
      * <p>Preserves recipe and ingredient order. Amounts are stored with full
      * numeric precision (no display formatting).
      *
+     * <p>Each recipe's encoding is cached on the recipe until it next changes, so
+     * saving a book again only re-encodes the recipes added or changed since.
+     *
      * @param book the recipe book to save; must not be null
      * @param filePath the path to write; must not be null
      * @throws IOException if the file cannot be written
@@ -32,8 +41,11 @@ public class RecipeJsonStore {
             throw new IllegalArgumentException("File path must not be null or blank");
         }
         Path path = Paths.get(filePath);
-        String json = toJson(book);
-        Files.writeString(path, json, StandardCharsets.UTF_8);
+        List<byte[]> segments = encodeRecipes(book);
+        try (OutputStream out = new BufferedOutputStream(Files.newOutputStream(path), WRITE_BUFFER_SIZE)) {
+            writeRecipes(segments, out);
+        }
+        book.markSaved();
     }
 
     /**
@@ -41,6 +53,7 @@ public class RecipeJsonStore {
      *
      * <p>Validates structure and data per DATA_MODEL.md. On any validation
      * failure, throws with a descriptive message (all-or-nothing; no partial load).
+     * Files written by {@link #saveCompressed} are detected and read as well.
      *
      * @param filePath the path to read; must not be null
      * @return a new RecipeBook with the loaded recipes
@@ -54,25 +67,182 @@ public class RecipeJsonStore {
         if (!Files.exists(path)) {
             throw new IOException("File not found: " + filePath);
         }
-        String json = Files.readString(path, StandardCharsets.UTF_8);
-        return fromJson(json);
+        RecipeBook book;
+        if (CompressedRecipeFile.isCompressed(path)) {
+            book = new RecipeBook();
+            for (Recipe r : CompressedRecipeFile.read(path)) {
+                book.addRecipe(r);
+            }
+        } else {
+            book = fromJson(ByteBuffer.wrap(Files.readAllBytes(path)), null);
+        }
+        book.markSaved();
+        return book;
+    }
+
+    /**
+     * Saves a RecipeBook in the block-compressed format.
+     *
+     * <p>Recipes are grouped into blocks of about 256 KB of JSON, and each block is
+     * Deflate-compressed on its own, in parallel. A block index follows the file
+     * header. {@link #load} recognizes the format and inflates the blocks in
+     * parallel. {@link #loadLazy} only reads plain JSON files.
+     *
+     * @param book the recipe book to save; must not be null
+     * @param filePath the path to write; must not be null
+     * @throws IOException if the file cannot be written
+     */
+    public static void saveCompressed(RecipeBook book, String filePath) throws IOException {
+        if (book == null) {
+            throw new IllegalArgumentException("RecipeBook must not be null");
+        }
+        if (filePath == null || filePath.isBlank()) {
+            throw new IllegalArgumentException("File path must not be null or blank");
+        }
+        CompressedRecipeFile.write(encodeRecipes(book), Paths.get(filePath));
+        book.markSaved();
+    }
+
+    /**
+     * Loads a RecipeBook from a JSON file, parsing each recipe's ingredients only
+     * when they are first used.
+     *
+     * <p>The file is memory-mapped and scanned once for recipe names and servings
+     * (see {@link MappedRecipeCatalog}). Listing recipes and finding them by name
+     * is possible at once; the search index is built on the first search. Unlike
+     * {@link #load}, invalid ingredients are not reported until the recipe is used.
+     *
+     * @param filePath the path to read; must not be null
+     * @return a new RecipeBook backed by the mapped file
+     * @throws IOException if the file cannot be read or its recipe list is malformed
+     */
+    public static RecipeBook loadLazy(String filePath) throws IOException {
+        return MappedRecipeCatalog.open(filePath).toRecipeBook();
+    }
+
+    /**
+     * Saves a RecipeBook to a JSON file on a background thread.
+     *
+     * <p>The book is snapshotted before this returns, so it may be changed at once.
+     * Saves to the same file within {@value AsyncSaver#DEFAULT_DEBOUNCE_MILLIS} ms
+     * are coalesced into one write of the latest snapshot (see {@link AsyncSaver}).
+     *
+     * @param book the recipe book to save; must not be null
+     * @param filePath the path to write; must not be null
+     * @return a future completed once the file is on disk, or completed
+     *         exceptionally with the IOException if the write fails
+     */
+    public static CompletableFuture<Void> saveAsync(RecipeBook book, String filePath) {
+        return SharedSaver.INSTANCE.saveAsync(book, filePath);
+    }
+
+    /**
+     * Splits a single-file catalog into a sharded directory readable by
+     * {@link ShardedRecipeStore}.
+     *
+     * <p>The file is fully loaded and validated first, so a bad file leaves the
+     * directory untouched. Every recipe is then encoded afresh for its shard.
+     *
+     * @param filePath the recipe file to migrate; must not be null
+     * @param dirPath the directory to write the shards and manifest to; created if missing
+     * @param shardCount the number of shards; must be positive
+     * @throws IOException if the file cannot be read or the shards cannot be written
+     */
+    public static void migrateToShards(String filePath, String dirPath, int shardCount) throws IOException {
+        ShardedRecipeStore.save(load(filePath), dirPath, shardCount);
+    }
+
+    /**
+     * Reads one shard file, adding each recipe's position in the whole catalog to
+     * {@code positions}. The returned book counts as saved.
+     */
+    static RecipeBook loadShard(Path path, List<Integer> positions) throws IOException {
+        RecipeBook book = fromJson(ByteBuffer.wrap(Files.readAllBytes(path)), positions);
+        book.markSaved();
+        return book;
+    }
+
+    // Created on first use so synchronous callers never start the writer thread
+    private static class SharedSaver {
+        static final AsyncSaver INSTANCE = new AsyncSaver(AsyncSaver.DEFAULT_DEBOUNCE_MILLIS);
     }
 
     // --- JSON Serialization ---
 
-    private static String toJson(RecipeBook book) {
-        StringBuilder sb = new StringBuilder();
-        sb.append("{\"recipes\":[");
+    private static final int WRITE_BUFFER_SIZE = 1 << 16;
+    // Every power of ten up to 1e22 is exactly representable as a double
+    private static final double[] POWERS_OF_TEN = {
+        1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11,
+        1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22
+    };
+    private static final long[] LONG_POWERS_OF_TEN = new long[19];
+    // Parsing stops accumulating digits once another one could overflow a long
+    private static final long MANTISSA_LIMIT = (Long.MAX_VALUE - 9) / 10;
+
+    static {
+        LONG_POWERS_OF_TEN[0] = 1;
+        for (int i = 1; i < LONG_POWERS_OF_TEN.length; i++) {
+            LONG_POWERS_OF_TEN[i] = LONG_POWERS_OF_TEN[i - 1] * 10;
+        }
+    }
+    private static final byte[] FILE_PREFIX = "{\"recipes\":[".getBytes(StandardCharsets.UTF_8);
+    private static final byte[] FILE_SUFFIX = "]}".getBytes(StandardCharsets.UTF_8);
+
+    /**
+     * Returns the UTF-8 encoding of every recipe in the book, in order.
+     *
+     * <p>Unchanged recipes reuse the encoding cached by an earlier save; only
+     * recipes without one are encoded.
+     */
+    static List<byte[]> encodeRecipes(RecipeBook book) {
         List<Recipe> recipes = book.getAllRecipes();
-        for (int i = 0; i < recipes.size(); i++) {
-            if (i > 0) sb.append(",");
-            sb.append(toJsonRecipe(recipes.get(i)));
+        List<byte[]> segments = new ArrayList<>(recipes.size());
+        for (Recipe r : recipes) {
+            byte[] encoded = r.getEncodedJson();
+            if (encoded == null) {
+                encoded = toJsonRecipe(r).getBytes(StandardCharsets.UTF_8);
+                r.setEncodedJson(encoded);
+            }
+            segments.add(encoded);
+        }
+        return segments;
+    }
+
+    /**
+     * Writes encoded recipes as a complete recipe file.
+     */
+    static void writeRecipes(List<byte[]> segments, OutputStream out) throws IOException {
+        out.write(FILE_PREFIX);
+        for (int i = 0; i < segments.size(); i++) {
+            if (i > 0) out.write(',');
+            out.write(segments.get(i));
+        }
+        out.write(FILE_SUFFIX);
+    }
+
+    /**
+     * Writes encoded recipes as a shard file: a recipe file with an extra
+     * {@code "positions"} array giving each recipe's index in the whole catalog.
+     */
+    static void writeShard(List<byte[]> segments, int[] positions, OutputStream out) throws IOException {
+        out.write(FILE_PREFIX);
+        for (int i = 0; i < segments.size(); i++) {
+            if (i > 0) out.write(',');
+            out.write(segments.get(i));
+        }
+        StringBuilder sb = new StringBuilder("],\"positions\":[");
+        for (int i = 0; i < positions.length; i++) {
+            if (i > 0) sb.append(',');
+            sb.append(positions[i]);
         }
         sb.append("]}");
-        return sb.toString();
+        out.write(sb.toString().getBytes(StandardCharsets.UTF_8));
     }
 
-    private static String toJsonRecipe(Recipe r) {
+    /**
+     * Encodes one recipe as a JSON object, in the same form used in saved files.
+     */
+    static String toJsonRecipe(Recipe r) {
         StringBuilder sb = new StringBuilder();
         sb.append("{\"name\":").append(escapeJson(r.getName()));
         sb.append(",\"servings\":").append(r.getServings());
@@ -82,14 +252,79 @@ public class RecipeJsonStore {
         for (int i = 0; i < names.size(); i++) {
             if (i > 0) sb.append(",");
             sb.append("{\"name\":").append(escapeJson(names.get(i)));
-            sb.append(",\"amount\":").append(amounts.get(i));
+            sb.append(",\"amount\":");
+            appendDouble(sb, amounts.get(i));
             sb.append("}");
         }
         sb.append("]}");
         return sb.toString();
     }
 
-    private static String escapeJson(String s) {
+    /**
+     * Appends the shortest decimal that parses back to exactly {@code value}.
+     *
+     * <p>For magnitudes in [1e-3, 1e7), which covers practically every amount,
+     * this finds the fewest fraction digits {@code k} for which some integer
+     * {@code m < 2^53} satisfies {@code m / 10^k == value}. Both operands are
+     * exact and IEEE division rounds correctly, so the decimal m&times;10<sup>-k</sup>
+     * parses back to the same double. Output uses Double.toString's plain
+     * notation ("2.0", "0.25"). Other values, and the rare value needing more
+     * than 53 bits of digits, are written with Double.toString, which also
+     * round-trips.
+     */
+    static void appendDouble(StringBuilder sb, double value) {
+        double abs = Math.abs(value);
+        if (abs >= 1e-3 && abs < 1e7) {
+            for (int k = 0; k < POWERS_OF_TEN.length; k++) {
+                double scaled = abs * POWERS_OF_TEN[k];
+                if (scaled >= 0x1p53) {
+                    break;
+                }
+                long nearest = (long) Math.rint(scaled);
+                // The rounded product can be one off; its neighbours are checked as well
+                for (int delta = 0; delta <= 2; delta++) {
+                    long m = nearest + (delta == 2 ? -1 : delta);
+                    if (m > 0 && m / POWERS_OF_TEN[k] == abs) {
+                        if (value < 0) sb.append('-');
+                        appendDecimal(sb, m, k);
+                        return;
+                    }
+                }
+            }
+        }
+        sb.append(value);
+    }
+
+    /**
+     * Appends {@code m / 10^k} in plain notation, with ".0" for whole numbers.
+     */
+    private static void appendDecimal(StringBuilder sb, long m, int k) {
+        int digits = 1;
+        while (digits < 19 && m >= LONG_POWERS_OF_TEN[digits]) {
+            digits++;
+        }
+        int intDigits = digits - k;
+        if (intDigits <= 0) {
+            sb.append("0.");
+            for (int i = intDigits; i < 0; i++) {
+                sb.append('0');
+            }
+        }
+        for (int i = 0; i < digits; i++) {
+            if (i == intDigits && intDigits > 0) {
+                sb.append('.');
+            }
+            sb.append((char) ('0' + (m / LONG_POWERS_OF_TEN[digits - 1 - i]) % 10));
+        }
+        if (k == 0) {
+            sb.append(".0");
+        }
+    }
+
+    /**
+     * Encodes a string as a quoted JSON string literal.
+     */
+    static String escapeJson(String s) {
         if (s == null) return "\"\"";
         StringBuilder sb = new StringBuilder();
         sb.append('"');
@@ -108,8 +343,30 @@ public class RecipeJsonStore {
 
     // --- JSON Deserialization ---
 
-    private static RecipeBook fromJson(String json) throws IOException {
-        Parser p = new Parser(json);
+    // Field names, pre-encoded so keys are compared as bytes without decoding them
+    private static final byte[][] KEYS = {
+        ascii("recipes"), ascii("positions"), ascii("name"), ascii("servings"), ascii("ingredients"), ascii("amount")
+    };
+    private static final int KEY_RECIPES = 0;
+    private static final int KEY_POSITIONS = 1;
+    private static final int KEY_NAME = 2;
+    private static final int KEY_SERVINGS = 3;
+    private static final int KEY_INGREDIENTS = 4;
+    private static final int KEY_AMOUNT = 5;
+    private static final byte[] TRUE = ascii("true");
+    private static final byte[] FALSE = ascii("false");
+    private static final byte[] NULL = ascii("null");
+
+    private static byte[] ascii(String s) {
+        return s.getBytes(StandardCharsets.US_ASCII);
+    }
+
+    /**
+     * Parses a recipe file. When {@code positions} is not null, the optional
+     * {@code "positions"} array written by {@link ShardedRecipeStore} is added to it.
+     */
+    private static RecipeBook fromJson(ByteBuffer json, List<Integer> positions) throws IOException {
+        Parser p = new Parser(json, new StringPool());
         try {
             p.skipWhitespace();
             if (!p.expect('{')) {
@@ -119,13 +376,13 @@ public class RecipeJsonStore {
 
             RecipeBook book = null;
             while (p.peek() != '}') {
-                String key = p.parseString();
+                int key = p.parseKey(KEYS);
                 p.skipWhitespace();
                 if (!p.expect(':')) {
-                    throw new IOException("Expected ':' after key '" + key + "'");
+                    throw new IOException("Expected ':' after key '" + p.lastKey() + "'");
                 }
                 p.skipWhitespace();
-                if ("recipes".equals(key)) {
+                if (key == KEY_RECIPES) {
                     if (book != null) {
                         throw new IOException("Duplicate 'recipes' key");
                     }
@@ -146,6 +403,18 @@ public class RecipeJsonStore {
                     if (!p.expect(']')) {
                         throw new IOException("Expected ']' to close recipes array");
                     }
+                } else if (key == KEY_POSITIONS && positions != null) {
+                    if (!p.expect('[')) {
+                        throw new IOException("Expected '[' for positions array");
+                    }
+                    if (p.peek() != ']') {
+                        do {
+                            positions.add(p.parseInt());
+                        } while (p.expect(','));
+                    }
+                    if (!p.expect(']')) {
+                        throw new IOException("Expected ']' to close positions array");
+                    }
                 } else {
                     p.skipValue();
                 }
@@ -162,7 +431,7 @@ public class RecipeJsonStore {
                 throw new IOException("Expected '}' at end of JSON");
             }
             p.skipWhitespace();
-            if (p.pos < json.length()) {
+            if (!p.atEnd()) {
                 throw new IOException("Unexpected content after JSON");
             }
             return book;
@@ -171,6 +440,47 @@ public class RecipeJsonStore {
         }
     }
 
+    /**
+     * Parses comma-separated recipe objects (the inside of a recipes array).
+     * {@code firstIndex} is the index of the first recipe, for error messages.
+     */
+    static List<Recipe> parseRecipes(ByteBuffer json, int firstIndex) throws IOException {
+        Parser p = new Parser(json, new StringPool());
+        List<Recipe> recipes = new ArrayList<>();
+        try {
+            p.skipWhitespace();
+            if (!p.atEnd()) {
+                do {
+                    recipes.add(parseRecipe(p, firstIndex + recipes.size()));
+                    p.skipWhitespace();
+                } while (p.expect(','));
+            }
+            if (!p.atEnd()) {
+                throw new IOException("Recipe " + (firstIndex + recipes.size()) + ": expected ','");
+            }
+            return recipes;
+        } catch (ParseException e) {
+            throw new IOException(e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Parses and validates a single recipe object, as found in a recipe file.
+     * Strings are deduplicated through {@code pool}.
+     */
+    static Recipe parseRecipe(ByteBuffer json, int recipeIndex, StringPool pool) throws IOException {
+        Parser p = new Parser(json, pool);
+        try {
+            Recipe recipe = parseRecipe(p, recipeIndex);
+            if (!p.atEnd()) {
+                throw new IOException("Recipe " + recipeIndex + ": unexpected content after recipe");
+            }
+            return recipe;
+        } catch (ParseException e) {
+            throw new IOException(e.getMessage(), e);
+        }
+    }
+
     private static Recipe parseRecipe(Parser p, int recipeIndex) throws IOException, ParseException {
         if (!p.expect('{')) {
             throw new IOException("Recipe " + recipeIndex + ": expected '{'");
@@ -192,18 +502,18 @@ public class RecipeJsonStore {
             }
             first = false;
 
-            String key = p.parseString();
+            int key = p.parseKey(KEYS);
             p.skipWhitespace();
             if (!p.expect(':')) {
                 throw new IOException("Recipe " + recipeIndex + ": expected ':' after field name");
             }
             p.skipWhitespace();
 
-            if ("name".equals(key)) {
+            if (key == KEY_NAME) {
                 name = p.parseString();
-            } else if ("servings".equals(key)) {
+            } else if (key == KEY_SERVINGS) {
                 servings = p.parseInt();
-            } else if ("ingredients".equals(key)) {
+            } else if (key == KEY_INGREDIENTS) {
                 if (!p.expect('[')) {
                     throw new IOException("Recipe " + recipeIndex + ": expected '[' for ingredients");
                 }
@@ -230,13 +540,13 @@ public class RecipeJsonStore {
                             p.skipWhitespace();
                         }
                         firstIng = false;
-                        String k = p.parseString();
+                        int k = p.parseKey(KEYS);
                         p.skipWhitespace();
                         if (!p.expect(':')) throw new IOException("Recipe " + recipeIndex + ", ingredient: expected ':'");
                         p.skipWhitespace();
-                        if ("name".equals(k)) {
+                        if (k == KEY_NAME) {
                             inName = p.parseString();
-                        } else if ("amount".equals(k)) {
+                        } else if (k == KEY_AMOUNT) {
                             inAmt = p.parseDouble();
                         } else {
                             p.skipValue();
@@ -302,93 +612,154 @@ public class RecipeJsonStore {
         return recipe;
     }
 
-    private static class Parser {
-        final String json;
-        int pos = 0;
+    /**
+     * Reads JSON directly from UTF-8 bytes, between the buffer's position and limit.
+     *
+     * <p>Only the bytes of a string value are decoded, and only the first time they
+     * are seen: {@link #parseString} returns the pool's instance for repeats. Keys
+     * are matched against pre-encoded constants by {@link #parseKey} and never
+     * become Strings. Whitespace is the four JSON whitespace characters.
+     */
+    static class Parser {
+        private final ByteBuffer buf;
+        private final int limit;
+        private final StringPool pool;
+        // The last string read, unescaped but not decoded
+        private byte[] scratch = new byte[64];
+        private int scratchLength;
+        int pos;
 
         Parser(String json) {
-            this.json = json;
+            this(ByteBuffer.wrap(json.getBytes(StandardCharsets.UTF_8)), new StringPool());
+        }
+
+        Parser(ByteBuffer buf, StringPool pool) {
+            this.buf = buf;
+            this.pos = buf.position();
+            this.limit = buf.limit();
+            this.pool = pool;
+        }
+
+        boolean atEnd() {
+            return pos >= limit;
         }
 
         void skipWhitespace() {
-            while (pos < json.length() && Character.isWhitespace(json.charAt(pos))) {
+            while (pos < limit) {
+                byte b = buf.get(pos);
+                if (b != ' ' && b != '\n' && b != '\r' && b != '\t') break;
                 pos++;
             }
         }
 
         char peek() {
             skipWhitespace();
-            return pos < json.length() ? json.charAt(pos) : '\0';
+            return pos < limit ? (char) (buf.get(pos) & 0xFF) : '\0';
         }
 
         boolean expect(char c) {
             skipWhitespace();
-            if (pos < json.length() && json.charAt(pos) == c) {
+            if (pos < limit && buf.get(pos) == c) {
                 pos++;
                 return true;
             }
             return false;
         }
 
-        boolean expectString(String s) throws ParseException {
-            skipWhitespace();
-            if (pos < json.length() && json.charAt(pos) == '"') {
-                String parsed = parseString();
-                return s.equals(parsed);
+        String parseString() throws ParseException {
+            int start = pos;
+            readString();
+            try {
+                return pool.intern(scratch, scratchLength);
+            } catch (CharacterCodingException e) {
+                throw new ParseException("Invalid UTF-8 in string at position " + start);
             }
-            return false;
         }
 
-        String parseString() throws ParseException {
+        /**
+         * Reads a string and returns the index of the equal entry in {@code keys},
+         * or -1 if there is none.
+         */
+        int parseKey(byte[][] keys) throws ParseException {
+            readString();
+            for (int i = 0; i < keys.length; i++) {
+                if (Arrays.equals(keys[i], 0, keys[i].length, scratch, 0, scratchLength)) {
+                    return i;
+                }
+            }
+            return -1;
+        }
+
+        /**
+         * Returns the key last read by {@link #parseKey}, for error messages.
+         */
+        String lastKey() {
+            return new String(scratch, 0, scratchLength, StandardCharsets.UTF_8);
+        }
+
+        private void readString() throws ParseException {
             skipWhitespace();
-            if (pos >= json.length() || json.charAt(pos) != '"') {
+            if (pos >= limit || buf.get(pos) != '"') {
                 throw new ParseException("Expected string at position " + pos);
             }
             pos++;
-            StringBuilder sb = new StringBuilder();
-            while (pos < json.length()) {
-                char c = json.charAt(pos++);
-                if (c == '"') break;
-                if (c == '\\') {
-                    if (pos >= json.length()) throw new ParseException("Unterminated escape");
-                    c = json.charAt(pos++);
-                    if (c == 'n') sb.append('\n');
-                    else if (c == 'r') sb.append('\r');
-                    else if (c == 't') sb.append('\t');
-                    else if (c == '"' || c == '\\') sb.append(c);
-                    else throw new ParseException("Invalid escape \\" + c);
-                } else {
-                    sb.append(c);
+            int len = 0;
+            while (true) {
+                if (pos >= limit) throw new ParseException("Unterminated string");
+                byte b = buf.get(pos++);
+                if (b == '"') break;
+                if (b == '\\') {
+                    if (pos >= limit) throw new ParseException("Unterminated escape");
+                    byte e = buf.get(pos++);
+                    if (e == 'n') b = '\n';
+                    else if (e == 'r') b = '\r';
+                    else if (e == 't') b = '\t';
+                    else if (e == '"' || e == '\\') b = e;
+                    else throw new ParseException("Invalid escape \\" + (char) (e & 0xFF));
+                }
+                if (len == scratch.length) {
+                    scratch = Arrays.copyOf(scratch, len * 2);
                 }
+                scratch[len++] = b;
             }
-            return sb.toString();
+            scratchLength = len;
         }
 
         int parseInt() throws ParseException, IOException {
             skipWhitespace();
             int start = pos;
-            if (pos < json.length() && json.charAt(pos) == '-') pos++;
-            while (pos < json.length() && Character.isDigit(json.charAt(pos))) pos++;
+            boolean negative = pos < limit && buf.get(pos) == '-';
+            if (negative) pos++;
+            int digitsStart = pos;
+            long value = 0;
+            while (pos < limit) {
+                byte b = buf.get(pos);
+                if (!isAsciiDigit(b)) break;
+                value = value * 10 + (b - '0');
+                if (value > (long) Integer.MAX_VALUE + 1) {
+                    throw new IOException("Invalid integer at position " + start);
+                }
+                pos++;
+            }
             if (pos == start) {
                 throw new IOException("Expected number at position " + pos);
             }
-            try {
-                return Integer.parseInt(json.substring(start, pos));
-            } catch (NumberFormatException e) {
+            if (pos == digitsStart || (!negative && value > Integer.MAX_VALUE)) {
                 throw new IOException("Invalid integer at position " + start);
             }
+            return (int) (negative ? -value : value);
         }
 
         void skipValue() throws ParseException, IOException {
             skipWhitespace();
-            if (pos >= json.length()) return;
-            char c = json.charAt(pos);
-            if (c == '"') {
-                parseString();
-            } else if (c == '{') {
+            if (pos >= limit) return;
+            byte b = buf.get(pos);
+            if (b == '"') {
+                readString();
+            } else if (b == '{') {
                 pos++;
                 while (peek() != '}') {
-                    parseString();
+                    readString();
                     skipWhitespace();
                     if (!expect(':')) break;
                     skipValue();
@@ -396,7 +767,7 @@ public class RecipeJsonStore {
                     if (peek() == ',') pos++;
                 }
                 expect('}');
-            } else if (c == '[') {
+            } else if (b == '[') {
                 pos++;
                 while (peek() != ']') {
                     skipValue();
@@ -404,43 +775,109 @@ public class RecipeJsonStore {
                     if (peek() == ',') pos++;
                 }
                 expect(']');
-            } else if (c == 't' && json.startsWith("true", pos)) {
-                pos += 4;
-            } else if (c == 'f' && json.startsWith("false", pos)) {
-                pos += 5;
-            } else if (c == 'n' && json.startsWith("null", pos)) {
-                pos += 4;
-            } else if (c == '-' || Character.isDigit(c)) {
+            } else if (b == 't' && matches(TRUE)) {
+                pos += TRUE.length;
+            } else if (b == 'f' && matches(FALSE)) {
+                pos += FALSE.length;
+            } else if (b == 'n' && matches(NULL)) {
+                pos += NULL.length;
+            } else if (b == '-' || isAsciiDigit(b)) {
                 parseDouble();
             }
         }
 
+        /**
+         * Parses a number in place. Up to 19 significant digits are accumulated
+         * into a long; when the value fits in 53 bits and the decimal exponent is
+         * within +-22, one exact multiply or divide by a power of ten gives the
+         * correctly rounded result. Anything else falls back to Double.parseDouble.
+         */
         double parseDouble() throws ParseException, IOException {
             skipWhitespace();
             int start = pos;
-            if (pos < json.length() && json.charAt(pos) == '-') pos++;
-            while (pos < json.length() && Character.isDigit(json.charAt(pos))) pos++;
-            if (pos < json.length() && json.charAt(pos) == '.') {
+            boolean negative = pos < limit && buf.get(pos) == '-';
+            if (negative) pos++;
+            long mantissa = 0;
+            int exponent = 0;
+            boolean anyDigits = false;
+            boolean truncated = false;
+            while (pos < limit && isAsciiDigit(buf.get(pos))) {
+                if (mantissa < MANTISSA_LIMIT) {
+                    mantissa = mantissa * 10 + (buf.get(pos) - '0');
+                } else {
+                    exponent++;
+                    truncated |= buf.get(pos) != '0';
+                }
+                anyDigits = true;
                 pos++;
-                while (pos < json.length() && Character.isDigit(json.charAt(pos))) pos++;
             }
-            if (pos < json.length() && (json.charAt(pos) == 'e' || json.charAt(pos) == 'E')) {
+            if (pos < limit && buf.get(pos) == '.') {
                 pos++;
-                if (pos < json.length() && (json.charAt(pos) == '+' || json.charAt(pos) == '-')) pos++;
-                while (pos < json.length() && Character.isDigit(json.charAt(pos))) pos++;
+                while (pos < limit && isAsciiDigit(buf.get(pos))) {
+                    if (mantissa < MANTISSA_LIMIT) {
+                        mantissa = mantissa * 10 + (buf.get(pos) - '0');
+                        exponent--;
+                    } else {
+                        truncated |= buf.get(pos) != '0';
+                    }
+                    anyDigits = true;
+                    pos++;
+                }
+            }
+            if (pos < limit && (buf.get(pos) == 'e' || buf.get(pos) == 'E')) {
+                pos++;
+                boolean negativeExponent = false;
+                if (pos < limit && (buf.get(pos) == '+' || buf.get(pos) == '-')) {
+                    negativeExponent = buf.get(pos) == '-';
+                    pos++;
+                }
+                int expStart = pos;
+                int explicit = 0;
+                while (pos < limit && isAsciiDigit(buf.get(pos))) {
+                    if (explicit < 100000) {
+                        explicit = explicit * 10 + (buf.get(pos) - '0');
+                    }
+                    pos++;
+                }
+                if (pos == expStart) {
+                    throw new IOException("Invalid number at position " + start);
+                }
+                exponent += negativeExponent ? -explicit : explicit;
             }
             if (pos == start) {
                 throw new IOException("Expected number at position " + pos);
             }
+            if (!anyDigits) {
+                throw new IOException("Invalid number at position " + start);
+            }
+            if (!truncated && mantissa < (1L << 53) && exponent >= -22 && exponent <= 22) {
+                double value = exponent < 0 ? mantissa / POWERS_OF_TEN[-exponent] : mantissa * POWERS_OF_TEN[exponent];
+                return negative ? -value : value;
+            }
+            // Only ASCII digits, signs, '.' and exponent markers were consumed
+            byte[] text = new byte[pos - start];
+            buf.get(start, text);
             try {
-                return Double.parseDouble(json.substring(start, pos));
+                return Double.parseDouble(new String(text, StandardCharsets.US_ASCII));
             } catch (NumberFormatException e) {
                 throw new IOException("Invalid number at position " + start);
             }
         }
+
+        private boolean matches(byte[] literal) {
+            if (limit - pos < literal.length) return false;
+            for (int i = 0; i < literal.length; i++) {
+                if (buf.get(pos + i) != literal[i]) return false;
+            }
+            return true;
+        }
+
+        private static boolean isAsciiDigit(byte b) {
+            return b >= '0' && b <= '9';
+        }
     }
 
-    private static class ParseException extends Exception {
+    static class ParseException extends Exception {
         ParseException(String msg) {
             super(msg);
         }
@@ -0,0 +1,18 @@
+import java.util.List;
+
+/**
+ * Receives changes to a {@link RecipeBook} or {@link Recipe}.
+ *
+ * <p>Register with {@code addListener}. Events arrive in the order the changes
+ * were made. Changes made inside {@link RecipeBook#batch} arrive as one list;
+ * any other change arrives as a list of one event.
+ */
+@FunctionalInterface
+public interface RecipeListener {
+    /**
+     * Called after one or more changes were made.
+     *
+     * @param events the changes, oldest first; never empty and not modifiable
+     */
+    void onEvents(List<RecipeEvent> events);
+}
@@ -0,0 +1,396 @@
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * Local HTTP query server exposing a RecipeBook to other processes.
+ *
+ * <p>Endpoints (all GET, all returning JSON):
+ * <ul>
+ *   <li>{@code /recipes} - every recipe sorted by name; optional {@code offset} and {@code limit}</li>
+ *   <li>{@code /recipes/<name>} - one recipe, matched like ConsoleUI's "View recipe details"</li>
+ *   <li>{@code /search?q=...&mode=all|name|ingredient} - search results in insertion order</li>
+ *   <li>{@code /cart?recipes=a,b,c} - aggregated shopping cart lines</li>
+ *   <li>{@code /metrics} - per-endpoint request counts and latency percentiles</li>
+ * </ul>
+ *
+ * <p>Recipes are encoded by {@link RecipeJsonStore}, so each recipe object has the
+ * same shape as in a saved file. The server binds to the loopback address only.
+ *
+ * <p>Each request runs on its own virtual thread when the JVM supports them
+ * (Java 21+) and on a pool of {@code maxConcurrent} platform threads otherwise.
+ * At most {@code maxConcurrent} requests are served at once. The permit is taken
+ * when the HTTP server hands a request over, before it reaches the executor, so
+ * further requests are answered 503 on the dispatching thread rather than queued. RecipeBook is not thread-safe
+ * (even searches update its query cache), so handlers synchronize on the book;
+ * other code that mutates the book while the server runs must do the same.
+ */
+public class RecipeServer {
+    private static final String[] ENDPOINTS = {"recipes", "search", "cart", "metrics"};
+
+    private final RecipeBook book;
+    private final int maxConcurrent;
+    private final Semaphore permits;
+    private final Map<String, LatencyRecorder> metrics = new LinkedHashMap<>();
+    private final HttpServer server;
+    private final ExecutorService executor;
+    // Set while a request over the limit is answered on the dispatching thread
+    private final ThreadLocal<Boolean> rejecting = ThreadLocal.withInitial(() -> false);
+
+    /**
+     * Creates a server for {@code book} on the loopback interface. Call {@link #start()}
+     * to begin accepting requests.
+     *
+     * @param book the recipe book to serve; must not be null
+     * @param port the port to bind, or 0 for any free port
+     * @param maxConcurrent the maximum number of requests served at once; must be positive
+     * @throws IOException if the port cannot be bound
+     */
+    public RecipeServer(RecipeBook book, int port, int maxConcurrent) throws IOException {
+        if (book == null) {
+            throw new IllegalArgumentException("RecipeBook must not be null");
+        }
+        if (maxConcurrent <= 0) {
+            throw new IllegalArgumentException("maxConcurrent must be positive");
+        }
+        this.book = book;
+        this.maxConcurrent = maxConcurrent;
+        this.permits = new Semaphore(maxConcurrent);
+        for (String e : ENDPOINTS) {
+            metrics.put(e, new LatencyRecorder());
+        }
+        this.server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), port), 0);
+        this.executor = newRequestExecutor(maxConcurrent);
+        server.setExecutor(this::dispatch);
+        server.createContext("/", this::handle);
+    }
+
+    /**
+     * Starts accepting requests.
+     */
+    public void start() {
+        server.start();
+    }
+
+    /**
+     * Stops the server, waiting up to {@code delaySeconds} for in-flight requests.
+     *
+     * @param delaySeconds the maximum time to wait
+     */
+    public void stop(int delaySeconds) {
+        server.stop(delaySeconds);
+        executor.shutdown();
+        try {
+            executor.awaitTermination(delaySeconds, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Returns the port the server is bound to.
+     *
+     * @return the local port
+     */
+    public int getPort() {
+        return server.getAddress().getPort();
+    }
+
+    /** Returns how many requests currently hold a permit. */
+    int getInFlight() {
+        return maxConcurrent - permits.availablePermits();
+    }
+
+    /**
+     * Returns the maximum number of requests served at once.
+     *
+     * @return the concurrency limit
+     */
+    public int getMaxConcurrent() {
+        return maxConcurrent;
+    }
+
+    /**
+     * Uses a virtual-thread-per-request executor where available (Java 21+).
+     */
+    private static ExecutorService newRequestExecutor(int maxConcurrent) {
+        try {
+            return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (ReflectiveOperationException e) {
+            return Executors.newFixedThreadPool(maxConcurrent);
+        }
+    }
+
+    /**
+     * Runs a request on the executor if a permit is free, and otherwise runs it
+     * here, on the HTTP server's dispatcher thread, where it is answered 503.
+     */
+    private void dispatch(Runnable request) {
+        if (!permits.tryAcquire()) {
+            rejecting.set(true);
+            try {
+                request.run();
+            } finally {
+                rejecting.set(false);
+            }
+            return;
+        }
+        try {
+            executor.execute(() -> {
+                try {
+                    request.run();
+                } finally {
+                    permits.release();
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            permits.release();
+            throw e;
+        }
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        long start = System.nanoTime();
+        String path = exchange.getRequestURI().getRawPath();
+        String[] segments = path.replaceAll("^/+|/+$", "").split("/", 2);
+        LatencyRecorder recorder = metrics.get(segments[0]);
+        int status;
+        try {
+            if (rejecting.get()) {
+                status = send(exchange, 503, error("Server busy: " + maxConcurrent + " requests in flight"));
+            } else {
+                status = route(exchange, segments);
+            }
+        } catch (RuntimeException e) {
+            status = send(exchange, 500, error("Internal error: " + e.getMessage()));
+        } finally {
+            exchange.close();
+        }
+        if (recorder != null) {
+            recorder.record(System.nanoTime() - start, status >= 400);
+        }
+    }
+
+    private int route(HttpExchange exchange, String[] segments) throws IOException {
+        if (!"GET".equals(exchange.getRequestMethod())) {
+            return send(exchange, 405, error("Only GET is supported"));
+        }
+        Map<String, String> params = parseQuery(exchange.getRequestURI().getRawQuery());
+        switch (segments[0]) {
+            case "recipes":
+                if (segments.length > 1) {
+                    return details(exchange, URLDecoder.decode(segments[1], StandardCharsets.UTF_8));
+                }
+                return list(exchange, params);
+            case "search":
+                return search(exchange, params);
+            case "cart":
+                return cart(exchange, params);
+            case "metrics":
+                return send(exchange, 200, metricsJson());
+            default:
+                return send(exchange, 404, error("Unknown endpoint: /" + segments[0]));
+        }
+    }
+
+    private int list(HttpExchange exchange, Map<String, String> params) throws IOException {
+        int offset;
+        int limit;
+        try {
+            offset = Math.max(0, Integer.parseInt(params.getOrDefault("offset", "0")));
+            limit = Math.max(0, Integer.parseInt(params.getOrDefault("limit", String.valueOf(Integer.MAX_VALUE))));
+        } catch (NumberFormatException e) {
+            return send(exchange, 400, error("offset and limit must be integers"));
+        }
+        List<Recipe> sorted;
+        synchronized (book) {
+            sorted = RecipeSorter.sortByName(book.getAllRecipes());
+        }
+        int from = Math.min(offset, sorted.size());
+        int to = (int) Math.min(sorted.size(), (long) from + limit);
+        return send(exchange, 200, "{\"total\":" + sorted.size() + ",\"recipes\":" + recipesJson(sorted.subList(from, to)) + "}");
+    }
+
+    private int details(HttpExchange exchange, String name) throws IOException {
+        Recipe found = null;
+        String json = null;
+        synchronized (book) {
+            for (Recipe r : book.getAllRecipes()) {
+                if (r.getName().equals(name)) {
+                    found = r;
+                    break;
+                }
+            }
+            if (found == null) {
+                List<Recipe> byName = book.searchByName(name);
+                if (!byName.isEmpty()) {
+                    found = byName.get(0);
+                }
+            }
+            if (found != null) {
+                json = RecipeJsonStore.toJsonRecipe(found);
+            }
+        }
+        if (json == null) {
+            return send(exchange, 404, error("Recipe not found: " + name));
+        }
+        return send(exchange, 200, json);
+    }
+
+    private int search(HttpExchange exchange, Map<String, String> params) throws IOException {
+        String query = params.getOrDefault("q", "").trim();
+        if (query.isEmpty()) {
+            return send(exchange, 400, error("Search query cannot be empty."));
+        }
+        String mode = params.getOrDefault("mode", "all");
+        if (!mode.equals("all") && !mode.equals("name") && !mode.equals("ingredient")) {
+            return send(exchange, 400, error("mode must be all, name or ingredient"));
+        }
+        String json;
+        synchronized (book) {
+            List<Recipe> results;
+            if (mode.equals("all")) {
+                results = book.search(query);
+            } else if (mode.equals("name")) {
+                results = book.searchByName(query);
+            } else {
+                results = book.searchByIngredient(query);
+            }
+            json = "{\"count\":" + results.size() + ",\"recipes\":" + recipesJson(results) + "}";
+        }
+        return send(exchange, 200, json);
+    }
+
+    private int cart(HttpExchange exchange, Map<String, String> params) throws IOException {
+        List<String> names = Arrays.stream(params.getOrDefault("recipes", "").split(","))
+                .map(String::trim)
+                .filter(s -> !s.isEmpty())
+                .collect(Collectors.toList());
+        if (names.isEmpty()) {
+            return send(exchange, 400, error("Please enter at least one recipe name."));
+        }
+        List<String> missing = new ArrayList<>();
+        List<String> lines;
+        synchronized (book) {
+            List<Recipe> all = book.getAllRecipes();
+            List<Recipe> selected = new ArrayList<>();
+            for (String name : names) {
+                Recipe match = null;
+                for (Recipe r : all) {
+                    if (r.getName().equalsIgnoreCase(name)) {
+                        match = r;
+                        break;
+                    }
+                }
+                if (match != null) {
+                    selected.add(match);
+                } else {
+                    missing.add(name);
+                }
+            }
+            lines = ShoppingCart.aggregate(selected);
+        }
+        return send(exchange, 200, "{\"items\":" + stringsJson(lines) + ",\"missing\":" + stringsJson(missing) + "}");
+    }
+
+    private String metricsJson() {
+        StringBuilder sb = new StringBuilder();
+        sb.append("{\"maxConcurrent\":").append(maxConcurrent)
+                .append(",\"inFlight\":").append(getInFlight())
+                .append(",\"endpoints\":{");
+        boolean first = true;
+        for (Map.Entry<String, LatencyRecorder> e : metrics.entrySet()) {
+            if (!first) sb.append(",");
+            first = false;
+            sb.append(RecipeJsonStore.escapeJson(e.getKey())).append(":").append(e.getValue().toJson());
+        }
+        sb.append("}}");
+        return sb.toString();
+    }
+
+    private static String recipesJson(List<Recipe> recipes) {
+        StringBuilder sb = new StringBuilder();
+        sb.append("[");
+        for (int i = 0; i < recipes.size(); i++) {
+            if (i > 0) sb.append(",");
+            sb.append(RecipeJsonStore.toJsonRecipe(recipes.get(i)));
+        }
+        sb.append("]");
+        return sb.toString();
+    }
+
+    private static String stringsJson(List<String> values) {
+        StringBuilder sb = new StringBuilder();
+        sb.append("[");
+        for (int i = 0; i < values.size(); i++) {
+            if (i > 0) sb.append(",");
+            sb.append(RecipeJsonStore.escapeJson(values.get(i)));
+        }
+        sb.append("]");
+        return sb.toString();
+    }
+
+    private static String error(String message) {
+        return "{\"error\":" + RecipeJsonStore.escapeJson(message) + "}";
+    }
+
+    private static Map<String, String> parseQuery(String rawQuery) {
+        Map<String, String> params = new HashMap<>();
+        if (rawQuery == null || rawQuery.isEmpty()) {
+            return params;
+        }
+        for (String pair : rawQuery.split("&")) {
+            int eq = pair.indexOf('=');
+            String key = eq < 0 ? pair : pair.substring(0, eq);
+            String value = eq < 0 ? "" : pair.substring(eq + 1);
+            params.put(URLDecoder.decode(key, StandardCharsets.UTF_8), URLDecoder.decode(value, StandardCharsets.UTF_8));
+        }
+        return params;
+    }
+
+    private static int send(HttpExchange exchange, int status, String json) throws IOException {
+        byte[] body = json.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "application/json; charset=utf-8");
+        exchange.sendResponseHeaders(status, body.length);
+        try (OutputStream os = exchange.getResponseBody()) {
+            os.write(body);
+        }
+        return status;
+    }
+
+    /**
+     * Serves a recipe file: {@code java RecipeServer <file> [port] [maxConcurrent]}.
+     *
+     * <p>Defaults to port 8357 and 64 concurrent requests. Runs until killed.
+     */
+    public static void main(String[] args) throws IOException {
+        if (args.length < 1) {
+            System.err.println("Usage: java RecipeServer <recipes.json> [port] [maxConcurrent]");
+            System.exit(2);
+        }
+        RecipeBook book = RecipeJsonStore.load(args[0]);
+        int port = args.length > 1 ? Integer.parseInt(args[1]) : 8357;
+        int maxConcurrent = args.length > 2 ? Integer.parseInt(args[2]) : 64;
+        RecipeServer server = new RecipeServer(book, port, maxConcurrent);
+        server.start();
+        System.out.println("Serving " + book.size() + " recipes on http://localhost:" + server.getPort() + "/");
+    }
+}
@@ -0,0 +1,450 @@
+import java.util.Arrays;
+import java.util.function.IntConsumer;
+
+/**
+ * Compressed set of non-negative ints, split into 65536-value chunks.
+ *
+ * <p>Values are grouped by their high 16 bits. Each group's low 16 bits are kept
+ * in a container that is either a sorted char array (up to {@value #ARRAY_MAX}
+ * values) or a 1024-word bitmap (when denser). Sparse sets therefore cost two
+ * bytes per value, and dense sets one bit per possible value. {@link #and},
+ * {@link #or} and {@link #andNot} combine containers pairwise; two bitmap
+ * containers are combined a 64-bit word at a time.
+ *
+ * <p>The combining methods return new bitmaps and leave their inputs unchanged.
+ * Not thread-safe.
+ */
+class RoaringBitmap {
+    // Above this many values a bitmap container is smaller than an array
+    private static final int ARRAY_MAX = 4096;
+    private static final int WORDS = 1024;
+
+    private char[] keys = new char[4];
+    private Container[] containers = new Container[4];
+    private int size;
+
+    /**
+     * Adds {@code value}.
+     *
+     * @return true if it was not present
+     */
+    boolean add(int value) {
+        checkValue(value);
+        char key = (char) (value >>> 16);
+        int pos = Arrays.binarySearch(keys, 0, size, key);
+        if (pos < 0) {
+            pos = -pos - 1;
+            insert(pos, key, new Container(new char[4], null, 0));
+        }
+        return containers[pos].add((char) value);
+    }
+
+    /**
+     * Removes {@code value}.
+     *
+     * @return true if it was present
+     */
+    boolean remove(int value) {
+        checkValue(value);
+        int pos = Arrays.binarySearch(keys, 0, size, (char) (value >>> 16));
+        if (pos < 0 || !containers[pos].remove((char) value)) {
+            return false;
+        }
+        if (containers[pos].cardinality == 0) {
+            System.arraycopy(keys, pos + 1, keys, pos, size - pos - 1);
+            System.arraycopy(containers, pos + 1, containers, pos, size - pos - 1);
+            containers[--size] = null;
+        }
+        return true;
+    }
+
+    boolean contains(int value) {
+        if (value < 0) {
+            return false;
+        }
+        int pos = Arrays.binarySearch(keys, 0, size, (char) (value >>> 16));
+        return pos >= 0 && containers[pos].contains((char) value);
+    }
+
+    int cardinality() {
+        int total = 0;
+        for (int i = 0; i < size; i++) {
+            total += containers[i].cardinality;
+        }
+        return total;
+    }
+
+    boolean isEmpty() {
+        return size == 0;
+    }
+
+    void clear() {
+        keys = new char[4];
+        containers = new Container[4];
+        size = 0;
+    }
+
+    /**
+     * Calls {@code action} with every value, in increasing order.
+     */
+    void forEach(IntConsumer action) {
+        for (int i = 0; i < size; i++) {
+            containers[i].forEach(keys[i] << 16, action);
+        }
+    }
+
+    /**
+     * Returns the values present in both this and {@code other}.
+     */
+    RoaringBitmap and(RoaringBitmap other) {
+        RoaringBitmap out = new RoaringBitmap();
+        int i = 0;
+        int j = 0;
+        while (i < size && j < other.size) {
+            if (keys[i] < other.keys[j]) {
+                i++;
+            } else if (keys[i] > other.keys[j]) {
+                j++;
+            } else {
+                out.append(keys[i], Container.and(containers[i], other.containers[j]));
+                i++;
+                j++;
+            }
+        }
+        return out;
+    }
+
+    /**
+     * Returns the values present in this or {@code other}.
+     */
+    RoaringBitmap or(RoaringBitmap other) {
+        RoaringBitmap out = new RoaringBitmap();
+        int i = 0;
+        int j = 0;
+        while (i < size || j < other.size) {
+            if (j == other.size || (i < size && keys[i] < other.keys[j])) {
+                out.append(keys[i], containers[i].copy());
+                i++;
+            } else if (i == size || keys[i] > other.keys[j]) {
+                out.append(other.keys[j], other.containers[j].copy());
+                j++;
+            } else {
+                out.append(keys[i], Container.or(containers[i], other.containers[j]));
+                i++;
+                j++;
+            }
+        }
+        return out;
+    }
+
+    /**
+     * Returns the values present in this but not in {@code other}.
+     */
+    RoaringBitmap andNot(RoaringBitmap other) {
+        RoaringBitmap out = new RoaringBitmap();
+        int j = 0;
+        for (int i = 0; i < size; i++) {
+            while (j < other.size && other.keys[j] < keys[i]) {
+                j++;
+            }
+            if (j < other.size && other.keys[j] == keys[i]) {
+                out.append(keys[i], Container.andNot(containers[i], other.containers[j]));
+            } else {
+                out.append(keys[i], containers[i].copy());
+            }
+        }
+        return out;
+    }
+
+    long estimateHeap() {
+        long bytes = HeapEstimator.shallow(RoaringBitmap.class) + HeapEstimator.array(keys.length, Character.BYTES)
+                + HeapEstimator.referenceArray(containers.length);
+        for (int i = 0; i < size; i++) {
+            Container c = containers[i];
+            bytes += HeapEstimator.shallow(Container.class) + (c.words != null
+                    ? HeapEstimator.array(WORDS, Long.BYTES)
+                    : HeapEstimator.array(c.values.length, Character.BYTES));
+        }
+        return bytes;
+    }
+
+    private void append(char key, Container c) {
+        if (c == null) {
+            return;
+        }
+        insert(size, key, c);
+    }
+
+    private void insert(int pos, char key, Container c) {
+        if (size == keys.length) {
+            keys = Arrays.copyOf(keys, size * 2);
+            containers = Arrays.copyOf(containers, size * 2);
+        }
+        System.arraycopy(keys, pos, keys, pos + 1, size - pos);
+        System.arraycopy(containers, pos, containers, pos + 1, size - pos);
+        keys[pos] = key;
+        containers[pos] = c;
+        size++;
+    }
+
+    private static void checkValue(int value) {
+        if (value < 0) {
+            throw new IllegalArgumentException("value must not be negative");
+        }
+    }
+
+    /**
+     * The low 16 bits of the values in one chunk: a sorted array when
+     * {@code words} is null, otherwise a bitmap.
+     */
+    private static class Container {
+        char[] values;
+        long[] words;
+        int cardinality;
+
+        Container(char[] values, long[] words, int cardinality) {
+            this.values = values;
+            this.words = words;
+            this.cardinality = cardinality;
+        }
+
+        boolean contains(char low) {
+            if (words != null) {
+                return (words[low >>> 6] & (1L << low)) != 0;
+            }
+            return Arrays.binarySearch(values, 0, cardinality, low) >= 0;
+        }
+
+        boolean add(char low) {
+            if (words != null) {
+                long bit = 1L << low;
+                if ((words[low >>> 6] & bit) != 0) {
+                    return false;
+                }
+                words[low >>> 6] |= bit;
+                cardinality++;
+                return true;
+            }
+            int pos = Arrays.binarySearch(values, 0, cardinality, low);
+            if (pos >= 0) {
+                return false;
+            }
+            if (cardinality == ARRAY_MAX) {
+                toBitmap();
+                return add(low);
+            }
+            pos = -pos - 1;
+            if (cardinality == values.length) {
+                values = Arrays.copyOf(values, Math.min(ARRAY_MAX, cardinality * 2));
+            }
+            System.arraycopy(values, pos, values, pos + 1, cardinality - pos);
+            values[pos] = low;
+            cardinality++;
+            return true;
+        }
+
+        boolean remove(char low) {
+            if (words != null) {
+                long bit = 1L << low;
+                if ((words[low >>> 6] & bit) == 0) {
+                    return false;
+                }
+                words[low >>> 6] &= ~bit;
+                if (--cardinality <= ARRAY_MAX) {
+                    toArray();
+                }
+                return true;
+            }
+            int pos = Arrays.binarySearch(values, 0, cardinality, low);
+            if (pos < 0) {
+                return false;
+            }
+            System.arraycopy(values, pos + 1, values, pos, cardinality - pos - 1);
+            cardinality--;
+            return true;
+        }
+
+        void forEach(int high, IntConsumer action) {
+            if (words == null) {
+                for (int i = 0; i < cardinality; i++) {
+                    action.accept(high | values[i]);
+                }
+                return;
+            }
+            for (int w = 0; w < WORDS; w++) {
+                long word = words[w];
+                while (word != 0) {
+                    action.accept(high | (w << 6) | Long.numberOfTrailingZeros(word));
+                    word &= word - 1;
+                }
+            }
+        }
+
+        Container copy() {
+            return words != null
+                    ? new Container(null, words.clone(), cardinality)
+                    : new Container(Arrays.copyOf(values, Math.max(1, cardinality)), null, cardinality);
+        }
+
+        private void toBitmap() {
+            long[] bits = new long[WORDS];
+            for (int i = 0; i < cardinality; i++) {
+                bits[values[i] >>> 6] |= 1L << values[i];
+            }
+            words = bits;
+            values = null;
+        }
+
+        private void toArray() {
+            char[] array = new char[Math.max(1, cardinality)];
+            int n = 0;
+            for (int w = 0; w < WORDS; w++) {
+                long word = words[w];
+                while (word != 0) {
+                    array[n++] = (char) ((w << 6) | Long.numberOfTrailingZeros(word));
+                    word &= word - 1;
+                }
+            }
+            values = array;
+            words = null;
+        }
+
+        static Container and(Container a, Container b) {
+            if (a.words != null && b.words != null) {
+                long[] bits = new long[WORDS];
+                int card = 0;
+                for (int w = 0; w < WORDS; w++) {
+                    bits[w] = a.words[w] & b.words[w];
+                    card += Long.bitCount(bits[w]);
+                }
+                return normalize(new Container(null, bits, card));
+            }
+            if (a.words != null) {
+                return filter(b, a, true);
+            }
+            if (b.words != null) {
+                return filter(a, b, true);
+            }
+            char[] out = new char[Math.min(a.cardinality, b.cardinality)];
+            int n = 0;
+            int i = 0;
+            int j = 0;
+            while (i < a.cardinality && j < b.cardinality) {
+                if (a.values[i] < b.values[j]) {
+                    i++;
+                } else if (a.values[i] > b.values[j]) {
+                    j++;
+                } else {
+                    out[n++] = a.values[i];
+                    i++;
+                    j++;
+                }
+            }
+            return normalize(new Container(out, null, n));
+        }
+
+        static Container or(Container a, Container b) {
+            if (a.words != null || b.words != null) {
+                long[] bits = a.words != null ? a.words.clone() : b.words.clone();
+                Container other = a.words != null ? b : a;
+                if (other.words != null) {
+                    for (int w = 0; w < WORDS; w++) {
+                        bits[w] |= other.words[w];
+                    }
+                } else {
+                    for (int i = 0; i < other.cardinality; i++) {
+                        bits[other.values[i] >>> 6] |= 1L << other.values[i];
+                    }
+                }
+                int card = 0;
+                for (long word : bits) {
+                    card += Long.bitCount(word);
+                }
+                return new Container(null, bits, card);
+            }
+            char[] out = new char[a.cardinality + b.cardinality];
+            int n = 0;
+            int i = 0;
+            int j = 0;
+            while (i < a.cardinality || j < b.cardinality) {
+                if (j == b.cardinality || (i < a.cardinality && a.values[i] < b.values[j])) {
+                    out[n++] = a.values[i++];
+                } else if (i == a.cardinality || a.values[i] > b.values[j]) {
+                    out[n++] = b.values[j++];
+                } else {
+                    out[n++] = a.values[i];
+                    i++;
+                    j++;
+                }
+            }
+            return normalize(new Container(out, null, n));
+        }
+
+        static Container andNot(Container a, Container b) {
+            if (a.words != null) {
+                long[] bits = a.words.clone();
+                if (b.words != null) {
+                    for (int w = 0; w < WORDS; w++) {
+                        bits[w] &= ~b.words[w];
+                    }
+                } else {
+                    for (int i = 0; i < b.cardinality; i++) {
+                        bits[b.values[i] >>> 6] &= ~(1L << b.values[i]);
+                    }
+                }
+                int card = 0;
+                for (long word : bits) {
+                    card += Long.bitCount(word);
+                }
+                return normalize(new Container(null, bits, card));
+            }
+            if (b.words != null) {
+                return filter(a, b, false);
+            }
+            char[] out = new char[a.cardinality];
+            int n = 0;
+            int j = 0;
+            for (int i = 0; i < a.cardinality; i++) {
+                while (j < b.cardinality && b.values[j] < a.values[i]) {
+                    j++;
+                }
+                if (j == b.cardinality || b.values[j] != a.values[i]) {
+                    out[n++] = a.values[i];
+                }
+            }
+            return normalize(new Container(out, null, n));
+        }
+
+        /**
+         * Keeps the values of array container {@code a} whose bit in bitmap
+         * container {@code b} equals {@code keep}.
+         */
+        private static Container filter(Container a, Container b, boolean keep) {
+            char[] out = new char[a.cardinality];
+            int n = 0;
+            for (int i = 0; i < a.cardinality; i++) {
+                char v = a.values[i];
+                if (((b.words[v >>> 6] & (1L << v)) != 0) == keep) {
+                    out[n++] = v;
+                }
+            }
+            return normalize(new Container(out, null, n));
+        }
+
+        /**
+         * Returns null for an empty container and switches representation when
+         * the other one is smaller.
+         */
+        private static Container normalize(Container c) {
+            if (c.cardinality == 0) {
+                return null;
+            }
+            if (c.words != null && c.cardinality <= ARRAY_MAX) {
+                c.toArray();
+            } else if (c.words == null && c.cardinality > ARRAY_MAX) {
+                c.toBitmap();
+            }
+            return c;
+        }
+    }
+}
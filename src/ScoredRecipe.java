@@ -0,0 +1,44 @@
+/**
+ * A recipe paired with its relevance score from a ranked search.
+ *
+ * <p>Instances are immutable. Higher scores are more relevant; scores are only
+ * comparable within the results of a single query.
+ */
+public class ScoredRecipe {
+    private final Recipe recipe;
+    private final double score;
+
+    /**
+     * Creates a scored result.
+     *
+     * @param recipe the matching recipe
+     * @param score the relevance score
+     */
+    public ScoredRecipe(Recipe recipe, double score) {
+        this.recipe = recipe;
+        this.score = score;
+    }
+
+    /**
+     * Returns the matching recipe.
+     *
+     * @return the recipe
+     */
+    public Recipe getRecipe() {
+        return recipe;
+    }
+
+    /**
+     * Returns the relevance score.
+     *
+     * @return the score
+     */
+    public double getScore() {
+        return score;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%s (%.3f)", recipe.getName(), score);
+    }
+}
@@ -0,0 +1,446 @@
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Function;
+
+/**
+ * Sharded on-disk catalog: a directory of recipe files plus a small manifest.
+ *
+ * <p>Recipes are assigned to shards by the hash of their name, so every recipe
+ * with a given name lives in one shard. Each shard is an ordinary recipe file
+ * (RecipeJsonStore can load it on its own) with an extra {@code "positions"}
+ * array recording each recipe's index in the whole catalog, which lets a full
+ * load restore the original order. {@code manifest.json} records the layout
+ * and the recipe count of every shard.
+ *
+ * <p>{@link #load} reads every shard in parallel into one RecipeBook.
+ * {@link #open} reads only the manifest and loads shards when a query first
+ * needs them: {@link #findByName} touches one shard, searches touch all of them.
+ * An opened store is safe to query from several threads.
+ */
+public class ShardedRecipeStore {
+    static final String MANIFEST = "manifest.json";
+    private static final int FORMAT = 1;
+    private static final String PARTITION = "name-hash";
+    private static final int WRITE_BUFFER_SIZE = 1 << 16;
+
+    private final Path dir;
+    private final int[] counts;
+    private final int totalRecipes;
+    // Shards loaded so far, with each recipe's position in the whole catalog
+    private final RecipeBook[] shards;
+    private final List<Map<Recipe, Integer>> positions;
+
+    private ShardedRecipeStore(Path dir, int[] counts) {
+        this.dir = dir;
+        this.counts = counts;
+        int total = 0;
+        for (int c : counts) {
+            total += c;
+        }
+        this.totalRecipes = total;
+        this.shards = new RecipeBook[counts.length];
+        this.positions = new ArrayList<>(counts.length);
+        for (int i = 0; i < counts.length; i++) {
+            positions.add(null);
+        }
+    }
+
+    /**
+     * Writes a RecipeBook as a sharded directory, replacing any shards already there.
+     *
+     * <p>The manifest is written last. Saving is not atomic: do not save into a
+     * directory that another process is reading.
+     *
+     * @param book the recipe book to save; must not be null
+     * @param dirPath the directory to write; created if missing
+     * @param shardCount the number of shards; must be positive
+     * @throws IOException if a file cannot be written
+     */
+    public static void save(RecipeBook book, String dirPath, int shardCount) throws IOException {
+        if (book == null) {
+            throw new IllegalArgumentException("RecipeBook must not be null");
+        }
+        if (dirPath == null || dirPath.isBlank()) {
+            throw new IllegalArgumentException("Directory path must not be null or blank");
+        }
+        if (shardCount <= 0) {
+            throw new IllegalArgumentException("shardCount must be positive");
+        }
+        Path dir = Paths.get(dirPath);
+        Files.createDirectories(dir);
+
+        List<Recipe> recipes = book.getAllRecipes();
+        List<byte[]> encoded = RecipeJsonStore.encodeRecipes(book);
+        int[] counts = new int[shardCount];
+        int[] shardOf = new int[recipes.size()];
+        for (int i = 0; i < recipes.size(); i++) {
+            shardOf[i] = shardFor(recipes.get(i).getName(), shardCount);
+            counts[shardOf[i]]++;
+        }
+        for (int s = 0; s < shardCount; s++) {
+            List<byte[]> segments = new ArrayList<>(counts[s]);
+            int[] shardPositions = new int[counts[s]];
+            for (int i = 0; i < recipes.size(); i++) {
+                if (shardOf[i] == s) {
+                    shardPositions[segments.size()] = i;
+                    segments.add(encoded.get(i));
+                }
+            }
+            try (OutputStream out = new BufferedOutputStream(
+                    Files.newOutputStream(dir.resolve(shardFileName(s))), WRITE_BUFFER_SIZE)) {
+                RecipeJsonStore.writeShard(segments, shardPositions, out);
+            }
+        }
+        for (int s = shardCount; Files.deleteIfExists(dir.resolve(shardFileName(s))); s++) {
+            // Remove shards left over from a save with more shards
+        }
+
+        StringBuilder manifest = new StringBuilder();
+        manifest.append("{\"format\":").append(FORMAT)
+                .append(",\"partition\":").append(RecipeJsonStore.escapeJson(PARTITION))
+                .append(",\"recipes\":").append(recipes.size())
+                .append(",\"shards\":[");
+        for (int s = 0; s < shardCount; s++) {
+            if (s > 0) manifest.append(",");
+            manifest.append(counts[s]);
+        }
+        manifest.append("]}");
+        Files.writeString(dir.resolve(MANIFEST), manifest.toString(), StandardCharsets.UTF_8);
+        book.markSaved();
+    }
+
+    /**
+     * Loads every shard of a sharded directory in parallel into one RecipeBook,
+     * in the order the recipes were saved.
+     *
+     * @param dirPath the directory written by {@link #save}
+     * @return a new RecipeBook with all recipes
+     * @throws IOException if the manifest or a shard cannot be read or is invalid
+     */
+    public static RecipeBook load(String dirPath) throws IOException {
+        ShardedRecipeStore store = open(dirPath);
+        store.loadAll();
+        Recipe[] ordered = new Recipe[store.totalRecipes];
+        for (Map<Recipe, Integer> shardPositions : store.positions) {
+            for (Map.Entry<Recipe, Integer> e : shardPositions.entrySet()) {
+                ordered[e.getValue()] = e.getKey();
+            }
+        }
+        // Detach the recipes from the per-shard books before handing them over
+        for (RecipeBook shard : store.shards) {
+            shard.clear();
+        }
+        RecipeBook book = new RecipeBook();
+        for (int i = 0; i < ordered.length; i++) {
+            if (ordered[i] == null) {
+                throw new IOException("No shard holds the recipe at position " + i);
+            }
+            book.addRecipe(ordered[i]);
+        }
+        book.markSaved();
+        return book;
+    }
+
+    /**
+     * Opens a sharded directory for lazy querying. Only the manifest is read.
+     *
+     * @param dirPath the directory written by {@link #save}
+     * @return a store that loads shards on first use
+     * @throws IOException if the manifest cannot be read or is invalid
+     */
+    public static ShardedRecipeStore open(String dirPath) throws IOException {
+        if (dirPath == null || dirPath.isBlank()) {
+            throw new IllegalArgumentException("Directory path must not be null or blank");
+        }
+        Path dir = Paths.get(dirPath);
+        Path manifest = dir.resolve(MANIFEST);
+        if (!Files.exists(manifest)) {
+            throw new IOException("Manifest not found: " + manifest);
+        }
+        return new ShardedRecipeStore(dir, parseManifest(Files.readString(manifest, StandardCharsets.UTF_8)));
+    }
+
+    /**
+     * Returns the number of recipes in the catalog, without loading any shard.
+     *
+     * @return the recipe count from the manifest
+     */
+    public int size() {
+        return totalRecipes;
+    }
+
+    /**
+     * Returns the number of shards in the catalog.
+     *
+     * @return the shard count
+     */
+    public int shardCount() {
+        return counts.length;
+    }
+
+    /**
+     * Returns how many shards have been loaded so far.
+     *
+     * @return the number of loaded shards
+     */
+    public synchronized int loadedShardCount() {
+        int loaded = 0;
+        for (RecipeBook shard : shards) {
+            if (shard != null) loaded++;
+        }
+        return loaded;
+    }
+
+    /**
+     * Returns the first saved recipe with exactly this name (case-sensitive),
+     * loading only the shard it belongs to.
+     *
+     * @param name the recipe name
+     * @return the recipe, or null if there is none
+     * @throws IOException if the shard cannot be read
+     */
+    public Recipe findByName(String name) throws IOException {
+        if (name == null) {
+            return null;
+        }
+        int s = shardFor(name, counts.length);
+        RecipeBook shard = shard(s);
+        Recipe found = null;
+        synchronized (shard) {
+            for (Recipe r : shard.getAllRecipes()) {
+                if (r.getName().equals(name)) {
+                    found = r;
+                    break;
+                }
+            }
+        }
+        return found;
+    }
+
+    /**
+     * Searches every shard like {@link RecipeBook#search}, loading any shard not yet loaded.
+     *
+     * @param query the query
+     * @return the matching recipes in saved order
+     * @throws IOException if a shard cannot be read
+     */
+    public List<Recipe> search(String query) throws IOException {
+        return searchAll(shard -> shard.search(query));
+    }
+
+    /**
+     * Searches every shard like {@link RecipeBook#searchByName}.
+     *
+     * @param query the query
+     * @return the matching recipes in saved order
+     * @throws IOException if a shard cannot be read
+     */
+    public List<Recipe> searchByName(String query) throws IOException {
+        return searchAll(shard -> shard.searchByName(query));
+    }
+
+    /**
+     * Searches every shard like {@link RecipeBook#searchByIngredient}.
+     *
+     * @param query the query
+     * @return the matching recipes in saved order
+     * @throws IOException if a shard cannot be read
+     */
+    public List<Recipe> searchByIngredient(String query) throws IOException {
+        return searchAll(shard -> shard.searchByIngredient(query));
+    }
+
+    /**
+     * Returns the shard a recipe name belongs to.
+     */
+    static int shardFor(String name, int shardCount) {
+        return Math.floorMod(name.hashCode(), shardCount);
+    }
+
+    static String shardFileName(int shard) {
+        return String.format("shard-%04d.json", shard);
+    }
+
+    private List<Recipe> searchAll(Function<RecipeBook, List<Recipe>> query) throws IOException {
+        loadAll();
+        List<Recipe> hits = new ArrayList<>();
+        List<Integer> hitPositions = new ArrayList<>();
+        for (int s = 0; s < shards.length; s++) {
+            RecipeBook shard = shard(s);
+            Map<Recipe, Integer> shardPositions = positionsOf(s);
+            synchronized (shard) {
+                for (Recipe r : query.apply(shard)) {
+                    hits.add(r);
+                    hitPositions.add(shardPositions.get(r));
+                }
+            }
+        }
+        Integer[] order = new Integer[hits.size()];
+        for (int i = 0; i < order.length; i++) {
+            order[i] = i;
+        }
+        Arrays.sort(order, (a, b) -> Integer.compare(hitPositions.get(a), hitPositions.get(b)));
+        List<Recipe> results = new ArrayList<>(order.length);
+        for (Integer i : order) {
+            results.add(hits.get(i));
+        }
+        return results;
+    }
+
+    /**
+     * Loads every shard not loaded yet, in parallel.
+     */
+    private void loadAll() throws IOException {
+        List<Integer> missing = new ArrayList<>();
+        synchronized (this) {
+            for (int s = 0; s < shards.length; s++) {
+                if (shards[s] == null) missing.add(s);
+            }
+        }
+        if (missing.isEmpty()) {
+            return;
+        }
+        int threads = Math.min(missing.size(), Runtime.getRuntime().availableProcessors());
+        if (threads <= 1) {
+            for (int s : missing) {
+                shard(s);
+            }
+            return;
+        }
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<RecipeBook>> loads = new ArrayList<>();
+            for (int s : missing) {
+                loads.add(pool.submit(() -> shard(s)));
+            }
+            for (Future<RecipeBook> f : loads) {
+                f.get();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while loading shards", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof IOException) {
+                throw (IOException) e.getCause();
+            }
+            throw new IOException("Failed to load shard: " + e.getCause(), e.getCause());
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    /**
+     * Returns shard {@code s}, reading it on first use. Shards are read outside
+     * the lock so different shards load concurrently.
+     */
+    private RecipeBook shard(int s) throws IOException {
+        synchronized (this) {
+            if (shards[s] != null) return shards[s];
+        }
+        List<Integer> shardPositions = new ArrayList<>();
+        RecipeBook shard = RecipeJsonStore.loadShard(dir.resolve(shardFileName(s)), shardPositions);
+        List<Recipe> recipes = shard.getAllRecipes();
+        if (recipes.size() != counts[s] || shardPositions.size() != counts[s]) {
+            throw new IOException("Shard " + s + ": expected " + counts[s] + " recipes and positions");
+        }
+        Map<Recipe, Integer> byRecipe = new IdentityHashMap<>();
+        for (int i = 0; i < recipes.size(); i++) {
+            int position = shardPositions.get(i);
+            if (position < 0 || position >= totalRecipes) {
+                throw new IOException("Shard " + s + ": position " + position + " out of range");
+            }
+            byRecipe.put(recipes.get(i), position);
+        }
+        synchronized (this) {
+            if (shards[s] == null) {
+                shards[s] = shard;
+                positions.set(s, byRecipe);
+            }
+            return shards[s];
+        }
+    }
+
+    private synchronized Map<Recipe, Integer> positionsOf(int s) {
+        return positions.get(s);
+    }
+
+    private static int[] parseManifest(String json) throws IOException {
+        RecipeJsonStore.Parser p = new RecipeJsonStore.Parser(json);
+        Integer format = null;
+        String partition = null;
+        Integer recipes = null;
+        List<Integer> counts = null;
+        try {
+            if (!p.expect('{')) {
+                throw new IOException("Manifest: expected '{'");
+            }
+            while (p.peek() != '}') {
+                String key = p.parseString();
+                if (!p.expect(':')) {
+                    throw new IOException("Manifest: expected ':' after '" + key + "'");
+                }
+                if ("format".equals(key)) {
+                    format = p.parseInt();
+                } else if ("partition".equals(key)) {
+                    partition = p.parseString();
+                } else if ("recipes".equals(key)) {
+                    recipes = p.parseInt();
+                } else if ("shards".equals(key)) {
+                    if (!p.expect('[')) {
+                        throw new IOException("Manifest: expected '[' for shards");
+                    }
+                    counts = new ArrayList<>();
+                    if (p.peek() != ']') {
+                        do {
+                            counts.add(p.parseInt());
+                        } while (p.expect(','));
+                    }
+                    if (!p.expect(']')) {
+                        throw new IOException("Manifest: expected ']' to close shards");
+                    }
+                } else {
+                    p.skipValue();
+                }
+                p.expect(',');
+            }
+        } catch (RecipeJsonStore.ParseException e) {
+            throw new IOException("Manifest: " + e.getMessage(), e);
+        }
+        if (format == null || format != FORMAT) {
+            throw new IOException("Manifest: unsupported format " + format);
+        }
+        if (!PARTITION.equals(partition)) {
+            throw new IOException("Manifest: unsupported partition " + partition);
+        }
+        if (counts == null || counts.isEmpty()) {
+            throw new IOException("Manifest: missing 'shards'");
+        }
+        int[] result = new int[counts.size()];
+        long total = 0;
+        for (int i = 0; i < result.length; i++) {
+            if (counts.get(i) < 0) {
+                throw new IOException("Manifest: shard " + i + " has a negative count");
+            }
+            result[i] = counts.get(i);
+            total += result[i];
+        }
+        if (recipes == null || recipes != total) {
+            throw new IOException("Manifest: 'recipes' does not match the shard counts");
+        }
+        return result;
+    }
+}
@@ -1,76 +1,270 @@
 import java.util.ArrayList;
 import java.util.Collections;
-import java.util.LinkedHashMap;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 /**
  * Aggregates ingredients from multiple recipes into a combined shopping list.
  *
  * <p>Ingredients with the same normalized name (case-insensitive) are combined
- * by summing their amounts. Original recipes are never modified. Output uses
- * the same amount formatting rules as Recipe.
+ * by summing their amounts. Names ending in a {@link Unit} of the same dimension,
+ * such as "butter (tbsp)" and "Butter (cup)", are combined too, converting to
+ * the unit seen first. Original recipes are never modified. Output uses
+ * the same amount formatting rules as Recipe. {@link #aggregateAll} builds many
+ * carts in one pass, sharing the work for recipes that appear in several.
  */
 public class ShoppingCart {
+    // Below this many carts per thread, starting threads costs more than it saves
+    private static final int MIN_CARTS_PER_THREAD = 64;
+    private static final int MAX_FORMATTED = 4096;
 
     /**
      * Aggregates ingredients from the given recipes into a single combined list.
      *
      * <p>Ingredients are matched by normalized name (trimmed, case-insensitive).
-     * Amounts for matching ingredients are summed. The display name is taken
+     * Amounts for matching ingredients are summed. Ingredients whose names
+     * differ only in a unit of the same dimension also match; their amounts are
+     * converted to the unit of the first occurrence, using the unit each
+     * Ingredient parsed when it was created. The display name is taken
      * from the first occurrence. Results are returned sorted alphabetically
      * by ingredient name (case-insensitive).
      *
      * @param recipes the recipes to aggregate; may be null or empty
      * @return a new list of aggregated ingredients, each as "amount name"
+     * @throws IllegalArgumentException if recipes contains null
      */
     public static List<String> aggregate(List<Recipe> recipes) {
         if (recipes == null || recipes.isEmpty()) {
             return new ArrayList<>();
         }
+        return aggregateAll(Collections.singletonList(recipes)).get(0);
+    }
+
+    /**
+     * Aggregates many carts at once; element i of the result is exactly what
+     * {@link #aggregate} returns for cart i.
+     *
+     * <p>Each distinct recipe (by identity) is read and normalized once for the
+     * whole batch, however many carts contain it, and every distinct ingredient
+     * name gets a small integer id. The carts are then split into contiguous
+     * ranges aggregated in parallel, one thread per processor, each summing into
+     * its own arrays indexed by id instead of a map keyed by lowercased name.
+     *
+     * <p>The recipes must not be modified while this runs.
+     *
+     * @param carts the carts to aggregate; must not be null. A null or empty
+     *        cart aggregates to an empty list.
+     * @return a new list with one aggregated list per cart, in order
+     * @throws IllegalArgumentException if carts is null or a cart contains a null recipe
+     */
+    public static List<List<String>> aggregateAll(List<List<Recipe>> carts) {
+        if (carts == null) {
+            throw new IllegalArgumentException("Carts must not be null");
+        }
+        Batch batch = new Batch();
+        List<IngredientVector[]> prepared = new ArrayList<>(carts.size());
+        for (List<Recipe> cart : carts) {
+            prepared.add(batch.prepare(cart));
+        }
+
+        List<List<String>> results = new ArrayList<>(Collections.nCopies(carts.size(), null));
+        int threads = Math.min(carts.size() / MIN_CARTS_PER_THREAD, Runtime.getRuntime().availableProcessors());
+        if (threads <= 1) {
+            new Aggregator(batch).run(prepared, 0, prepared.size(), results);
+            return results;
+        }
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<?>> ranges = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                int from = (int) ((long) prepared.size() * t / threads);
+                int to = (int) ((long) prepared.size() * (t + 1) / threads);
+                // Each range writes only its own slots of results
+                ranges.add(pool.submit(() -> new Aggregator(batch).run(prepared, from, to, results)));
+            }
+            for (Future<?> f : ranges) {
+                f.get();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while aggregating carts", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw new IllegalStateException("Failed to aggregate carts: " + e.getCause(), e.getCause());
+        } finally {
+            pool.shutdown();
+        }
+        return results;
+    }
 
-        // Key: normalized name (lowercase, trimmed). Value: display name + total amount
-        Map<String, AggregatedIngredient> map = new LinkedHashMap<>();
-
-        for (Recipe r : recipes) {
-            List<String> names = r.getIngredientNames();
-            List<Double> amounts = r.getIngredientAmounts();
-            for (int i = 0; i < names.size(); i++) {
-                String name = names.get(i);
-                if (name == null) continue;
-                String trimmed = name.trim();
-                if (trimmed.isEmpty()) continue;
-                Double boxed = (i < amounts.size()) ? amounts.get(i) : null;
-                double amount = (boxed != null) ? boxed : 0;
-                if (amount <= 0) continue;
-
-                String normalized = trimmed.toLowerCase();
-                if (map.containsKey(normalized)) {
-                    AggregatedIngredient agg = map.get(normalized);
-                    agg.amount += amount;
-                } else {
-                    map.put(normalized, new AggregatedIngredient(trimmed, amount));
+    /**
+     * Ingredient ids and normalized recipe contents shared by every cart of one
+     * {@link #aggregateAll} call. Filled in before aggregation starts and only
+     * read afterwards, so the aggregating threads need no locking.
+     */
+    private static class Batch {
+        final Map<String, Integer> ids = new HashMap<>();
+        final Map<Recipe, IngredientVector> vectors = new IdentityHashMap<>();
+
+        IngredientVector[] prepare(List<Recipe> cart) {
+            if (cart == null) {
+                return new IngredientVector[0];
+            }
+            IngredientVector[] out = new IngredientVector[cart.size()];
+            for (int i = 0; i < out.length; i++) {
+                Recipe r = cart.get(i);
+                if (r == null) {
+                    throw new IllegalArgumentException("Carts must not contain null recipes");
                 }
+                IngredientVector v = vectors.get(r);
+                if (v == null) {
+                    v = vectorOf(r);
+                    vectors.put(r, v);
+                }
+                out[i] = v;
             }
+            return out;
         }
 
-        // Build sorted list for output
-        List<AggregatedIngredient> aggregated = new ArrayList<>(map.values());
-        Collections.sort(aggregated, (a, b) -> {
-            int cmp = a.displayName.compareToIgnoreCase(b.displayName);
-            return cmp != 0 ? cmp : a.displayName.compareTo(b.displayName);
-        });
+        int idCount() {
+            return ids.size();
+        }
 
-        List<String> result = new ArrayList<>();
-        for (AggregatedIngredient agg : aggregated) {
-            result.add(formatAmount(agg.amount) + " " + agg.displayName);
+        private IngredientVector vectorOf(Recipe r) {
+            List<Ingredient> ingredients = r.ingredientList();
+            int[] idOf = new int[ingredients.size()];
+            String[] names = new String[ingredients.size()];
+            double[] amounts = new double[ingredients.size()];
+            Unit[] units = new Unit[ingredients.size()];
+            int n = 0;
+            for (Ingredient ingredient : ingredients) {
+                // Ingredient names are already trimmed and non-blank, amounts positive.
+                // Amounts with units of one dimension share an id and are converted when summed.
+                Unit unit = ingredient.getUnit();
+                String normalized = unit == null
+                        ? ingredient.getName().toLowerCase()
+                        : ingredient.getBaseName().toLowerCase() + '\0' + unit.getDimension();
+                Integer id = ids.get(normalized);
+                if (id == null) {
+                    id = ids.size();
+                    ids.put(normalized, id);
+                }
+                idOf[n] = id;
+                names[n] = ingredient.getName();
+                amounts[n] = ingredient.getAmount();
+                units[n] = unit;
+                n++;
+            }
+            return new IngredientVector(idOf, names, amounts, units);
+        }
+    }
+
+    /**
+     * One recipe's ingredients as parallel arrays of ingredient id, display name,
+     * amount and unit (null if none), in recipe order.
+     */
+    private static class IngredientVector {
+        final int[] ids;
+        final String[] names;
+        final double[] amounts;
+        final Unit[] units;
+
+        IngredientVector(int[] ids, String[] names, double[] amounts, Unit[] units) {
+            this.ids = ids;
+            this.names = names;
+            this.amounts = amounts;
+            this.units = units;
+        }
+    }
+
+    /**
+     * Aggregates carts on one thread, reusing arrays indexed by ingredient id.
+     * A slot belongs to the current cart only if its stamp is the cart's number,
+     * so nothing is cleared between carts.
+     */
+    private static class Aggregator {
+        final double[] totals;
+        final String[] displayNames;
+        final Unit[] lineUnits;
+        final int[] stamps;
+        final int[] touched;
+        // Formatted amounts by value; carts built from the same recipes repeat totals
+        final Map<Double, String> formatted = new HashMap<>();
+
+        Aggregator(Batch batch) {
+            totals = new double[batch.idCount()];
+            displayNames = new String[totals.length];
+            lineUnits = new Unit[totals.length];
+            stamps = new int[totals.length];
+            touched = new int[totals.length];
+        }
+
+        void run(List<IngredientVector[]> carts, int from, int to, List<List<String>> results) {
+            for (int c = from; c < to; c++) {
+                results.set(c, aggregate(carts.get(c), c + 1));
+            }
+        }
+
+        private List<String> aggregate(IngredientVector[] cart, int stamp) {
+            int count = 0;
+            for (IngredientVector v : cart) {
+                for (int i = 0; i < v.ids.length; i++) {
+                    int id = v.ids[i];
+                    if (stamps[id] != stamp) {
+                        // First occurrence in this cart names the line and picks its unit
+                        stamps[id] = stamp;
+                        displayNames[id] = v.names[i];
+                        lineUnits[id] = v.units[i];
+                        totals[id] = v.amounts[i];
+                        touched[count++] = id;
+                    } else if (v.units[i] == null) {
+                        totals[id] += v.amounts[i];
+                    } else {
+                        totals[id] += v.units[i].convert(v.amounts[i], lineUnits[id]);
+                    }
+                }
+            }
+
+            List<AggregatedIngredient> aggregated = new ArrayList<>(count);
+            for (int k = 0; k < count; k++) {
+                aggregated.add(new AggregatedIngredient(displayNames[touched[k]], totals[touched[k]]));
+            }
+            Collections.sort(aggregated, (a, b) -> {
+                int cmp = a.displayName.compareToIgnoreCase(b.displayName);
+                return cmp != 0 ? cmp : a.displayName.compareTo(b.displayName);
+            });
+
+            List<String> result = new ArrayList<>(count);
+            for (AggregatedIngredient agg : aggregated) {
+                result.add(format(agg.amount) + " " + agg.displayName);
+            }
+            return result;
+        }
+
+        private String format(double amount) {
+            String s = formatted.get(amount);
+            if (s == null) {
+                if (formatted.size() == MAX_FORMATTED) {
+                    formatted.clear();
+                }
+                s = formatAmount(amount);
+                formatted.put(amount, s);
+            }
+            return s;
         }
-        return result;
     }
 
     private static class AggregatedIngredient {
         final String displayName;
-        double amount;
+        final double amount;
 
         AggregatedIngredient(String displayName, double amount) {
             this.displayName = displayName;
@@ -0,0 +1,94 @@
+import java.nio.ByteBuffer;
+import java.nio.charset.CharacterCodingException;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Deduplicates strings decoded from UTF-8 bytes while a file is parsed.
+ *
+ * <p>A catalog repeats the same ingredient names thousands of times. Looking up
+ * the raw bytes here returns the String decoded the first time, so a repeat costs
+ * a hash and a byte comparison and allocates nothing, and every recipe using
+ * the name shares one instance. The pool is meant to live for one load; it is
+ * not thread-safe.
+ */
+class StringPool {
+    private byte[][] keys = new byte[256][];
+    private String[] values = new String[256];
+    private int[] hashes = new int[256];
+    private int size;
+    private final CharsetDecoder decoder = StandardCharsets.UTF_8.newDecoder()
+            .onMalformedInput(CodingErrorAction.REPORT)
+            .onUnmappableCharacter(CodingErrorAction.REPORT);
+
+    /**
+     * Returns the string for {@code bytes[0..length)}, decoding it only if it has
+     * not been seen before.
+     *
+     * @throws CharacterCodingException if the bytes are not valid UTF-8
+     */
+    String intern(byte[] bytes, int length) throws CharacterCodingException {
+        int hash = 1;
+        for (int i = 0; i < length; i++) {
+            hash = 31 * hash + bytes[i];
+        }
+        int mask = keys.length - 1;
+        int slot = mix(hash) & mask;
+        while (keys[slot] != null) {
+            if (hashes[slot] == hash && Arrays.equals(keys[slot], 0, keys[slot].length, bytes, 0, length)) {
+                return values[slot];
+            }
+            slot = (slot + 1) & mask;
+        }
+        String value = decode(bytes, length);
+        keys[slot] = Arrays.copyOf(bytes, length);
+        values[slot] = value;
+        hashes[slot] = hash;
+        if (++size * 2 > keys.length) {
+            grow();
+        }
+        return value;
+    }
+
+    /**
+     * Returns the number of distinct strings in the pool.
+     */
+    int size() {
+        return size;
+    }
+
+    private String decode(byte[] bytes, int length) throws CharacterCodingException {
+        for (int i = 0; i < length; i++) {
+            if (bytes[i] < 0) {
+                return decoder.decode(ByteBuffer.wrap(bytes, 0, length)).toString();
+            }
+        }
+        return new String(bytes, 0, length, StandardCharsets.US_ASCII);
+    }
+
+    private void grow() {
+        byte[][] oldKeys = keys;
+        String[] oldValues = values;
+        int[] oldHashes = hashes;
+        keys = new byte[oldKeys.length * 2][];
+        values = new String[keys.length];
+        hashes = new int[keys.length];
+        int mask = keys.length - 1;
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldKeys[i] == null) continue;
+            int slot = mix(oldHashes[i]) & mask;
+            while (keys[slot] != null) {
+                slot = (slot + 1) & mask;
+            }
+            keys[slot] = oldKeys[i];
+            values[slot] = oldValues[i];
+            hashes[slot] = oldHashes[i];
+        }
+    }
+
+    private static int mix(int hash) {
+        return hash ^ (hash >>> 16);
+    }
+}
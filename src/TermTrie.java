@@ -0,0 +1,345 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.PriorityQueue;
+
+/**
+ * Character trie over a set of terms, supporting typo-tolerant lookup and
+ * weighted prefix completion.
+ *
+ * <p>{@link #within} walks the trie while carrying one row of the Levenshtein
+ * matrix per node, which simulates a Levenshtein automaton for the query over
+ * every stored term at once. A subtree is abandoned as soon as every entry of
+ * its row exceeds the distance limit, so only the small neighbourhood of the
+ * query is visited regardless of how many terms are stored. Rows are computed
+ * only within {@code maxDistance} of the diagonal.
+ *
+ * <p>Every term carries a positive weight, and every node records the largest
+ * weight in its subtree. {@link #complete} uses these to visit subtrees best
+ * first and stops after the requested number of terms, so its cost depends on
+ * the number of completions asked for rather than on how many terms share the
+ * prefix.
+ *
+ * <p>Not thread-safe.
+ */
+class TermTrie {
+    private final Node root = new Node();
+    private int size;
+
+    /**
+     * Adds {@code term} if it is not already present.
+     *
+     * @return true if the term was added
+     */
+    boolean add(String term) {
+        if (contains(term)) {
+            return false;
+        }
+        setWeight(term, 1);
+        return true;
+    }
+
+    /**
+     * Sets the weight of {@code term}, adding it if absent. A weight of zero
+     * removes the term.
+     *
+     * @throws IllegalArgumentException if weight is negative
+     */
+    void setWeight(String term, int weight) {
+        if (weight < 0) {
+            throw new IllegalArgumentException("weight must not be negative");
+        }
+        if (weight == 0) {
+            remove(term);
+            return;
+        }
+        Node[] path = new Node[term.length() + 1];
+        Node node = root;
+        path[0] = node;
+        for (int i = 0; i < term.length(); i++) {
+            node = node.childOrCreate(term.charAt(i));
+            path[i + 1] = node;
+        }
+        if (node.term == null) {
+            node.term = term;
+            size++;
+        }
+        node.weight = weight;
+        updateMaxWeights(path, term.length());
+    }
+
+    /**
+     * Removes {@code term} if present. Emptied branches are pruned.
+     *
+     * @return true if the term was removed
+     */
+    boolean remove(String term) {
+        Node[] path = new Node[term.length() + 1];
+        Node node = root;
+        path[0] = node;
+        for (int i = 0; i < term.length(); i++) {
+            node = node.child(term.charAt(i));
+            if (node == null) {
+                return false;
+            }
+            path[i + 1] = node;
+        }
+        if (node.term == null) {
+            return false;
+        }
+        node.term = null;
+        node.weight = 0;
+        size--;
+        int depth = term.length();
+        while (depth > 0 && path[depth].term == null && path[depth].childCount == 0) {
+            path[depth - 1].removeChild(term.charAt(depth - 1));
+            depth--;
+        }
+        updateMaxWeights(path, depth);
+        return true;
+    }
+
+    /**
+     * Returns up to {@code limit} terms starting with {@code prefix}, by descending
+     * weight and then alphabetically.
+     */
+    List<String> complete(String prefix, int limit) {
+        List<String> out = new ArrayList<>();
+        Node start = find(prefix);
+        if (start == null || limit <= 0) {
+            return out;
+        }
+        // Nodes are keyed by their path and never outrank their own descendants,
+        // so terms leave the queue in (weight desc, term asc) order
+        PriorityQueue<Candidate> queue = new PriorityQueue<>();
+        queue.add(new Candidate(prefix, start, start.maxWeight));
+        while (!queue.isEmpty() && out.size() < limit) {
+            Candidate c = queue.poll();
+            if (c.node == null) {
+                out.add(c.key);
+                continue;
+            }
+            if (c.node.term != null) {
+                queue.add(new Candidate(c.node.term, null, c.node.weight));
+            }
+            for (int i = 0; i < c.node.childCount; i++) {
+                Node child = c.node.children[i];
+                queue.add(new Candidate(c.key + c.node.keys[i], child, child.maxWeight));
+            }
+        }
+        return out;
+    }
+
+    /**
+     * Returns the weight of {@code term}, or 0 if it is not stored.
+     */
+    int weight(String term) {
+        Node node = find(term);
+        return node == null || node.term == null ? 0 : node.weight;
+    }
+
+    private void updateMaxWeights(Node[] path, int depth) {
+        for (int i = depth; i >= 0; i--) {
+            Node n = path[i];
+            int max = n.term != null ? n.weight : 0;
+            for (int c = 0; c < n.childCount; c++) {
+                max = Math.max(max, n.children[c].maxWeight);
+            }
+            if (n.maxWeight == max && i < depth) {
+                break;
+            }
+            n.maxWeight = max;
+        }
+    }
+
+    /**
+     * Returns true if {@code term} is stored.
+     */
+    boolean contains(String term) {
+        Node node = find(term);
+        return node != null && node.term != null;
+    }
+
+    /**
+     * Returns the number of stored terms.
+     */
+    int size() {
+        return size;
+    }
+
+    /**
+     * Estimates the heap bytes of the trie's nodes and terms.
+     */
+    long estimateHeap(HeapEstimator est) {
+        long bytes = HeapEstimator.shallow(TermTrie.class);
+        List<Node> stack = new ArrayList<>();
+        stack.add(root);
+        while (!stack.isEmpty()) {
+            Node node = stack.remove(stack.size() - 1);
+            bytes += HeapEstimator.shallow(Node.class) + est.string(node.term);
+            if (node.keys != null) {
+                bytes += HeapEstimator.array(node.keys.length, Character.BYTES)
+                        + HeapEstimator.referenceArray(node.children.length);
+                for (int i = 0; i < node.childCount; i++) {
+                    stack.add(node.children[i]);
+                }
+            }
+        }
+        return bytes;
+    }
+
+    /**
+     * Removes all terms.
+     */
+    void clear() {
+        root.keys = null;
+        root.children = null;
+        root.childCount = 0;
+        root.term = null;
+        root.weight = 0;
+        root.maxWeight = 0;
+        size = 0;
+    }
+
+    /**
+     * Returns every stored term within {@code maxDistance} Levenshtein edits of {@code query}.
+     */
+    List<String> within(String query, int maxDistance) {
+        List<String> out = new ArrayList<>();
+        int n = query.length();
+        int[] first = new int[n + 1];
+        for (int j = 0; j <= n; j++) {
+            first[j] = j;
+        }
+        if (root.term != null && n <= maxDistance) {
+            out.add(root.term);
+        }
+        // One scratch row per depth, reused across siblings
+        List<int[]> rows = new ArrayList<>();
+        rows.add(first);
+        walk(root, query, maxDistance, 1, rows, out);
+        return out;
+    }
+
+    private void walk(Node node, String query, int maxDistance, int depth, List<int[]> rows, List<String> out) {
+        int n = query.length();
+        if (rows.size() <= depth) {
+            rows.add(new int[n + 1]);
+        }
+        int[] prev = rows.get(depth - 1);
+        int[] row = rows.get(depth);
+        // Only cells within maxDistance of the diagonal can stay under the limit
+        int lo = Math.max(1, depth - maxDistance);
+        int hi = Math.min(n, depth + maxDistance);
+        int cap = maxDistance + 1;
+        for (int c = 0; c < node.childCount; c++) {
+            char ch = node.keys[c];
+            Node child = node.children[c];
+            row[0] = Math.min(depth, cap);
+            row[lo - 1] = lo == 1 ? row[0] : cap;
+            int rowMin = lo == 1 ? row[0] : cap;
+            for (int j = lo; j <= hi; j++) {
+                int cost = query.charAt(j - 1) == ch ? 0 : 1;
+                int v = Math.min(Math.min(row[j - 1] + 1, prev[j] + 1), prev[j - 1] + cost);
+                v = Math.min(v, cap);
+                row[j] = v;
+                if (v < rowMin) rowMin = v;
+            }
+            if (hi < n) {
+                row[hi + 1] = cap;
+            }
+            if (child.term != null && hi == n && row[n] <= maxDistance) {
+                out.add(child.term);
+            }
+            if (rowMin <= maxDistance && child.childCount > 0) {
+                walk(child, query, maxDistance, depth + 1, rows, out);
+            }
+        }
+    }
+
+    /**
+     * Returns the node reached by following {@code prefix}, or null.
+     */
+    Node find(String prefix) {
+        Node node = root;
+        for (int i = 0; i < prefix.length() && node != null; i++) {
+            node = node.child(prefix.charAt(i));
+        }
+        return node;
+    }
+
+    private static class Candidate implements Comparable<Candidate> {
+        final String key;
+        // null when this candidate is a finished term
+        final Node node;
+        final int weight;
+
+        Candidate(String key, Node node, int weight) {
+            this.key = key;
+            this.node = node;
+            this.weight = weight;
+        }
+
+        @Override
+        public int compareTo(Candidate o) {
+            if (weight != o.weight) {
+                return Integer.compare(o.weight, weight);
+            }
+            int cmp = key.compareTo(o.key);
+            if (cmp != 0) {
+                return cmp;
+            }
+            // A finished term precedes the node it was found at
+            return Boolean.compare(node != null, o.node != null);
+        }
+    }
+
+    static class Node {
+        // Children are kept sorted by key for binary search
+        char[] keys;
+        Node[] children;
+        int childCount;
+        String term;
+        int weight;
+        // Largest weight of any term in this subtree
+        int maxWeight;
+
+        Node child(char c) {
+            if (childCount == 0) return null;
+            int pos = Arrays.binarySearch(keys, 0, childCount, c);
+            return pos >= 0 ? children[pos] : null;
+        }
+
+        Node childOrCreate(char c) {
+            if (keys == null) {
+                keys = new char[2];
+                children = new Node[2];
+            }
+            int pos = Arrays.binarySearch(keys, 0, childCount, c);
+            if (pos >= 0) {
+                return children[pos];
+            }
+            pos = -pos - 1;
+            if (childCount == keys.length) {
+                keys = Arrays.copyOf(keys, childCount * 2);
+                children = Arrays.copyOf(children, childCount * 2);
+            }
+            System.arraycopy(keys, pos, keys, pos + 1, childCount - pos);
+            System.arraycopy(children, pos, children, pos + 1, childCount - pos);
+            Node created = new Node();
+            keys[pos] = c;
+            children[pos] = created;
+            childCount++;
+            return created;
+        }
+
+        void removeChild(char c) {
+            int pos = Arrays.binarySearch(keys, 0, childCount, c);
+            if (pos < 0) return;
+            System.arraycopy(keys, pos + 1, keys, pos, childCount - pos - 1);
+            System.arraycopy(children, pos + 1, children, pos, childCount - pos - 1);
+            childCount--;
+            children[childCount] = null;
+        }
+    }
+}
@@ -0,0 +1,101 @@
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * A unit of measure written in parentheses after an ingredient name, as in
+ * "olive oil (cup)" or "spaghetti (g)".
+ *
+ * <p>Units of the same {@link Dimension} convert into each other with
+ * {@link #convert}, which looks the factor up in a table built once.
+ */
+public enum Unit {
+    TEASPOON(Dimension.VOLUME, 4.92892159375, "tsp", "teaspoon", "teaspoons"),
+    TABLESPOON(Dimension.VOLUME, 14.78676478125, "tbsp", "tablespoon", "tablespoons"),
+    FLUID_OUNCE(Dimension.VOLUME, 29.5735295625, "fl oz", "fluid ounce", "fluid ounces"),
+    CUP(Dimension.VOLUME, 236.5882365, "cup", "cups"),
+    MILLILITER(Dimension.VOLUME, 1, "ml", "milliliter", "milliliters", "millilitre", "millilitres"),
+    LITER(Dimension.VOLUME, 1000, "l", "liter", "liters", "litre", "litres"),
+    GRAM(Dimension.MASS, 1, "g", "gram", "grams"),
+    KILOGRAM(Dimension.MASS, 1000, "kg", "kilogram", "kilograms"),
+    OUNCE(Dimension.MASS, 28.349523125, "oz", "ounce", "ounces"),
+    POUND(Dimension.MASS, 453.59237, "lb", "lbs", "pound", "pounds");
+
+    /**
+     * What a unit measures. Only units of the same dimension convert.
+     */
+    public enum Dimension { VOLUME, MASS }
+
+    private static final Map<String, Unit> BY_SYMBOL = new HashMap<>();
+    // FACTORS[from][to] converts an amount in unit 'from' to unit 'to'
+    private static final double[][] FACTORS;
+
+    static {
+        Unit[] units = values();
+        FACTORS = new double[units.length][units.length];
+        for (Unit from : units) {
+            for (String symbol : from.symbols) {
+                BY_SYMBOL.put(symbol, from);
+            }
+            for (Unit to : units) {
+                // Exactly 1 on the diagonal, so same-unit amounts are summed unchanged
+                FACTORS[from.ordinal()][to.ordinal()] = from == to ? 1
+                        : from.dimension == to.dimension ? from.baseAmount / to.baseAmount : Double.NaN;
+            }
+        }
+    }
+
+    private final Dimension dimension;
+    // Size in milliliters or grams
+    private final double baseAmount;
+    private final String[] symbols;
+
+    Unit(Dimension dimension, double baseAmount, String... symbols) {
+        this.dimension = dimension;
+        this.baseAmount = baseAmount;
+        this.symbols = symbols;
+    }
+
+    /**
+     * Returns what this unit measures.
+     *
+     * @return the dimension
+     */
+    public Dimension getDimension() {
+        return dimension;
+    }
+
+    /**
+     * Returns the usual abbreviation, such as "tbsp".
+     *
+     * @return the symbol
+     */
+    public String getSymbol() {
+        return symbols[0];
+    }
+
+    /**
+     * Converts {@code amount} of this unit to {@code target}.
+     *
+     * @param amount the amount in this unit
+     * @param target the unit to convert to; must have the same dimension
+     * @return the amount in target units
+     * @throws IllegalArgumentException if target is null or of another dimension
+     */
+    public double convert(double amount, Unit target) {
+        if (target == null || target.dimension != dimension) {
+            throw new IllegalArgumentException("Cannot convert " + this + " to " + target);
+        }
+        return amount * FACTORS[ordinal()][target.ordinal()];
+    }
+
+    /**
+     * Returns the unit written as {@code symbol}, such as "cup", "Tbsp" or
+     * "grams", ignoring case and surrounding spaces.
+     *
+     * @param symbol the unit as written
+     * @return the unit, or null if symbol is null or not a known unit
+     */
+    public static Unit forSymbol(String symbol) {
+        return symbol == null ? null : BY_SYMBOL.get(symbol.trim().toLowerCase());
+    }
+}
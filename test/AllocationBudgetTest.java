@@ -0,0 +1,161 @@
+import java.io.IOException;
+import java.io.Writer;
+import java.lang.management.ManagementFactory;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Allocation-budget tests for the hot paths: bytes allocated per operation on
+ * fixed corpora, read from the per-thread allocation counter of
+ * {@link com.sun.management.ThreadMXBean}. An operation fails when it allocates
+ * more than its budget, so an extra copy or boxing step shows up here even if
+ * every correctness test still passes.
+ *
+ * <p>Each operation is warmed up first so the JIT has compiled it, then run
+ * repeatedly and averaged. Budgets leave about half again the measured bytes as
+ * headroom, less where that would hide an extra copy. They hold with C1 only
+ * ({@code -XX:TieredStopAtLevel=1}) and interpreted ({@code -Xint}) as well,
+ * so none depends on C2 removing an allocation. They only cover work on
+ * the calling thread, so every operation is measured on its single-threaded
+ * path. On a JVM without allocation counters the tests are skipped.
+ */
+public class AllocationBudgetTest {
+    private static final int RUNS = 200;
+    // Loading and saving a whole corpus is slow, so those run fewer times
+    private static final int FILE_RUNS = 10;
+
+    private static com.sun.management.ThreadMXBean threads;
+
+    public static void main(String[] args) throws IOException {
+        if (!(ManagementFactory.getThreadMXBean() instanceof com.sun.management.ThreadMXBean)
+                || !((com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean())
+                        .isThreadAllocatedMemorySupported()) {
+            System.out.println("Allocation counters not available; AllocationBudget tests skipped.");
+            return;
+        }
+        threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        threads.setThreadAllocatedMemoryEnabled(true);
+        // Few ingredient variants, so search and aggregation touch many recipes per word
+        RecipeBook book = TestCatalogs.catalog(2_000, 20, 49);
+        testSearch(book);
+        testAggregate(book);
+        testToString(book);
+        testScaling(book);
+        testExport(book);
+        testLoadAndSave(book);
+        System.out.println("All AllocationBudget tests passed.");
+    }
+
+    private static void testSearch(RecipeBook book) {
+        measure("search, cached", 4_000, () -> book.search("garlic lemon"));
+        measure("search, uncached", 13_000, () -> {
+            book.getQueryCache().invalidateAll();
+            book.search("garlic lemon");
+        });
+        measure("searchByIngredient, uncached", 1_000_000, () -> {
+            book.getQueryCache().invalidateAll();
+            book.searchByIngredient("pepper 7");
+        });
+    }
+
+    private static void testAggregate(RecipeBook book) {
+        List<Recipe> cart = book.getAllRecipes().subList(0, 10);
+        measure("aggregate, 10 recipes", 75_000, () -> ShoppingCart.aggregate(cart));
+        List<List<Recipe>> carts = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            carts.add(book.getAllRecipes().subList(i * 10, i * 10 + 10));
+        }
+        measure("aggregateAll, 20 carts", 420_000, () -> ShoppingCart.aggregateAll(carts));
+    }
+
+    private static void testToString(RecipeBook book) {
+        Recipe r = new Recipe("Minestrone", 6);
+        for (int i = 0; i < 20; i++) {
+            r.addIngredient(TestCatalogs.WORDS[i % TestCatalogs.WORDS.length] + " " + i, 0.5 + i);
+        }
+        // Cached text allocates nothing; 16 bytes is a floor smaller than any String,
+        // so a copy of the text still fails
+        measure("toString, cached", 16, r::toString);
+        measure("toPrettyString, cached", 16, r::toPrettyString);
+        int[] servings = {6, 12};
+        int[] next = {0};
+        measure("toString after scaling", 3_500, () -> {
+            r.scaleToServings(servings[next[0]++ & 1]);
+            r.toString();
+        });
+        // A second copy of the 20 names would cost about 120 bytes more
+        measure("getIngredientNames", 600, r::getIngredientNames);
+    }
+
+    private static void testExport(RecipeBook book) {
+        ListingRenderer renderer = new ListingRenderer(Writer.nullWriter());
+        List<Recipe> recipes = book.getAllRecipes();
+        measure("recipeCatalog, 2000 recipes", 120_000, FILE_RUNS, () -> {
+            try {
+                renderer.recipeCatalog(recipes);
+                renderer.flush();
+            } catch (IOException e) {
+                throw new AssertionError(e);
+            }
+        });
+    }
+
+    private static void testScaling(RecipeBook book) {
+        Recipe r = book.getAllRecipes().get(1);
+        int[] servings = {2, 4};
+        int[] next = {0};
+        measure("scaleToServings", 13_000, () -> r.scaleToServings(servings[next[0]++ & 1]));
+    }
+
+    private static void testLoadAndSave(RecipeBook book) throws IOException {
+        Path file = Files.createTempFile("recipes", ".json");
+        try {
+            RecipeJsonStore.save(book, file.toString());
+            measure("load, 2000 recipes", 55_000_000, FILE_RUNS, () -> {
+                try {
+                    RecipeJsonStore.load(file.toString());
+                } catch (IOException e) {
+                    throw new AssertionError(e);
+                }
+            });
+            measure("save, 2000 recipes", 125_000, FILE_RUNS, () -> {
+                try {
+                    RecipeJsonStore.save(book, file.toString());
+                } catch (IOException e) {
+                    throw new AssertionError(e);
+                }
+            });
+        } finally {
+            Files.deleteIfExists(file);
+        }
+    }
+
+    /**
+     * Runs {@code op} after warming it up and fails if it allocates more than
+     * {@code budget} bytes per run on average.
+     */
+    private static void measure(String label, long budget, Runnable op) {
+        measure(label, budget, RUNS, op);
+    }
+
+    private static void measure(String label, long budget, int runs, Runnable op) {
+        for (int i = 0; i < runs; i++) {
+            op.run();
+        }
+        long thread = Thread.currentThread().getId();
+        long before = threads.getThreadAllocatedBytes(thread);
+        for (int i = 0; i < runs; i++) {
+            op.run();
+        }
+        long perRun = (threads.getThreadAllocatedBytes(thread) - before) / runs;
+        if (perRun > budget) {
+            fail(label + " allocated " + perRun + " bytes per run, over its budget of " + budget);
+        }
+    }
+
+    private static void fail(String message) {
+        throw new AssertionError(message);
+    }
+}
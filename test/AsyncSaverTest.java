@@ -0,0 +1,134 @@
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+
+/**
+ * Tests for the AsyncSaver class.
+ */
+public class AsyncSaverTest {
+
+    public static void main(String[] args) throws Exception {
+        testCoalescesBurst();
+        testSnapshotIsolation();
+        testFailureCompletesExceptionally();
+        testMarkedSavedOnlyWhenWritten();
+        testSavesDuringMutations();
+        System.out.println("All AsyncSaver tests passed.");
+    }
+
+    private static void testCoalescesBurst() throws Exception {
+        Path file = Files.createTempFile("recipes", ".json");
+        AsyncSaver saver = new AsyncSaver(100);
+        RecipeBook book = new RecipeBook();
+        CompletableFuture<Void> first = null;
+        CompletableFuture<Void> last = null;
+        for (int i = 0; i < 10; i++) {
+            book.addRecipe(new Recipe("Recipe " + i, 1));
+            last = saver.saveAsync(book, file.toString());
+            if (first == null) first = last;
+        }
+        last.get();
+        assertTrue("burst shares one future", first == last);
+        assertEquals("one write for the burst", 1, saver.writeCount());
+        assertEquals("latest snapshot written", 10, RecipeJsonStore.load(file.toString()).size());
+        Files.delete(file);
+    }
+
+    private static void testSnapshotIsolation() throws Exception {
+        Path file = Files.createTempFile("recipes", ".json");
+        AsyncSaver saver = new AsyncSaver(50);
+        RecipeBook book = new RecipeBook();
+        Recipe pancakes = new Recipe("Pancakes", 4);
+        pancakes.addIngredient("flour", 2);
+        book.addRecipe(pancakes);
+        CompletableFuture<Void> saved = saver.saveAsync(book, file.toString());
+        pancakes.addIngredient("eggs", 2);
+        book.addRecipe(new Recipe("Pasta", 2));
+        saved.get();
+        RecipeBook loaded = RecipeJsonStore.load(file.toString());
+        assertEquals("later recipes not saved", 1, loaded.size());
+        assertEquals("later ingredients not saved", 1, loaded.getAllRecipes().get(0).totalIngredientCount());
+        Files.delete(file);
+    }
+
+    private static void testFailureCompletesExceptionally() throws Exception {
+        AsyncSaver saver = new AsyncSaver(0);
+        Path missingDir = Files.createTempDirectory("recipes").resolve("missing");
+        RecipeBook book = new RecipeBook();
+        book.addRecipe(new Recipe("Pancakes", 4));
+        CompletableFuture<Void> saved = saver.saveAsync(book, missingDir.resolve("out.json").toString());
+        try {
+            saved.get();
+            throw new AssertionError("save into a missing directory should fail");
+        } catch (ExecutionException e) {
+            assertTrue("failure is an IOException", e.getCause() instanceof java.io.IOException);
+        }
+        saver.flush().get();
+        assertTrue("failed save leaves the book unsaved", book.hasUnsavedChanges());
+        assertEquals("dirty recipes kept", 1, book.getDirtyRecipeCount());
+    }
+
+    private static void testMarkedSavedOnlyWhenWritten() throws Exception {
+        Path file = Files.createTempFile("recipes", ".json");
+        AsyncSaver saver = new AsyncSaver(50);
+        RecipeBook book = new RecipeBook();
+        book.addRecipe(new Recipe("Pancakes", 4));
+        CompletableFuture<Void> saved = saver.saveAsync(book, file.toString());
+        assertTrue("unsaved until written", book.hasUnsavedChanges());
+        saved.get();
+        assertTrue("saved once written", !book.hasUnsavedChanges());
+
+        saved = saver.saveAsync(book, file.toString());
+        book.addRecipe(new Recipe("Pasta", 2));
+        saved.get();
+        assertTrue("changed after the snapshot, so still unsaved", book.hasUnsavedChanges());
+        Files.delete(file);
+    }
+
+    private static void testSavesDuringMutations() throws Exception {
+        Path file = Files.createTempFile("recipes", ".json");
+        AsyncSaver saver = new AsyncSaver(0);
+        RecipeBook book = new RecipeBook();
+        List<CompletableFuture<Void>> saves = new ArrayList<>();
+        // Writes finish on the writer thread while this thread keeps changing the book
+        for (int i = 0; i < 3000; i++) {
+            if (i % 500 == 499) {
+                book.clear();
+            }
+            Recipe r = new Recipe("Recipe " + i, 1);
+            book.addRecipe(r);
+            r.addIngredient("salt", 1);
+            if (i % 7 == 0) {
+                book.removeRecipe("Recipe " + (i - 3));
+            }
+            if (i % 3 == 0) {
+                saves.add(saver.saveAsync(book, file.toString()));
+            }
+            book.hasUnsavedChanges();
+        }
+        for (CompletableFuture<Void> save : saves) {
+            save.get();
+        }
+        assertTrue("changed since the last snapshot", book.hasUnsavedChanges());
+        saver.saveAsync(book, file.toString()).get();
+        assertTrue("saved once the final snapshot is written", !book.hasUnsavedChanges());
+        assertEquals("no dirty recipes left", 0, book.getDirtyRecipeCount());
+        assertEquals("file matches the book", book.size(), RecipeJsonStore.load(file.toString()).size());
+        Files.delete(file);
+    }
+
+    private static void assertEquals(String label, long expected, long actual) {
+        if (expected != actual) {
+            throw new AssertionError(label + " expected " + expected + " but was " + actual);
+        }
+    }
+
+    private static void assertTrue(String label, boolean condition) {
+        if (!condition) {
+            throw new AssertionError(label);
+        }
+    }
+}
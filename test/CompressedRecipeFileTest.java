@@ -0,0 +1,102 @@
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Tests for the block-compressed recipe format.
+ */
+public class CompressedRecipeFileTest {
+
+    public static void main(String[] args) throws Exception {
+        testRoundTripAcrossBlocks();
+        testCorruptFileRejected();
+        testImplausibleLengthsRejected();
+        System.out.println("All CompressedRecipeFile tests passed.");
+    }
+
+    private static void testRoundTripAcrossBlocks() throws Exception {
+        RecipeBook book = new RecipeBook();
+        for (int i = 0; i < 5000; i++) {
+            Recipe r = new Recipe("Recipe " + i, 1 + i % 6);
+            r.addIngredient("flour (cup)", 0.25 * (1 + i % 7));
+            r.addIngredient("ingredient " + i % 97, 3);
+            book.addRecipe(r);
+        }
+        Path plain = Files.createTempFile("recipes", ".json");
+        Path compressed = Files.createTempFile("recipes", ".rcz");
+        RecipeJsonStore.save(book, plain.toString());
+        RecipeJsonStore.saveCompressed(book, compressed.toString());
+        assertTrue("spans several blocks", Files.size(plain) > 2L * CompressedRecipeFile.BLOCK_SIZE);
+        assertTrue("compresses several-fold", Files.size(compressed) * 4 < Files.size(plain));
+
+        List<Recipe> expected = book.getAllRecipes();
+        List<Recipe> loaded = RecipeJsonStore.load(compressed.toString()).getAllRecipes();
+        assertEquals("recipe count", expected.size(), loaded.size());
+        for (int i = 0; i < expected.size(); i++) {
+            assertTrue("recipe " + i + " round-trips", expected.get(i).toString().equals(loaded.get(i).toString()));
+        }
+        assertEquals("empty book", 0, reload(new RecipeBook(), compressed).size());
+        Files.delete(plain);
+        Files.delete(compressed);
+    }
+
+    private static void testCorruptFileRejected() throws Exception {
+        RecipeBook book = new RecipeBook();
+        book.addRecipe(new Recipe("Pancakes", 4));
+        Path file = Files.createTempFile("recipes", ".rcz");
+        RecipeJsonStore.saveCompressed(book, file.toString());
+        byte[] bytes = Files.readAllBytes(file);
+        Files.write(file, Arrays.copyOf(bytes, bytes.length - 3));
+        try {
+            RecipeJsonStore.load(file.toString());
+            throw new AssertionError("truncated file should be rejected");
+        } catch (IOException e) {
+            // expected
+        }
+        Files.delete(file);
+    }
+
+    private static void testImplausibleLengthsRejected() throws Exception {
+        RecipeBook book = new RecipeBook();
+        book.addRecipe(new Recipe("Pancakes", 4));
+        Path file = Files.createTempFile("recipes", ".rcz");
+        RecipeJsonStore.saveCompressed(book, file.toString());
+        byte[] valid = Files.readAllBytes(file);
+        // The first index entry's inflated length and recipe count follow its offset and compressed length
+        int lengthAt = CompressedRecipeFile.MAGIC.length + 8 + 12;
+        int[][] patches = {{lengthAt, Integer.MAX_VALUE}, {lengthAt, 50_000_000}, {lengthAt, -1},
+                {lengthAt + 4, -1}, {lengthAt + 4, 0}};
+        for (int[] patch : patches) {
+            byte[] bytes = valid.clone();
+            ByteBuffer.wrap(bytes).putInt(patch[0], patch[1]);
+            Files.write(file, bytes);
+            try {
+                RecipeJsonStore.load(file.toString());
+                throw new AssertionError("index value " + patch[1] + " at " + patch[0] + " should be rejected");
+            } catch (IOException e) {
+                // expected, rather than an OutOfMemoryError or NegativeArraySizeException
+            }
+        }
+        Files.delete(file);
+    }
+
+    private static RecipeBook reload(RecipeBook book, Path file) throws Exception {
+        RecipeJsonStore.saveCompressed(book, file.toString());
+        return RecipeJsonStore.load(file.toString());
+    }
+
+    private static void assertEquals(String label, int expected, int actual) {
+        if (expected != actual) {
+            throw new AssertionError(label + " expected " + expected + " but was " + actual);
+        }
+    }
+
+    private static void assertTrue(String label, boolean condition) {
+        if (!condition) {
+            throw new AssertionError(label);
+        }
+    }
+}
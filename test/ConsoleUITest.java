@@ -0,0 +1,126 @@
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.io.Reader;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Tests for ConsoleUI's batch mode: script parsing, exit statuses and how
+ * often output is flushed.
+ */
+public class ConsoleUITest {
+    private static final String NL = System.lineSeparator();
+
+    public static void main(String[] args) {
+        testScriptOutput();
+        testExitStatus();
+        testFlushPolicy();
+        System.out.println("All ConsoleUI tests passed.");
+    }
+
+    private static void testScriptOutput() {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        PrintStream output = new PrintStream(bytes, false, StandardCharsets.UTF_8);
+        String script = "# comments and blank lines are skipped\n\n  list  \nVIEW Pancakes\nsearch past\nexit\nlist\n";
+        assertEquals("status", 0, ConsoleUI.runScript(sampleBook(), new StringReader(script), output));
+        assertEquals("output",
+                NL + "All Recipes (2):" + NL + "1. Pancakes (4 servings)" + NL + "2. Pasta (2 servings)" + NL
+                        + NL + "Pancakes (serves 4)\n- 2 flour\n" + NL
+                        + NL + "Search Results (1):" + NL + "1. Pasta (2 servings)" + NL,
+                bytes.toString(StandardCharsets.UTF_8));
+    }
+
+    private static void testExitStatus() {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        PrintStream output = new PrintStream(bytes, false, StandardCharsets.UTF_8);
+        String script = "view Nope\nlist\nfrobnicate\n";
+        assertEquals("failed command", 1, ConsoleUI.runScript(sampleBook(), new StringReader(script), output));
+        String text = bytes.toString(StandardCharsets.UTF_8);
+        assertTrue("error names the line", text.contains("Error (line 1): view Nope"));
+        assertTrue("later commands still run", text.contains("All Recipes (2):"));
+        assertTrue("unknown command", text.contains("Unknown command: frobnicate" + NL + "Error (line 3): frobnicate"));
+
+        Reader broken = new Reader() {
+            @Override
+            public int read(char[] cbuf, int off, int len) throws IOException {
+                throw new IOException("disk gone");
+            }
+
+            @Override
+            public void close() {
+            }
+        };
+        PrintStream err = System.err;
+        System.setErr(new PrintStream(OutputStream.nullOutputStream()));
+        try {
+            assertEquals("unreadable script", 2, ConsoleUI.runScript(sampleBook(), broken, output));
+        } finally {
+            System.setErr(err);
+        }
+    }
+
+    private static void testFlushPolicy() {
+        assertEquals("one flush for a short script", 1, flushesFor(400));
+        // Every 1000 commands, then once at the end
+        assertEquals("periodic flush", 3, flushesFor(2500));
+    }
+
+    private static int flushesFor(int commands) {
+        int[] flushes = {0};
+        OutputStream sink = new OutputStream() {
+            @Override
+            public void write(int b) {
+            }
+
+            @Override
+            public void write(byte[] b, int off, int len) {
+            }
+
+            @Override
+            public void flush() {
+                flushes[0]++;
+            }
+        };
+        StringBuilder script = new StringBuilder();
+        String[] kinds = {"list", "view Pancakes", "search pan", "cart Pancakes, Pasta"};
+        for (int i = 0; i < commands; i++) {
+            script.append(kinds[i % kinds.length]).append('\n');
+        }
+        PrintStream output = new PrintStream(sink, false, StandardCharsets.UTF_8);
+        assertEquals("status", 0, ConsoleUI.runScript(sampleBook(), new StringReader(script.toString()), output));
+        return flushes[0];
+    }
+
+    private static RecipeBook sampleBook() {
+        RecipeBook book = new RecipeBook();
+        Recipe pancakes = new Recipe("Pancakes", 4);
+        pancakes.addIngredient("flour", 2);
+        book.addRecipe(pancakes);
+        book.addRecipe(new Recipe("Pasta", 2));
+        return book;
+    }
+
+    private static void assertEquals(String label, String expected, String actual) {
+        if (!expected.equals(actual)) {
+            fail(label + " expected [" + expected + "] but was [" + actual + "]");
+        }
+    }
+
+    private static void assertEquals(String label, int expected, int actual) {
+        if (expected != actual) {
+            fail(label + " expected " + expected + " but was " + actual);
+        }
+    }
+
+    private static void assertTrue(String label, boolean condition) {
+        if (!condition) {
+            fail(label);
+        }
+    }
+
+    private static void fail(String message) {
+        throw new AssertionError(message);
+    }
+}
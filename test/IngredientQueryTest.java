@@ -0,0 +1,192 @@
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Tests for IngredientQuery, RecipeBook.searchByIngredients and the
+ * RoaringBitmap they are evaluated with.
+ */
+public class IngredientQueryTest {
+
+    public static void main(String[] args) {
+        testBitmapMatchesBitSet();
+        testParse();
+        testBookQueries();
+        testQueriesFollowChanges();
+        System.out.println("All IngredientQuery tests passed.");
+    }
+
+    private static void testBitmapMatchesBitSet() {
+        Random random = new Random(43);
+        for (int round = 0; round < 30; round++) {
+            // Alternate sparse and dense sets so both container kinds are combined
+            BitSet a = randomBits(random, round % 2 == 0 ? 0.01 : 0.6);
+            BitSet b = randomBits(random, round % 3 == 0 ? 0.7 : 0.02);
+            RoaringBitmap ra = toBitmap(a);
+            RoaringBitmap rb = toBitmap(b);
+            assertEquals("cardinality", a.cardinality(), ra.cardinality());
+
+            BitSet and = (BitSet) a.clone();
+            and.and(b);
+            assertSame("and", and, ra.and(rb));
+            BitSet or = (BitSet) a.clone();
+            or.or(b);
+            assertSame("or", or, ra.or(rb));
+            BitSet andNot = (BitSet) a.clone();
+            andNot.andNot(b);
+            assertSame("andNot", andNot, ra.andNot(rb));
+            assertSame("inputs unchanged", a, ra);
+
+            for (int i = a.nextSetBit(0); i >= 0; i = a.nextSetBit(i + 1)) {
+                if (random.nextBoolean()) {
+                    assertTrue("remove present", ra.remove(i));
+                    a.clear(i);
+                }
+            }
+            assertTrue("remove absent", !ra.remove(1 << 20));
+            assertSame("after removals", a, ra);
+        }
+    }
+
+    private static void testParse() {
+        IngredientQuery q = IngredientQuery.parse("Chicken and garlic AND NOT  Peanut Butter");
+        assertTrue("parsed form", q.toString().equals("chicken AND garlic AND NOT peanut butter"));
+        IngredientQuery grouped = IngredientQuery.parse("(basil OR oregano) and not(salt or sugar)");
+        assertTrue("grouping", grouped.toString().equals("(basil OR oregano) AND NOT (salt OR sugar)"));
+        assertTrue("round trip", IngredientQuery.parse(grouped.toString()).toString().equals(grouped.toString()));
+        assertTrue("builders", IngredientQuery.allOf("chicken", "garlic").andNot(IngredientQuery.has("peanut butter"))
+                .toString().equals(q.toString()));
+        assertTrue("double negation", IngredientQuery.parse("NOT NOT salt").toString().equals("salt"));
+        for (String bad : new String[] {"", "AND salt", "salt OR", "(salt", "salt )", "NOT"}) {
+            try {
+                IngredientQuery.parse(bad);
+                fail("'" + bad + "' should not parse");
+            } catch (IllegalArgumentException expected) {
+                // expected
+            }
+        }
+    }
+
+    private static RecipeBook sampleBook() {
+        RecipeBook book = new RecipeBook();
+        book.addRecipe(TestCatalogs.recipe("Kung Pao", "chicken breast", "garlic", "peanuts"));
+        book.addRecipe(TestCatalogs.recipe("Roast Chicken", "chicken", "garlic cloves", "olive oil"));
+        book.addRecipe(TestCatalogs.recipe("Satay", "chicken", "garlic", "peanut butter"));
+        book.addRecipe(TestCatalogs.recipe("Pesto", "basil", "olive oil", "pine nuts"));
+        book.addRecipe(TestCatalogs.recipe("Pizza", "oregano", "mozzarella"));
+        book.addRecipe(TestCatalogs.recipe("Boiled Eggs", "eggs", "boiled water"));
+        book.addRecipe(TestCatalogs.recipe("Dressing", "Olive\tOil", "vinegar"));
+        return book;
+    }
+
+    private static void testBookQueries() {
+        RecipeBook book = sampleBook();
+        assertNames("AND NOT", book.searchByIngredients(
+                IngredientQuery.parse("chicken AND garlic AND NOT peanut butter")), "Kung Pao", "Roast Chicken");
+        assertNames("OR", book.searchByIngredients(IngredientQuery.anyOf("basil", "oregano")), "Pesto", "Pizza");
+        assertNames("whole words", book.searchByIngredients(IngredientQuery.has("oil")),
+                "Roast Chicken", "Pesto", "Dressing");
+        assertNames("phrase", book.searchByIngredients(IngredientQuery.has("Olive  Oil")),
+                "Roast Chicken", "Pesto", "Dressing");
+        assertNames("bare NOT", book.searchByIngredients(IngredientQuery.parse("NOT chicken AND NOT basil")),
+                "Pizza", "Boiled Eggs", "Dressing");
+        assertNames("unknown", book.searchByIngredients(IngredientQuery.has("saffron")));
+        assertNames("unknown excluded", book.searchByIngredients(IngredientQuery.parse("eggs AND NOT saffron")),
+                "Boiled Eggs");
+    }
+
+    private static void testQueriesFollowChanges() {
+        RecipeBook book = sampleBook();
+        IngredientQuery query = IngredientQuery.parse("garlic AND NOT peanuts");
+        assertNames("before", book.searchByIngredients(query), "Roast Chicken", "Satay");
+        book.removeRecipe("Satay");
+        book.getAllRecipes().get(0).addIngredient("garlic", 1);
+        book.getAllRecipes().get(3).addIngredient("Garlic", 1);
+        book.addRecipe(TestCatalogs.recipe("Aioli", "garlic", "egg yolk"));
+        assertNames("after changes", book.searchByIngredients(query), "Roast Chicken", "Pizza", "Aioli");
+        book.clear();
+        assertNames("after clear", book.searchByIngredients(query));
+
+        // Larger catalog, checked against a linear scan
+        Random random = new Random(5);
+        String[] pantry = {"salt", "pepper", "garlic", "onion", "butter", "flour", "sugar", "eggs"};
+        for (int i = 0; i < 3000; i++) {
+            Recipe r = new Recipe("R" + i, 1);
+            for (String p : pantry) {
+                if (random.nextInt(3) == 0) r.addIngredient(p, 1);
+            }
+            book.addRecipe(r);
+        }
+        for (int i = 0; i < 3000; i += 7) {
+            book.removeRecipe("R" + i);
+        }
+        List<Recipe> expected = new ArrayList<>();
+        for (Recipe r : book.getAllRecipes()) {
+            List<String> names = r.getIngredientNames();
+            if ((names.contains("salt") || names.contains("sugar")) && names.contains("eggs") && !names.contains("onion")) {
+                expected.add(r);
+            }
+        }
+        List<Recipe> actual = book.searchByIngredients(IngredientQuery.parse("(salt OR sugar) AND eggs AND NOT onion"));
+        assertTrue("matches linear scan (" + expected.size() + " recipes)", expected.equals(actual));
+    }
+
+    private static BitSet randomBits(Random random, double density) {
+        BitSet bits = new BitSet();
+        int limit = 1 << 18;
+        for (int i = 0; i < limit; i++) {
+            if (random.nextDouble() < density) bits.set(i);
+        }
+        return bits;
+    }
+
+    private static RoaringBitmap toBitmap(BitSet bits) {
+        RoaringBitmap bitmap = new RoaringBitmap();
+        for (int i = bits.nextSetBit(0); i >= 0; i = bits.nextSetBit(i + 1)) {
+            assertTrue("add new", bitmap.add(i));
+        }
+        assertTrue("add existing", bits.isEmpty() || !bitmap.add(bits.nextSetBit(0)));
+        return bitmap;
+    }
+
+    private static void assertSame(String label, BitSet expected, RoaringBitmap actual) {
+        BitSet seen = new BitSet();
+        int[] last = {-1};
+        actual.forEach(v -> {
+            assertTrue(label + ": increasing order", v > last[0]);
+            last[0] = v;
+            seen.set(v);
+        });
+        assertTrue(label + ": same values", seen.equals(expected));
+        assertEquals(label + ": cardinality", expected.cardinality(), actual.cardinality());
+        for (int i = 0; i < 200; i++) {
+            int v = (i * 7919) & ((1 << 18) - 1);
+            assertTrue(label + ": contains " + v, actual.contains(v) == expected.get(v));
+        }
+    }
+
+    private static void assertNames(String label, List<Recipe> recipes, String... names) {
+        List<String> actual = new ArrayList<>();
+        for (Recipe r : recipes) {
+            actual.add(r.getName());
+        }
+        assertTrue(label + ": expected " + List.of(names) + " but was " + actual, actual.equals(List.of(names)));
+    }
+
+    private static void assertEquals(String label, int expected, int actual) {
+        if (expected != actual) {
+            fail(label + " expected " + expected + " but was " + actual);
+        }
+    }
+
+    private static void assertTrue(String label, boolean condition) {
+        if (!condition) {
+            fail(label);
+        }
+    }
+
+    private static void fail(String message) {
+        throw new AssertionError(message);
+    }
+}
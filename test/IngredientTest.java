@@ -9,6 +9,7 @@ public class IngredientTest {
         testGetters();
         testScale();
         testToString();
+        testUnits();
         System.out.println("All Ingredient tests passed.");
     }
 
@@ -76,6 +77,31 @@ public class IngredientTest {
         assertTrue("toString contains name", str.contains("eggs"));
     }
 
+    private static void testUnits() {
+        Ingredient oil = new Ingredient("  olive oil (Tbsp) ", 2);
+        assertEquals("name kept", "olive oil (Tbsp)", oil.getName());
+        assertEquals("base name", "olive oil", oil.getBaseName());
+        assertTrue("unit", oil.getUnit() == Unit.TABLESPOON);
+        assertTrue("scaled keeps unit", oil.scale(2).getUnit() == Unit.TABLESPOON);
+        assertTrue("fluid ounce", new Ingredient("milk (fl oz)", 1).getUnit() == Unit.FLUID_OUNCE);
+
+        Ingredient eggs = new Ingredient("eggs (large)", 2);
+        assertTrue("unknown unit", eggs.getUnit() == null);
+        assertEquals("unknown unit keeps name", "eggs (large)", eggs.getBaseName());
+        assertTrue("no unit", new Ingredient("salt", 1).getUnit() == null);
+        assertTrue("name only in parentheses", new Ingredient("(cup)", 1).getUnit() == null);
+
+        assertEquals("cups to tbsp", 16, Unit.CUP.convert(1, Unit.TABLESPOON), 1e-9);
+        assertEquals("lb to g", 453.59237, Unit.POUND.convert(1, Unit.GRAM), 1e-9);
+        assertTrue("same unit exact", Unit.CUP.convert(0.1, Unit.CUP) == 0.1);
+        try {
+            Unit.CUP.convert(1, Unit.GRAM);
+            fail("convert across dimensions should throw");
+        } catch (IllegalArgumentException expected) {
+            // expected
+        }
+    }
+
     // Helper methods
     private static void assertEquals(String label, String expected, String actual) {
         if (!expected.equals(actual)) {
@@ -0,0 +1,125 @@
+import java.io.StringWriter;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Tests for the ListingRenderer class.
+ */
+public class ListingRendererTest {
+    private static final String NL = System.lineSeparator();
+
+    public static void main(String[] args) throws Exception {
+        testRecipeList();
+        testPaging();
+        testShoppingCart();
+        testRecipeDetailsCachesText();
+        testRecipeCatalog();
+        System.out.println("All ListingRenderer tests passed.");
+    }
+
+    private static void testRecipeList() throws Exception {
+        StringWriter sw = new StringWriter();
+        ListingRenderer renderer = new ListingRenderer(sw);
+        List<Recipe> recipes = new ArrayList<>();
+        recipes.add(new Recipe("Pancakes", 4));
+        recipes.add(new Recipe("Pasta", 2));
+
+        renderer.recipeList("All Recipes", recipes);
+        assertEquals("nothing written before flush", "", sw.toString());
+        renderer.flush();
+        assertEquals("listing format",
+                NL + "All Recipes (2):" + NL + "1. Pancakes (4 servings)" + NL + "2. Pasta (2 servings)" + NL,
+                sw.toString());
+    }
+
+    private static void testPaging() throws Exception {
+        List<Recipe> recipes = new ArrayList<>();
+        for (int i = 1; i <= 5; i++) {
+            recipes.add(new Recipe("R" + i, 1));
+        }
+        StringWriter sw = new StringWriter();
+        ListingRenderer renderer = new ListingRenderer(sw);
+        int page = renderer.recipeListPage("All Recipes", recipes, 1, 2);
+        renderer.flush();
+        assertEquals("page returned", "1", String.valueOf(page));
+        assertEquals("second page keeps numbering",
+                NL + "All Recipes (5):" + NL + "3. R3 (1 servings)" + NL + "4. R4 (1 servings)" + NL
+                        + "Page 2 of 3 (enter n for next page, p for previous page)" + NL,
+                sw.toString());
+
+        StringWriter clamped = new StringWriter();
+        ListingRenderer r2 = new ListingRenderer(clamped);
+        assertEquals("page clamped", "2", String.valueOf(r2.recipeListPage("All Recipes", recipes, 9, 2)));
+
+        StringWriter single = new StringWriter();
+        ListingRenderer r3 = new ListingRenderer(single);
+        r3.recipeListPage("All Recipes", recipes, 0, 10);
+        r3.flush();
+        StringWriter full = new StringWriter();
+        ListingRenderer r4 = new ListingRenderer(full);
+        r4.recipeList("All Recipes", recipes);
+        r4.flush();
+        assertEquals("single page has no footer", full.toString(), single.toString());
+    }
+
+    private static void testShoppingCart() throws Exception {
+        StringWriter sw = new StringWriter();
+        ListingRenderer renderer = new ListingRenderer(sw);
+        List<String> lines = new ArrayList<>();
+        lines.add("2 eggs");
+        renderer.shoppingCart(lines);
+        renderer.flush();
+        assertEquals("cart format",
+                NL + "=== Shopping Cart ===" + NL + "Aggregated Ingredients:" + NL + "  - 2 eggs" + NL,
+                sw.toString());
+    }
+
+    private static void testRecipeDetailsCachesText() throws Exception {
+        Recipe soup = new Recipe("Soup", 2);
+        soup.addIngredient("leek", 1.5);
+        StringWriter sw = new StringWriter();
+        ListingRenderer renderer = new ListingRenderer(sw);
+        renderer.recipeDetails(soup);
+        String cached = soup.getRenderedText();
+        if (cached == null) {
+            throw new AssertionError("viewing a recipe should cache its text");
+        }
+        renderer.recipeDetails(soup);
+        renderer.flush();
+        if (soup.getRenderedText() != cached) {
+            throw new AssertionError("second view should reuse the cached text");
+        }
+        String view = NL + "Soup (serves 2)\n- 1.5 leek\n" + NL;
+        assertEquals("details format", view + view, sw.toString());
+    }
+
+    private static void testRecipeCatalog() throws Exception {
+        Recipe pasta = new Recipe("Pasta", 2);
+        pasta.addIngredient("spaghetti (g)", 200);
+        pasta.addIngredient("garlic", 2.5);
+        Recipe toast = new Recipe("Toast", 1);
+        toast.addIngredient("bread", 2);
+        String cachedToast = toast.toString();
+        List<Recipe> recipes = new ArrayList<>();
+        recipes.add(pasta);
+        recipes.add(toast);
+
+        StringWriter sw = new StringWriter();
+        ListingRenderer renderer = new ListingRenderer(sw);
+        renderer.recipeCatalog(recipes);
+        renderer.flush();
+        assertEquals("catalog format", pasta.toString() + NL + cachedToast + NL, sw.toString());
+
+        StringWriter empty = new StringWriter();
+        ListingRenderer r2 = new ListingRenderer(empty);
+        r2.recipeCatalog(new ArrayList<>());
+        r2.flush();
+        assertEquals("empty catalog", "", empty.toString());
+    }
+
+    private static void assertEquals(String label, String expected, String actual) {
+        if (!expected.equals(actual)) {
+            throw new AssertionError(label + " expected [" + expected + "] but was [" + actual + "]");
+        }
+    }
+}
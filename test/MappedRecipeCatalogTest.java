@@ -0,0 +1,132 @@
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Tests for the MappedRecipeCatalog class.
+ */
+public class MappedRecipeCatalogTest {
+
+    public static void main(String[] args) throws Exception {
+        testLazyMaterialization();
+        testBookDefersIndexing();
+        testInvalidIngredientReportedOnUse();
+        testConcurrentFirstUseLoadsOnce();
+        System.out.println("All MappedRecipeCatalog tests passed.");
+    }
+
+    private static Path sampleFile() throws Exception {
+        RecipeBook book = new RecipeBook();
+        Recipe pancakes = new Recipe("Pancakes \"Deluxe\"", 4);
+        pancakes.addIngredient("flour", 2);
+        pancakes.addIngredient("eggs", 2);
+        Recipe salad = new Recipe("Café Salad", 2);
+        salad.addIngredient("lettuce", 1);
+        book.addRecipe(pancakes);
+        book.addRecipe(salad);
+        Path file = Files.createTempFile("recipes", ".json");
+        RecipeJsonStore.save(book, file.toString());
+        return file;
+    }
+
+    private static void testLazyMaterialization() throws Exception {
+        Path file = sampleFile();
+        MappedRecipeCatalog catalog = MappedRecipeCatalog.open(file.toString());
+        assertEquals("recipe count", 2, catalog.size());
+        assertTrue("escaped name decoded", catalog.recipeAt(0).getName().equals("Pancakes \"Deluxe\""));
+        assertTrue("UTF-8 name decoded", catalog.recipeAt(1).getName().equals("Café Salad"));
+        assertEquals("servings read", 2, catalog.recipeAt(1).getServings());
+        assertEquals("nothing parsed yet", 0, catalog.materializedCount());
+
+        assertEquals("ingredients parsed on demand", 2, catalog.recipeAt(0).totalIngredientCount());
+        assertEquals("only one recipe parsed", 1, catalog.materializedCount());
+        assertTrue("same result as eager load", catalog.recipeAt(0).toString()
+                .equals(RecipeJsonStore.load(file.toString()).getAllRecipes().get(0).toString()));
+        Files.delete(file);
+    }
+
+    private static void testBookDefersIndexing() throws Exception {
+        Path file = sampleFile();
+        RecipeBook book = RecipeJsonStore.loadLazy(file.toString());
+        assertEquals("names searchable without parsing", 1, book.searchByName("salad").size());
+        book.addRecipe(new Recipe("Omelette", 1));
+        List<Recipe> eggs = book.search("eggs");
+        assertEquals("index built on first search", 1, eggs.size());
+        List<Recipe> all = book.search("e");
+        assertTrue("insertion order kept", all.get(all.size() - 1).getName().equals("Omelette"));
+
+        book.getAllRecipes().get(1).addIngredient("croutons", 1);
+        RecipeJsonStore.save(book, file.toString());
+        assertEquals("save over the mapped file", 3, RecipeJsonStore.load(file.toString()).size());
+        Files.delete(file);
+    }
+
+    private static void testInvalidIngredientReportedOnUse() throws Exception {
+        Path file = Files.createTempFile("recipes", ".json");
+        Files.writeString(file, "{\"recipes\":[{\"name\":\"Bad\",\"servings\":1,"
+                + "\"ingredients\":[{\"name\":\"salt\",\"amount\":-1}]}]}", StandardCharsets.UTF_8);
+        MappedRecipeCatalog catalog = MappedRecipeCatalog.open(file.toString());
+        try {
+            catalog.recipeAt(0).getIngredientNames();
+            throw new AssertionError("invalid amount should be reported");
+        } catch (UncheckedIOException e) {
+            assertTrue("message names the problem", e.getMessage().contains("amount must be > 0"));
+        }
+        Files.delete(file);
+    }
+
+    private static void testConcurrentFirstUseLoadsOnce() throws Exception {
+        AtomicInteger loads = new AtomicInteger();
+        Recipe deferred = Recipe.deferred("Stew", 4, () -> {
+            loads.incrementAndGet();
+            try {
+                // Keep the first loader running while the other threads arrive
+                Thread.sleep(50);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return List.of(new Ingredient("beef", 1), new Ingredient("carrot", 2));
+        });
+        CountDownLatch start = new CountDownLatch(1);
+        List<Thread> threads = new ArrayList<>();
+        int[] counts = new int[8];
+        for (int t = 0; t < counts.length; t++) {
+            int slot = t;
+            Thread thread = new Thread(() -> {
+                try {
+                    start.await();
+                } catch (InterruptedException e) {
+                    return;
+                }
+                counts[slot] = deferred.totalIngredientCount();
+            });
+            thread.start();
+            threads.add(thread);
+        }
+        start.countDown();
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        assertEquals("loaded once", 1, loads.get());
+        for (int count : counts) {
+            assertEquals("every thread sees each ingredient once", 2, count);
+        }
+    }
+
+    private static void assertEquals(String label, int expected, int actual) {
+        if (expected != actual) {
+            throw new AssertionError(label + " expected " + expected + " but was " + actual);
+        }
+    }
+
+    private static void assertTrue(String label, boolean condition) {
+        if (!condition) {
+            throw new AssertionError(label);
+        }
+    }
+}
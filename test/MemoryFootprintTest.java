@@ -0,0 +1,102 @@
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Tests for RecipeBook.estimateFootprint, checked against the heap actually
+ * retained by generated catalogs.
+ */
+public class MemoryFootprintTest {
+    public static void main(String[] args) {
+        testSubsystems();
+        testEmptyBook();
+        testAgainstMeasuredHeap(2_000);
+        testAgainstMeasuredHeap(20_000);
+        System.out.println("All MemoryFootprint tests passed.");
+    }
+
+    private static void testSubsystems() {
+        RecipeBook book = TestCatalogs.catalog(500, 200, 48);
+        MemoryFootprint before = book.estimateFootprint();
+        Map<String, Long> parts = before.getSubsystemBytes();
+        assertTrue("all subsystems listed", parts.keySet().equals(java.util.Set.of(MemoryFootprint.RECIPES,
+                MemoryFootprint.SEARCH_INDEX, MemoryFootprint.SIMILARITY_INDEX, MemoryFootprint.QUERY_CACHE,
+                MemoryFootprint.SAVE_STATE, MemoryFootprint.RENDERED_TEXT)));
+        assertTrue("groups add up", before.getStorageBytes() + before.getIndexBytes() + before.getCacheBytes()
+                == before.getTotalBytes());
+        assertTrue("recipe count", before.getRecipeCount() == 500);
+        assertTrue("per recipe", Math.abs(before.getBytesPerRecipe() * 500 - before.getTotalBytes()) < 1e-6);
+        assertTrue("similarity index not built yet", parts.get(MemoryFootprint.SIMILARITY_INDEX) == 0);
+
+        for (String word : TestCatalogs.WORDS) {
+            book.search(word + " garlic");
+        }
+        book.findNearDuplicates(0.8);
+        MemoryFootprint after = book.estimateFootprint();
+        assertTrue("cache grows with queries", after.getCacheBytes() > before.getCacheBytes());
+        assertTrue("similarity index counted",
+                after.getSubsystemBytes().get(MemoryFootprint.SIMILARITY_INDEX) > 0);
+        // Queries cache nothing on the recipes themselves
+        assertTrue("recipes unchanged", after.getStorageBytes() == before.getStorageBytes());
+        assertTrue("table", after.toString().contains("search index") && after.toString().contains("total"));
+        try {
+            after.getSubsystemBytes().put("other", 1L);
+            fail("subsystem map should be unmodifiable");
+        } catch (UnsupportedOperationException expected) {
+            // expected
+        }
+    }
+
+    private static void testEmptyBook() {
+        MemoryFootprint empty = new RecipeBook().estimateFootprint();
+        assertTrue("empty book is small", empty.getTotalBytes() > 0 && empty.getTotalBytes() < 16 * 1024);
+        assertTrue("no recipes", empty.getBytesPerRecipe() == 0);
+    }
+
+    /**
+     * Builds a catalog, indexes and queries it, and compares the estimate with the
+     * growth of the used heap after collection.
+     */
+    private static void testAgainstMeasuredHeap(int size) {
+        long baseline = usedHeap();
+        // Many ingredient variants, so the index holds a realistic number of distinct keys
+        RecipeBook book = TestCatalogs.catalog(size, 200, size);
+        for (String word : TestCatalogs.WORDS) {
+            book.search(word);
+            book.searchByIngredient(word);
+        }
+        book.findNearDuplicates(0.9);
+        long measured = usedHeap() - baseline;
+        MemoryFootprint footprint = book.estimateFootprint();
+        double ratio = (double) footprint.getTotalBytes() / measured;
+        assertTrue(size + " recipes: estimated " + footprint.getTotalBytes() + " but measured " + measured,
+                ratio > 0.7 && ratio < 1.3);
+        assertTrue("book still live", !book.getAllRecipes().isEmpty());
+    }
+
+    private static long usedHeap() {
+        MemoryMXBean memory = ManagementFactory.getMemoryMXBean();
+        long used = Long.MAX_VALUE;
+        // Collect until the used heap stops shrinking
+        for (int i = 0; i < 10; i++) {
+            System.gc();
+            long now = memory.getHeapMemoryUsage().getUsed();
+            if (now >= used) {
+                return now;
+            }
+            used = now;
+        }
+        return used;
+    }
+
+    private static void assertTrue(String label, boolean condition) {
+        if (!condition) {
+            fail(label);
+        }
+    }
+
+    private static void fail(String message) {
+        throw new AssertionError(message);
+    }
+}
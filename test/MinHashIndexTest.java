@@ -0,0 +1,159 @@
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+/**
+ * Tests for RecipeBook.findSimilar and findNearDuplicates, and the MinHashIndex
+ * behind them.
+ */
+public class MinHashIndexTest {
+
+    public static void main(String[] args) {
+        testFindSimilar();
+        testNearDuplicates();
+        testFollowsChanges();
+        testRecallAgainstAllPairs();
+        System.out.println("All MinHashIndex tests passed.");
+    }
+
+    private static RecipeBook sampleBook() {
+        RecipeBook book = new RecipeBook();
+        book.addRecipe(TestCatalogs.recipe("Pancakes", "flour", "eggs", "milk", "butter", "sugar"));
+        book.addRecipe(TestCatalogs.recipe("Crepes", "Flour", "eggs", "milk", "butter", "sugar"));
+        book.addRecipe(TestCatalogs.recipe("Waffles", "flour", "eggs", "milk", "butter", "baking powder"));
+        book.addRecipe(TestCatalogs.recipe("Guacamole", "avocado", "lime", "onion", "cilantro"));
+        book.addRecipe(TestCatalogs.recipe("Guac", "avocado", "lime", "onion", "cilantro", "salt"));
+        book.addRecipe(TestCatalogs.recipe("Pesto", "basil", "olive oil", "pine nuts"));
+        book.addRecipe(new Recipe("Water", 1));
+        return book;
+    }
+
+    private static void testFindSimilar() {
+        RecipeBook book = sampleBook();
+        Recipe pancakes = book.getAllRecipes().get(0);
+        List<ScoredRecipe> similar = book.findSimilar(pancakes, 0.6);
+        assertNames("similar to pancakes", similar, "Crepes", "Waffles");
+        assertTrue("identical set scores 1", similar.get(0).getScore() == 1.0);
+        assertTrue("one ingredient differs", Math.abs(similar.get(1).getScore() - 4.0 / 6) < 1e-12);
+        assertNames("stricter threshold", book.findSimilar(pancakes, 0.9), "Crepes");
+
+        Recipe outside = TestCatalogs.recipe("Salsa Verde", "avocado", "lime", "onion", "cilantro", "salt");
+        assertNames("recipe not in book", book.findSimilar(outside, 0.8), "Guac", "Guacamole");
+        assertNames("no ingredients", book.findSimilar(book.getAllRecipes().get(6), 0.1));
+        for (double bad : new double[] {0, -0.5, 1.5, Double.NaN}) {
+            try {
+                book.findSimilar(pancakes, bad);
+                fail("threshold " + bad + " should be rejected");
+            } catch (IllegalArgumentException expected) {
+                // expected
+            }
+        }
+    }
+
+    private static void testNearDuplicates() {
+        RecipeBook book = sampleBook();
+        List<List<Recipe>> groups = book.findNearDuplicates(0.6);
+        assertEquals("groups", 2, groups.size());
+        assertNames("pancake group", groups.get(0), "Pancakes", "Crepes", "Waffles");
+        assertNames("guacamole group", groups.get(1), "Guacamole", "Guac");
+        assertEquals("strict groups", 1, book.findNearDuplicates(1.0).size());
+    }
+
+    private static void testFollowsChanges() {
+        RecipeBook book = sampleBook();
+        Recipe pesto = book.getAllRecipes().get(5);
+        assertEquals("before", 0, book.findSimilar(pesto, 0.5).size());
+        book.addRecipe(TestCatalogs.recipe("Pistou", "basil", "olive oil", "garlic"));
+        assertNames("added recipe found", book.findSimilar(pesto, 0.5), "Pistou");
+        book.getAllRecipes().get(7).addIngredient("pine nuts", 1);
+        assertTrue("changed recipe re-signed", book.findSimilar(pesto, 0.7).get(0).getScore() == 0.75);
+        book.removeRecipe("Pistou");
+        assertEquals("removed recipe gone", 0, book.findSimilar(pesto, 0.5).size());
+        book.clear();
+        assertEquals("cleared", 0, book.findNearDuplicates(0.5).size());
+        book.addRecipe(TestCatalogs.recipe("A", "x", "y"));
+        book.addRecipe(TestCatalogs.recipe("B", "x", "y"));
+        assertEquals("rebuilt after clear", 1, book.findNearDuplicates(0.5).size());
+    }
+
+    private static void testRecallAgainstAllPairs() {
+        Random random = new Random(47);
+        RecipeBook book = new RecipeBook();
+        List<Recipe> originals = new ArrayList<>();
+        for (int i = 0; i < 300; i++) {
+            Recipe r = new Recipe("R" + i, 2);
+            for (int k = 0; k < 8; k++) {
+                r.addIngredient("ingredient " + random.nextInt(400), 1);
+            }
+            originals.add(r);
+            book.addRecipe(r);
+        }
+        // Copies with one ingredient swapped: similarity 7/9 unless the swap repeats one
+        for (int i = 0; i < 100; i++) {
+            Recipe original = originals.get(random.nextInt(originals.size()));
+            Recipe copy = new Recipe(original.getName() + " copy", 2);
+            List<String> names = original.getIngredientNames();
+            for (int k = 1; k < names.size(); k++) {
+                copy.addIngredient(names.get(k), 1);
+            }
+            copy.addIngredient("ingredient " + (400 + i), 1);
+            book.addRecipe(copy);
+        }
+
+        List<Recipe> all = book.getAllRecipes();
+        int expectedPairs = 0;
+        int foundPairs = 0;
+        for (int i = 0; i < all.size(); i++) {
+            List<Recipe> found = new ArrayList<>();
+            for (ScoredRecipe s : book.findSimilar(all.get(i), 0.7)) {
+                found.add(s.getRecipe());
+                assertTrue("score above threshold", s.getScore() >= 0.7);
+            }
+            for (int j = 0; j < all.size(); j++) {
+                if (i != j && jaccard(all.get(i), all.get(j)) >= 0.7) {
+                    expectedPairs++;
+                    if (found.contains(all.get(j))) foundPairs++;
+                }
+            }
+        }
+        assertTrue("copies present", expectedPairs >= 200);
+        // At 0.7 a pair shares a band with probability above 0.999
+        assertEquals("recall", expectedPairs, foundPairs);
+    }
+
+    private static double jaccard(Recipe a, Recipe b) {
+        Set<String> x = new HashSet<>(a.getIngredientNames());
+        Set<String> y = new HashSet<>(b.getIngredientNames());
+        int common = 0;
+        for (String s : x) {
+            if (y.contains(s)) common++;
+        }
+        return (double) common / (x.size() + y.size() - common);
+    }
+
+    private static void assertNames(String label, List<?> results, String... names) {
+        List<String> actual = new ArrayList<>();
+        for (Object o : results) {
+            actual.add(o instanceof ScoredRecipe ? ((ScoredRecipe) o).getRecipe().getName() : ((Recipe) o).getName());
+        }
+        assertTrue(label + ": expected " + List.of(names) + " but was " + actual, actual.equals(List.of(names)));
+    }
+
+    private static void assertEquals(String label, int expected, int actual) {
+        if (expected != actual) {
+            fail(label + " expected " + expected + " but was " + actual);
+        }
+    }
+
+    private static void assertTrue(String label, boolean condition) {
+        if (!condition) {
+            fail(label);
+        }
+    }
+
+    private static void fail(String message) {
+        throw new AssertionError(message);
+    }
+}
@@ -0,0 +1,120 @@
+import java.util.List;
+
+/**
+ * Tests for the OffHeapRecipeCatalog class and its DirectArena storage.
+ */
+public class OffHeapRecipeCatalogTest {
+
+    public static void main(String[] args) {
+        testRoundTrip();
+        testViewsWriteBack();
+        testSearchAndBook();
+        testArenaChunks();
+        System.out.println("All OffHeapRecipeCatalog tests passed.");
+    }
+
+    private static OffHeapRecipeCatalog sample() {
+        RecipeBook book = new RecipeBook();
+        Recipe pancakes = new Recipe("Pancakes", 4);
+        pancakes.addIngredient("flour", 2);
+        pancakes.addIngredient("eggs", 2.5);
+        Recipe salad = new Recipe("Café Salad", 2);
+        salad.addIngredient("lettuce", 1);
+        salad.addIngredient("eggs", 1);
+        book.addRecipe(pancakes);
+        book.addRecipe(salad);
+        book.addRecipe(new Recipe("Water", 1));
+        return OffHeapRecipeCatalog.copyOf(book);
+    }
+
+    private static void testRoundTrip() {
+        OffHeapRecipeCatalog catalog = sample();
+        assertEquals("size", 3, catalog.size());
+        assertTrue("UTF-8 name", catalog.getName(1).equals("Café Salad"));
+        assertEquals("servings", 4, catalog.getServings(0));
+        assertEquals("ingredient count", 2, catalog.getIngredientCount(0));
+        assertEquals("no ingredients", 0, catalog.getIngredientCount(2));
+        assertTrue("amount", catalog.getIngredientAmount(0, 1) == 2.5);
+        assertTrue("names shared", catalog.getIngredientName(0, 1) == catalog.getIngredientName(1, 1));
+        assertTrue("off-heap bytes counted", catalog.offHeapBytes() > 0);
+        try {
+            catalog.getIngredientName(0, 2);
+            fail("ingredient index out of range should throw");
+        } catch (IndexOutOfBoundsException expected) {
+            // expected
+        }
+        try {
+            catalog.getServings(3);
+            fail("recipe index out of range should throw");
+        } catch (IndexOutOfBoundsException expected) {
+            // expected
+        }
+    }
+
+    private static void testViewsWriteBack() {
+        OffHeapRecipeCatalog catalog = sample();
+        Recipe view = catalog.recipeAt(0);
+        assertTrue("view contents", view.getIngredientNames().equals(List.of("flour", "eggs")));
+        view.scaleToServings(8);
+        view.addIngredient("milk", 3);
+        assertEquals("servings written back", 8, catalog.getServings(0));
+        assertEquals("ingredient written back", 3, catalog.getIngredientCount(0));
+        assertTrue("scaled amount written back", catalog.getIngredientAmount(0, 0) == 4);
+        assertTrue("new view sees change", catalog.recipeAt(0).getIngredientNames().contains("milk"));
+        assertEquals("other recipes untouched", 2, catalog.getIngredientCount(1));
+    }
+
+    private static void testSearchAndBook() {
+        OffHeapRecipeCatalog catalog = sample();
+        List<Recipe> eggs = catalog.searchByIngredient(" EGG ");
+        assertEquals("search results", 2, eggs.size());
+        assertTrue("search order", eggs.get(1).getName().equals("Café Salad"));
+        assertEquals("no match", 0, catalog.searchByIngredient("butter").size());
+
+        RecipeBook book = catalog.toRecipeBook();
+        assertEquals("book size", 3, book.size());
+        assertTrue("book is saved", !book.hasUnsavedChanges());
+        assertEquals("book search", 1, book.search("lettuce").size());
+    }
+
+    private static void testArenaChunks() {
+        // 64-byte chunks, so allocations quickly spill into new chunks
+        DirectArena arena = new DirectArena(6);
+        for (int i = 0; i < 100; i++) {
+            long pos = arena.allocate(Double.BYTES);
+            assertTrue("fixed-size allocations are contiguous", pos == (long) i * Double.BYTES);
+            arena.putDouble(pos, i * 0.5);
+        }
+        long text = arena.allocate(60);
+        assertTrue("allocation does not straddle chunks", text % 64 == 0);
+        arena.put(text, "hello".getBytes());
+        byte[] back = new byte[5];
+        arena.get(text, back, 5);
+        assertTrue("bytes round trip", new String(back).equals("hello"));
+        for (int i = 0; i < 100; i++) {
+            assertTrue("double " + i, arena.getDouble((long) i * Double.BYTES) == i * 0.5);
+        }
+        try {
+            arena.allocate(65);
+            fail("allocation larger than a chunk should throw");
+        } catch (IllegalArgumentException expected) {
+            // expected
+        }
+    }
+
+    private static void assertEquals(String label, int expected, int actual) {
+        if (expected != actual) {
+            fail(label + " expected " + expected + " but was " + actual);
+        }
+    }
+
+    private static void assertTrue(String label, boolean condition) {
+        if (!condition) {
+            fail(label);
+        }
+    }
+
+    private static void fail(String message) {
+        throw new AssertionError(message);
+    }
+}
@@ -0,0 +1,182 @@
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * Tests for RecipeBook.matchPantry and the PantryMatch results it returns.
+ */
+public class PantryMatcherTest {
+
+    public static void main(String[] args) {
+        testRanking();
+        testScaling();
+        testInvalidPantry();
+        testMatchesNaiveScan();
+        System.out.println("All PantryMatcher tests passed.");
+    }
+
+    private static RecipeBook sampleBook() {
+        RecipeBook book = new RecipeBook();
+        book.addRecipe(recipe("Omelette", 2, "eggs", 3, "butter", 1));
+        book.addRecipe(recipe("Pancakes", 4, "flour", 2, "eggs", 2, "milk", 2));
+        book.addRecipe(recipe("Toast", 1, "bread", 2, "Butter", 0.5));
+        book.addRecipe(recipe("Salad", 2, "lettuce", 1, "tomato", 2));
+        book.addRecipe(recipe("Egg Nog", 2, "eggs", 1, "milk", 1, "eggs", 1));
+        return book;
+    }
+
+    private static void testRanking() {
+        RecipeBook book = sampleBook();
+        Map<String, Double> pantry = new HashMap<>();
+        pantry.put("Eggs", 4.0);
+        pantry.put(" butter ", 1.0);
+        pantry.put("milk", 1.0);
+        List<PantryMatch> matches = drain(book.matchPantry(pantry));
+
+        assertNames("ranked by coverage", matches, "Omelette", "Egg Nog", "Toast", "Pancakes");
+        assertTrue("omelette cookable", matches.get(0).isCookable());
+        assertTrue("repeated ingredient summed", matches.get(1).isCookable());
+        assertEquals("own servings", 2, matches.get(0).getServings());
+        PantryMatch toast = matches.get(2);
+        assertTrue("half covered", toast.getCoverage() == 0.5);
+        assertEquals("one missing", 1, toast.getMissingIngredients().size());
+        assertTrue("missing name and amount", toast.getMissingIngredients().get(0).getName().equals("bread")
+                && toast.getMissingIngredients().get(0).getAmount() == 2);
+        PantryMatch pancakes = matches.get(3);
+        assertTrue("short amount reported", pancakes.getMissingIngredients().get(1).getName().equals("milk")
+                && pancakes.getMissingIngredients().get(1).getAmount() == 1);
+        assertTrue("toString", pancakes.toString().equals("Pancakes x4 (33%, missing 2)"));
+
+        Iterator<PantryMatch> none = book.matchPantry(Map.of("saffron", 1.0));
+        assertTrue("no matches", !none.hasNext());
+    }
+
+    private static void testScaling() {
+        RecipeBook book = sampleBook();
+        Map<String, Double> pantry = Map.of("eggs", 6.0, "butter", 1.0);
+        List<PantryMatch> doubled = drain(book.matchPantry(pantry, 4));
+        // Toast needs 2 butter for 4 servings, so it covers nothing and is left out
+        assertNames("scaled ranking", doubled, "Omelette", "Egg Nog", "Pancakes");
+        PantryMatch omelette = doubled.get(0);
+        assertEquals("requested servings", 4, omelette.getServings());
+        assertTrue("omelette half covered", omelette.getCoverage() == 0.5);
+        assertTrue("scaled shortfall", omelette.getMissingIngredients().get(0).getName().equals("butter")
+                && omelette.getMissingIngredients().get(0).getAmount() == 1);
+        assertEquals("recipe itself not scaled", 2, omelette.getRecipe().getServings());
+
+        List<PantryMatch> halved = drain(book.matchPantry(Map.of("eggs", 1.5, "butter", 0.5), 1));
+        assertTrue("halved omelette cookable", halved.get(0).getRecipe().getName().equals("Omelette")
+                && halved.get(0).isCookable());
+    }
+
+    private static void testInvalidPantry() {
+        RecipeBook book = sampleBook();
+        Map<String, Double> nullAmount = new HashMap<>();
+        nullAmount.put("eggs", null);
+        List<Map<String, Double>> bad = List.of(Map.of("eggs", -1.0), Map.of(" ", 1.0), Map.of("eggs", Double.NaN),
+                nullAmount);
+        for (Map<String, Double> pantry : bad) {
+            try {
+                book.matchPantry(pantry);
+                fail("pantry " + pantry + " should be rejected");
+            } catch (IllegalArgumentException expected) {
+                // expected
+            }
+        }
+        try {
+            book.matchPantry(Map.of("eggs", 1.0), -2);
+            fail("negative servings should be rejected");
+        } catch (IllegalArgumentException expected) {
+            // expected
+        }
+    }
+
+    private static void testMatchesNaiveScan() {
+        Random random = new Random(44);
+        String[] names = {"salt", "pepper", "garlic", "onion", "butter", "flour", "sugar", "eggs", "milk", "rice"};
+        RecipeBook book = new RecipeBook();
+        for (int i = 0; i < 2000; i++) {
+            Recipe r = new Recipe("R" + i, 1 + random.nextInt(6));
+            for (String name : names) {
+                if (random.nextInt(4) == 0) r.addIngredient(name, 1 + random.nextInt(5));
+            }
+            book.addRecipe(r);
+        }
+        book.removeRecipe("R10");
+        Map<String, Double> pantry = new HashMap<>();
+        for (int i = 0; i < 6; i++) {
+            pantry.put(names[i], (double) random.nextInt(12));
+        }
+
+        for (int servings : new int[] {0, 3}) {
+            List<String> cookable = new ArrayList<>();
+            for (PantryMatch m : drain(book.matchPantry(pantry, servings))) {
+                if (m.isCookable()) cookable.add(m.getRecipe().getName());
+            }
+            List<String> expected = new ArrayList<>();
+            for (Recipe original : book.getAllRecipes()) {
+                Recipe r = copy(original);
+                if (servings > 0) r.scaleToServings(servings);
+                boolean enough = !r.getIngredientNames().isEmpty();
+                for (int i = 0; i < r.getIngredientNames().size(); i++) {
+                    Double have = pantry.get(r.getIngredientNames().get(i));
+                    enough &= have != null && r.getIngredientAmounts().get(i) <= have + 1e-9;
+                }
+                if (enough) expected.add(r.getName());
+            }
+            assertTrue("cookable at " + servings + " matches scan (" + expected.size() + " recipes)",
+                    cookable.equals(expected));
+        }
+    }
+
+    private static Recipe copy(Recipe original) {
+        Recipe r = new Recipe(original.getName(), original.getServings());
+        for (int i = 0; i < original.getIngredientNames().size(); i++) {
+            r.addIngredient(original.getIngredientNames().get(i), original.getIngredientAmounts().get(i));
+        }
+        return r;
+    }
+
+    private static Recipe recipe(String name, int servings, Object... ingredients) {
+        Recipe r = new Recipe(name, servings);
+        for (int i = 0; i < ingredients.length; i += 2) {
+            r.addIngredient((String) ingredients[i], ((Number) ingredients[i + 1]).doubleValue());
+        }
+        return r;
+    }
+
+    private static List<PantryMatch> drain(Iterator<PantryMatch> it) {
+        List<PantryMatch> matches = new ArrayList<>();
+        while (it.hasNext()) {
+            matches.add(it.next());
+        }
+        return matches;
+    }
+
+    private static void assertNames(String label, List<PantryMatch> matches, String... names) {
+        List<String> actual = new ArrayList<>();
+        for (PantryMatch m : matches) {
+            actual.add(m.getRecipe().getName());
+        }
+        assertTrue(label + ": expected " + List.of(names) + " but was " + actual, actual.equals(List.of(names)));
+    }
+
+    private static void assertEquals(String label, int expected, int actual) {
+        if (expected != actual) {
+            fail(label + " expected " + expected + " but was " + actual);
+        }
+    }
+
+    private static void assertTrue(String label, boolean condition) {
+        if (!condition) {
+            fail(label);
+        }
+    }
+
+    private static void fail(String message) {
+        throw new AssertionError(message);
+    }
+}
@@ -1,15 +1,29 @@
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
 
 /**
  * Tests for the RecipeBook class.
  */
 public class RecipeBookTest {
-    public static void main(String[] args) {
+    public static void main(String[] args) throws Exception {
         testAddRecipe();
         testRemoveRecipe();
         testGetAllRecipes();
         testSize();
         testSearchByName();
+        testQueryCacheHitsAndInvalidation();
+        testPlannedSearchMatchesLinearScan();
+        testExplain();
+        testFuzzySearch();
+        testRankedSearch();
+        testCompletion();
+        testDirtyTrackingAndIncrementalSave();
+        testChangeEvents();
         System.out.println("All RecipeBook tests passed.");
     }
 
@@ -102,7 +116,300 @@ public class RecipeBookTest {
         assertEquals("null query", 0, results5.size());
     }
 
+    private static void testQueryCacheHitsAndInvalidation() {
+        RecipeBook book = new RecipeBook();
+        Recipe stew = new Recipe("Chicken Stew", 4);
+        stew.addIngredient("chicken", 500);
+        book.addRecipe(stew);
+        QueryCache cache = book.getQueryCache();
+
+        assertEquals("first search", 1, book.search("chicken").size());
+        assertEquals("repeat search", 1, book.search("  CHICKEN ").size());
+        assertTrue("normalized repeat is a hit", cache.hitCount() == 1);
+        assertTrue("first lookup is a miss", cache.missCount() == 1);
+
+        Recipe salad = new Recipe("Chicken Salad", 2);
+        book.addRecipe(salad);
+        assertEquals("add invalidates", 2, book.search("chicken").size());
+
+        salad.addIngredient("garlic", 1);
+        assertEquals("ingredient add invalidates", 1, book.searchByIngredient("garlic").size());
+        long before = book.getGeneration();
+        salad.scaleToServings(4);
+        assertTrue("scaling advances generation", book.getGeneration() != before);
+
+        book.removeRecipe("Chicken Salad");
+        assertEquals("remove invalidates", 1, book.searchByName("chicken").size());
+        before = book.getGeneration();
+        salad.scaleToServings(8);
+        assertTrue("removed recipe no longer tracked", book.getGeneration() == before);
+
+        book.clear();
+        assertEquals("clear invalidates", 0, book.search("chicken").size());
+
+        List<Recipe> results = book.searchByName("stew");
+        results.add(stew);
+        assertEquals("cached results are copies", 0, book.searchByName("stew").size());
+    }
+
+    private static void testPlannedSearchMatchesLinearScan() {
+        String[] words = {"chicken", "garlic", "olive oil", "basil", "Tomato", "rice", "boiled egg"};
+        java.util.Random rnd = new java.util.Random(42);
+        RecipeBook book = new RecipeBook();
+        List<Recipe> reference = new java.util.ArrayList<>();
+        for (int i = 0; i < 300; i++) {
+            Recipe r = new Recipe(words[rnd.nextInt(words.length)] + " dish " + i, 2);
+            for (int j = rnd.nextInt(4); j >= 0; j--) {
+                r.addIngredient(words[rnd.nextInt(words.length)], 1 + j);
+            }
+            book.addRecipe(r);
+            reference.add(r);
+            if (i % 3 == 0) {
+                // churn forces ordinal compaction
+                book.removeRecipe(r.getName());
+                reference.remove(r);
+            }
+        }
+        reference.get(0).addIngredient("saffron", 1);
+
+        String[] queries = {"garlic oil", "OIL garlic", "chick", "egg boil", "rice dish 1", "saffron", "nothing here"};
+        for (String q : queries) {
+            List<Recipe> expected = new java.util.ArrayList<>();
+            for (Recipe r : reference) {
+                if (linearMatch(r, q)) {
+                    expected.add(r);
+                }
+            }
+            List<Recipe> actual = book.search(q);
+            assertEquals("result count for " + q, expected.size(), actual.size());
+            for (int i = 0; i < expected.size(); i++) {
+                assertTrue("insertion order for " + q, expected.get(i) == actual.get(i));
+            }
+        }
+    }
+
+    private static boolean linearMatch(Recipe r, String query) {
+        for (String token : query.trim().split("\\s+")) {
+            String t = token.toLowerCase();
+            boolean found = r.getName().toLowerCase().contains(t);
+            for (String iname : r.getIngredientNames()) {
+                found |= iname.toLowerCase().contains(t);
+            }
+            if (!found) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static void testExplain() {
+        RecipeBook book = new RecipeBook();
+        Recipe pasta = new Recipe("Pasta", 2);
+        pasta.addIngredient("garlic cloves", 3);
+        pasta.addIngredient("olive oil (cup)", 0.25);
+        book.addRecipe(pasta);
+        book.addRecipe(new Recipe("Oil Cake", 8));
+
+        String plan = book.explain("oil garlic");
+        assertTrue("garlic evaluated first", plan.indexOf("\"garlic\"") < plan.indexOf("\"oil\""));
+        assertTrue("plan reports result", plan.contains("result: 1 recipe(s)"));
+        assertTrue("empty plan skips later tokens", book.explain("zzz oil").contains("skipped"));
+    }
+
+    private static void testFuzzySearch() {
+        RecipeBook book = new RecipeBook();
+        Recipe pasta = new Recipe("Pasta Aglio e Olio", 2);
+        pasta.addIngredient("spaghetti (g)", 200);
+        pasta.addIngredient("garlic cloves", 3);
+        book.addRecipe(pasta);
+        Recipe garlicBread = new Recipe("Garlic Bread", 4);
+        garlicBread.addIngredient("bread", 1);
+        book.addRecipe(garlicBread);
+
+        assertEquals("exact ingredient search misses typo", 0, book.searchByIngredient("galric").size());
+        assertEquals("fuzzy ingredient within 2", 1, book.searchByIngredientFuzzy("galric", 2).size());
+        assertEquals("fuzzy ingredient within 1 misses", 0, book.searchByIngredientFuzzy("galric", 1).size());
+        assertEquals("fuzzy names and ingredients", 2, book.searchFuzzy("Garlik", 1).size());
+        assertEquals("all tokens must match", 1, book.searchFuzzy("spagheti galic", 1).size());
+
+        Recipe soup = new Recipe("Saffron Soup", 2);
+        book.addRecipe(soup);
+        assertEquals("maintained on add", 1, book.searchFuzzy("safron", 1).size());
+        soup.addIngredient("leek", 1);
+        assertEquals("maintained on ingredient add", 1, book.searchByIngredientFuzzy("leak", 1).size());
+        book.removeRecipe("Saffron Soup");
+        assertEquals("removed terms are dead", 0, book.searchFuzzy("safron", 1).size());
+
+        try {
+            book.searchFuzzy("garlic", -1);
+            fail("negative distance should throw");
+        } catch (IllegalArgumentException expected) {
+            // expected
+        }
+    }
+
+    private static void testRankedSearch() {
+        RecipeBook book = new RecipeBook();
+        Recipe stew = new Recipe("Beef Stew", 4);
+        stew.addIngredient("beef", 500);
+        stew.addIngredient("garlic", 2);
+        book.addRecipe(stew);
+        Recipe garlicBread = new Recipe("Garlic Bread", 4);
+        garlicBread.addIngredient("bread", 1);
+        garlicBread.addIngredient("garlic", 3);
+        book.addRecipe(garlicBread);
+        Recipe toast = new Recipe("Toast", 1);
+        toast.addIngredient("bread", 1);
+        book.addRecipe(toast);
+        for (int i = 0; i < 200; i++) {
+            Recipe filler = new Recipe("Salad " + i, 1);
+            filler.addIngredient("lettuce", 1);
+            book.addRecipe(filler);
+        }
+
+        List<ScoredRecipe> top = book.searchRanked("garlic", 10);
+        assertEquals("both garlic recipes", 2, top.size());
+        assertTrue("name match ranks first", top.get(0).getRecipe() == garlicBread);
+        assertTrue("scores descend", top.get(0).getScore() > top.get(1).getScore());
+
+        top = book.searchRanked("garlic bread", 1);
+        assertEquals("bounded to k", 1, top.size());
+        assertTrue("matching both tokens wins", top.get(0).getRecipe() == garlicBread);
+
+        List<ScoredRecipe> broad = book.searchRanked("lettuce salad garlic", 5);
+        assertEquals("broad query bounded", 5, broad.size());
+        assertTrue("rare token ranks first", broad.get(0).getRecipe().getName().contains("Garlic"));
+
+        assertEquals("empty query", 0, book.searchRanked("  ", 5).size());
+        try {
+            book.searchRanked("garlic", 0);
+            fail("k of 0 should throw");
+        } catch (IllegalArgumentException expected) {
+            // expected
+        }
+    }
+
+    private static void testCompletion() {
+        RecipeBook book = new RecipeBook();
+        Recipe pasta = new Recipe("Pasta Aglio e Olio", 2);
+        pasta.addIngredient("olive oil (cup)", 0.25);
+        pasta.addIngredient("garlic cloves", 3);
+        book.addRecipe(pasta);
+        Recipe pancakes = new Recipe("Pancakes", 4);
+        pancakes.addIngredient("milk (cup)", 1.5);
+        book.addRecipe(pancakes);
+        Recipe salad = new Recipe("Panzanella", 2);
+        salad.addIngredient("Olive Oil (cup)", 0.5);
+        book.addRecipe(salad);
+
+        List<String> names = book.completeRecipeName("pa", 10);
+        assertEquals("three recipes start with pa", 3, names.size());
+        assertTrue("alphabetical among equals", names.get(0).equals("Pancakes"));
+        assertEquals("limit respected", 2, book.completeRecipeName("Pa", 2).size());
+        assertEquals("no match", 0, book.completeRecipeName("zz", 5).size());
+
+        List<String> oils = book.completeIngredientName("o", 5);
+        assertEquals("case-insensitive duplicates merge", 1, oils.size());
+        assertTrue("first casing kept", oils.get(0).equals("olive oil (cup)"));
+
+        pancakes.addIngredient("maple syrup", 1);
+        assertEquals("ingredient added later completes", 1, book.completeIngredientName("map", 5).size());
+        book.addRecipe(new Recipe("Pancakes", 2));
+        assertTrue("shared names rank first", book.completeRecipeName("pa", 1).get(0).equals("Pancakes"));
+        book.removeRecipe("Pancakes");
+        assertEquals("removed names disappear", 0, book.completeIngredientName("map", 5).size());
+        assertEquals("remaining recipes", 2, book.completeRecipeName("pa", 5).size());
+    }
+
+    private static void testDirtyTrackingAndIncrementalSave() throws Exception {
+        RecipeBook book = new RecipeBook();
+        assertFalse("new book is clean", book.hasUnsavedChanges());
+        Recipe pancakes = new Recipe("Pancakes", 4);
+        pancakes.addIngredient("flour", 2);
+        Recipe pasta = new Recipe("Pasta", 2);
+        book.addRecipe(pancakes);
+        book.addRecipe(pasta);
+        assertEquals("added recipes are dirty", 2, book.getDirtyRecipeCount());
+
+        Path file = Files.createTempFile("recipes", ".json");
+        RecipeJsonStore.save(book, file.toString());
+        assertFalse("clean after save", book.hasUnsavedChanges());
+        assertEquals("no dirty recipes after save", 0, book.getDirtyRecipeCount());
+        byte[] pastaBytes = pasta.getEncodedJson();
+        byte[] pancakeBytes = pancakes.getEncodedJson();
+
+        pancakes.scaleToServings(8);
+        assertTrue("change marks book dirty", book.hasUnsavedChanges());
+        assertEquals("only the changed recipe is dirty", 1, book.getDirtyRecipeCount());
+        RecipeJsonStore.save(book, file.toString());
+        assertTrue("unchanged recipe reuses its encoding", pasta.getEncodedJson() == pastaBytes);
+        assertTrue("changed recipe is re-encoded", pancakes.getEncodedJson() != pancakeBytes);
+
+        RecipeBook loaded = RecipeJsonStore.load(file.toString());
+        assertFalse("loaded book is clean", loaded.hasUnsavedChanges());
+        assertEquals("scaled servings saved", 8, loaded.getAllRecipes().get(0).getServings());
+        book.removeRecipe("Pasta");
+        assertTrue("removal is an unsaved change", book.hasUnsavedChanges());
+        assertEquals("removal leaves no dirty recipe", 0, book.getDirtyRecipeCount());
+        Files.delete(file);
+    }
+
     // Helper methods
+    private static void testChangeEvents() throws Exception {
+        RecipeBook book = new RecipeBook();
+        List<String> seen = new ArrayList<>();
+        List<Integer> batchSizes = new ArrayList<>();
+        RecipeListener listener = events -> {
+            batchSizes.add(events.size());
+            for (RecipeEvent e : events) {
+                seen.add(e.toString());
+            }
+        };
+        book.addListener(listener);
+        List<String> async = new ArrayList<>();
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        book.addListener(events -> {
+            for (RecipeEvent e : events) {
+                async.add(e.getType().name());
+            }
+        }, executor);
+
+        Recipe soup = new Recipe("Soup", 2);
+        try {
+            book.addRecipe(soup);
+            soup.addIngredient("  leek ", 1);
+            soup.scaleToServings(4);
+            book.batch(() -> {
+                book.addRecipe(new Recipe("Salad", 1));
+                book.batch(() -> book.removeRecipe("Soup"));
+                // Soup has left the book, so the book reports nothing for this
+                soup.addIngredient("salt", 1);
+            });
+            book.clear();
+        } finally {
+            executor.shutdown();
+        }
+
+        assertEquals("event count", 6, seen.size());
+        assertTrue("added", seen.get(0).equals("RECIPE_ADDED Soup"));
+        assertTrue("ingredient carries trimmed name", seen.get(1).equals("INGREDIENT_ADDED Soup: 1.0 leek"));
+        assertTrue("scaled carries servings", seen.get(2).equals("SCALED Soup 2 -> 4"));
+        assertTrue("batch in order", seen.get(3).equals("RECIPE_ADDED Salad") && seen.get(4).equals("RECIPE_REMOVED Soup"));
+        assertTrue("clear is one event", seen.get(5).equals("CLEARED"));
+        assertEquals("nested batch delivered once", 2, batchSizes.get(3));
+
+        assertTrue("async listener finished", executor.awaitTermination(5, TimeUnit.SECONDS));
+        assertTrue("async listener sees the same order",
+                async.equals(List.of("RECIPE_ADDED", "INGREDIENT_ADDED", "SCALED", "RECIPE_ADDED", "RECIPE_REMOVED", "CLEARED")));
+
+        List<RecipeEvent> recipeEvents = new ArrayList<>();
+        soup.addListener(recipeEvents::addAll);
+        soup.scaleToServings(2);
+        assertEquals("recipe listener sees detached recipe", 1, recipeEvents.size());
+        assertTrue("removeListener", book.removeListener(listener));
+        assertFalse("removeListener twice", book.removeListener(listener));
+    }
+
     private static void assertEquals(String label, int expected, int actual) {
         if (expected != actual) {
             fail(label + " expected " + expected + " but was " + actual);
@@ -0,0 +1,154 @@
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+
+/**
+ * Tests for RecipeJsonStore's parser and number printing.
+ */
+public class RecipeJsonStoreTest {
+
+    public static void main(String[] args) throws Exception {
+        testDoublesRoundTrip();
+        testShortDecimalsParseExactly();
+        testIntegers();
+        testLoadSharesStrings();
+        testInvalidUtf8Rejected();
+        System.out.println("All RecipeJsonStore tests passed.");
+    }
+
+    private static void testDoublesRoundTrip() throws Exception {
+        Random random = new Random(39);
+        for (int i = 0; i < 200000; i++) {
+            double value;
+            if (i % 3 == 0) {
+                value = Double.longBitsToDouble(random.nextLong() & Long.MAX_VALUE);
+                if (Double.isNaN(value) || Double.isInfinite(value)) continue;
+            } else if (i % 3 == 1) {
+                value = random.nextInt(100000) / 100.0 + 0.001;
+            } else {
+                value = random.nextDouble() * Math.pow(10, random.nextInt(10) - 3);
+            }
+            StringBuilder sb = new StringBuilder();
+            RecipeJsonStore.appendDouble(sb, value);
+            String text = sb.toString();
+            assertSameBits("Double.parseDouble(" + text + ")", value, Double.parseDouble(text));
+            assertSameBits("parser(" + text + ")", value, parse(text));
+            String reference = Double.toString(value);
+            assertTrue("no longer than Double.toString for " + reference, text.length() <= reference.length());
+        }
+        assertEquals("whole numbers keep .0", "2.0", print(2));
+        assertEquals("small fraction", "0.004", print(0.004));
+        assertEquals("quarter", "0.25", print(0.25));
+        assertEquals("negative", "-1.5", print(-1.5));
+    }
+
+    private static void testShortDecimalsParseExactly() throws Exception {
+        Random random = new Random(7);
+        String[] fixed = {"0", "-0", "1.", ".5", "1e3", "2.5E-3", "123456789012345678901234", "0.1", "4.35",
+                "1e-320", "1.7976931348623157e308", "9007199254740993", "0.000000000000000000000000001"};
+        for (String s : fixed) {
+            assertSameBits(s, Double.parseDouble(s), parse(s));
+        }
+        for (int i = 0; i < 100000; i++) {
+            String s = random.nextInt(1000000) + "." + random.nextInt(1000) + "e" + (random.nextInt(60) - 30);
+            assertSameBits(s, Double.parseDouble(s), parse(s));
+        }
+        for (String bad : new String[] {"-", "1e", "-e5", "."}) {
+            try {
+                parse(bad);
+                throw new AssertionError(bad + " should not parse");
+            } catch (IOException e) {
+                // expected
+            }
+        }
+    }
+
+    private static void testIntegers() throws Exception {
+        assertEquals("max int", "2147483647", String.valueOf(new RecipeJsonStore.Parser("2147483647").parseInt()));
+        assertEquals("min int", "-2147483648", String.valueOf(new RecipeJsonStore.Parser("-2147483648").parseInt()));
+        for (String bad : new String[] {"2147483648", "-2147483649", "-", "99999999999999999999"}) {
+            try {
+                new RecipeJsonStore.Parser(bad).parseInt();
+                throw new AssertionError(bad + " should not parse");
+            } catch (IOException e) {
+                // expected
+            }
+        }
+    }
+
+    private static void testLoadSharesStrings() throws Exception {
+        Path file = Files.createTempFile("recipes", ".json");
+        try {
+            Files.writeString(file, "{ \"recipes\" : [\n"
+                    + "  {\"name\":\"Crêpes\",\"servings\":2,\"tags\":[\"x\",{\"a\":null}],"
+                    + "\"ingredients\":[{\"name\":\"salt\",\"amount\":1},{\"name\":\"sugar\",\"amount\":2}]},\n"
+                    + "  {\"note\":\"say \\\"name\\\"\",\"name\":\"Tea\",\"servings\":1,"
+                    + "\"ingredients\":[{\"amount\":0.5,\"name\":\"sugar\"}]}\n"
+                    + "], \"version\": true }");
+            RecipeBook book = RecipeJsonStore.load(file.toString());
+            assertEquals("count", "2", String.valueOf(book.size()));
+            Recipe crepes = book.getAllRecipes().get(0);
+            Recipe tea = book.getAllRecipes().get(1);
+            assertEquals("UTF-8 name decoded", "Crêpes", crepes.getName());
+            assertEquals("unknown keys skipped", "Tea", tea.getName());
+            assertTrue("ingredient names share one instance",
+                    crepes.getIngredientNames().get(1) == tea.getIngredientNames().get(0));
+        } finally {
+            Files.deleteIfExists(file);
+        }
+    }
+
+    private static void testInvalidUtf8Rejected() throws Exception {
+        Path file = Files.createTempFile("recipes", ".json");
+        try {
+            byte[] prefix = "{\"recipes\":[{\"name\":\"".getBytes("UTF-8");
+            byte[] suffix = "\",\"servings\":1}]}".getBytes("UTF-8");
+            byte[] bytes = new byte[prefix.length + 2 + suffix.length];
+            System.arraycopy(prefix, 0, bytes, 0, prefix.length);
+            bytes[prefix.length] = (byte) 0xC3;
+            bytes[prefix.length + 1] = (byte) 0x28;
+            System.arraycopy(suffix, 0, bytes, prefix.length + 2, suffix.length);
+            Files.write(file, bytes);
+            try {
+                RecipeJsonStore.load(file.toString());
+                throw new AssertionError("invalid UTF-8 should not load");
+            } catch (IOException e) {
+                // expected
+            }
+        } finally {
+            Files.deleteIfExists(file);
+        }
+    }
+
+    private static double parse(String s) throws Exception {
+        RecipeJsonStore.Parser p = new RecipeJsonStore.Parser(s);
+        double value = p.parseDouble();
+        assertTrue("whole input consumed for " + s, p.pos == s.length());
+        return value;
+    }
+
+    private static String print(double value) {
+        StringBuilder sb = new StringBuilder();
+        RecipeJsonStore.appendDouble(sb, value);
+        return sb.toString();
+    }
+
+    private static void assertSameBits(String label, double expected, double actual) {
+        if (Double.doubleToRawLongBits(expected) != Double.doubleToRawLongBits(actual)) {
+            throw new AssertionError(label + " expected " + expected + " but was " + actual);
+        }
+    }
+
+    private static void assertEquals(String label, String expected, String actual) {
+        if (!expected.equals(actual)) {
+            throw new AssertionError(label + " expected [" + expected + "] but was [" + actual + "]");
+        }
+    }
+
+    private static void assertTrue(String label, boolean condition) {
+        if (!condition) {
+            throw new AssertionError(label);
+        }
+    }
+}
@@ -0,0 +1,135 @@
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Tests for the RecipeServer class, run against a server on an ephemeral port.
+ */
+public class RecipeServerTest {
+    private static RecipeServer server;
+
+    public static void main(String[] args) throws Exception {
+        RecipeBook book = new RecipeBook();
+        Recipe pancakes = new Recipe("Pancakes", 4);
+        pancakes.addIngredient("flour", 2);
+        pancakes.addIngredient("eggs", 2);
+        Recipe omelette = new Recipe("Omelette", 1);
+        omelette.addIngredient("eggs", 3);
+        book.addRecipe(pancakes);
+        book.addRecipe(omelette);
+
+        server = new RecipeServer(book, 0, 4);
+        server.start();
+        try {
+            testRecipes();
+            testSearch();
+            testCart();
+            testErrors();
+            testMetrics();
+        } finally {
+            server.stop(0);
+        }
+        testBusyServerRejects(book);
+        System.out.println("All RecipeServer tests passed.");
+    }
+
+    private static void testRecipes() throws Exception {
+        String all = get("/recipes", 200);
+        assertContains("total", all, "\"total\":2");
+        assertTrue("sorted by name", all.indexOf("Omelette") < all.indexOf("Pancakes"));
+        String page = get("/recipes?offset=1&limit=1", 200);
+        assertContains("paged", page, "Pancakes");
+        assertTrue("paged excludes first", !page.contains("Omelette"));
+        assertContains("details", get("/recipes/Pancakes", 200), "\"flour\"");
+        get("/recipes/Waffles", 404);
+    }
+
+    private static void testSearch() throws Exception {
+        assertContains("search all", get("/search?q=eggs", 200), "\"count\":2");
+        assertContains("search name", get("/search?q=omel&mode=name", 200), "\"count\":1");
+        assertContains("search ingredient", get("/search?q=flour&mode=ingredient", 200), "Pancakes");
+        get("/search?q=eggs&mode=bogus", 400);
+        get("/search", 400);
+    }
+
+    private static void testCart() throws Exception {
+        String cart = get("/cart?recipes=pancakes,Omelette,Waffles", 200);
+        assertContains("eggs aggregated", cart, "5");
+        assertContains("missing reported", cart, "\"missing\":[\"Waffles\"]");
+    }
+
+    private static void testErrors() throws Exception {
+        get("/nowhere", 404);
+    }
+
+    private static void testMetrics() throws Exception {
+        String metrics = get("/metrics", 200);
+        assertContains("search counted", metrics, "\"search\":{\"count\":5,\"errors\":2");
+        assertContains("concurrency limit", metrics, "\"maxConcurrent\":4");
+    }
+
+    private static void testBusyServerRejects(RecipeBook book) throws Exception {
+        server = new RecipeServer(book, 0, 1);
+        server.start();
+        try {
+            Thread slow;
+            String[] slowBody = new String[1];
+            // Handlers lock the book, so holding it keeps the first request in flight
+            synchronized (book) {
+                slow = new Thread(() -> {
+                    try {
+                        slowBody[0] = get("/recipes", 200);
+                    } catch (IOException e) {
+                        throw new AssertionError(e);
+                    }
+                });
+                slow.start();
+                long deadline = System.currentTimeMillis() + 5000;
+                while (server.getInFlight() < 1 && System.currentTimeMillis() < deadline) {
+                    Thread.sleep(10);
+                }
+                assertContains("over the limit", get("/search?q=eggs", 503), "Server busy");
+                assertContains("metrics over the limit", get("/metrics", 503), "Server busy");
+            }
+            slow.join(5000);
+            assertContains("first request served", slowBody[0], "\"total\":2");
+            get("/recipes", 200);
+        } finally {
+            server.stop(0);
+        }
+    }
+
+    /** Fetches {@code path}, failing instead of hanging if the server does not answer. */
+    private static String get(String path, int expectedStatus) throws IOException {
+        URL url = new URL("http://localhost:" + server.getPort() + path);
+        HttpURLConnection conn = (HttpURLConnection) url.openConnection();
+        conn.setConnectTimeout(5000);
+        conn.setReadTimeout(5000);
+        int status = conn.getResponseCode();
+        if (status != expectedStatus) {
+            throw new AssertionError(path + " expected status " + expectedStatus + " but was " + status);
+        }
+        InputStream in = status >= 400 ? conn.getErrorStream() : conn.getInputStream();
+        ByteArrayOutputStream body = new ByteArrayOutputStream();
+        if (in != null) {
+            in.transferTo(body);
+            in.close();
+        }
+        return body.toString(StandardCharsets.UTF_8);
+    }
+
+    private static void assertContains(String label, String text, String expected) {
+        if (!text.contains(expected)) {
+            throw new AssertionError(label + ": expected [" + expected + "] in [" + text + "]");
+        }
+    }
+
+    private static void assertTrue(String label, boolean condition) {
+        if (!condition) {
+            throw new AssertionError(label);
+        }
+    }
+}
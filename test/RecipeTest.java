@@ -7,6 +7,7 @@ public class RecipeTest {
         testFormatAmount();
         testToPrettyString();
         testScaleEdgeCases();
+        testRenderedTextCached();
         System.out.println("All Recipe tests passed.");
     }
 
@@ -21,6 +22,32 @@ public class RecipeTest {
         assertEquals("toPrettyString equals toString", s1, s2);
     }
 
+    private static void testRenderedTextCached() {
+        Recipe r = new Recipe("Cached", 2);
+        r.addIngredient("flour", 1.5);
+        String first = r.toString();
+        if (first != r.toString()) {
+            fail("unchanged recipe should return the cached text");
+        }
+        StringBuilder sb = new StringBuilder("> ");
+        r.appendTo(sb);
+        assertEquals("appendTo uses the same text", "> " + first, sb.toString());
+
+        r.addIngredient("milk", 0.25);
+        assertEquals("addIngredient invalidates", "Cached (serves 2)\n- 1.5 flour\n- 0.25 milk\n", r.toString());
+        r.scaleToServings(4);
+        assertEquals("scaleToServings invalidates", "Cached (serves 4)\n- 3 flour\n- 0.5 milk\n", r.toString());
+
+        Recipe fresh = new Recipe("Fresh", 1);
+        fresh.addIngredient("salt", 0.333);
+        StringBuilder streamed = new StringBuilder();
+        fresh.appendTo(streamed);
+        assertEquals("appendTo renders", "Fresh (serves 1)\n- 0.33 salt\n", streamed.toString());
+        if (fresh.getRenderedText() != null) {
+            fail("appendTo should not cache");
+        }
+    }
+
     private static void testScaleEdgeCases() {
         Recipe r = new Recipe("Edge", 3);
         r.addIngredient("sugar", 100.0);
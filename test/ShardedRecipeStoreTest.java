@@ -0,0 +1,93 @@
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+/**
+ * Tests for the ShardedRecipeStore class.
+ */
+public class ShardedRecipeStoreTest {
+
+    public static void main(String[] args) throws Exception {
+        testRoundTripKeepsOrder();
+        testLazyLoading();
+        testMigration();
+        System.out.println("All ShardedRecipeStore tests passed.");
+    }
+
+    private static RecipeBook sampleBook(int n) {
+        RecipeBook book = new RecipeBook();
+        for (int i = 0; i < n; i++) {
+            Recipe r = new Recipe("Recipe " + i, 1 + i % 4);
+            r.addIngredient(i % 2 == 0 ? "flour" : "rice", 1 + i);
+            book.addRecipe(r);
+        }
+        return book;
+    }
+
+    private static void testRoundTripKeepsOrder() throws Exception {
+        Path dir = Files.createTempDirectory("shards");
+        RecipeBook book = sampleBook(50);
+        ShardedRecipeStore.save(book, dir.toString(), 4);
+        RecipeBook loaded = ShardedRecipeStore.load(dir.toString());
+        assertEquals("all recipes loaded", 50, loaded.size());
+        List<Recipe> original = book.getAllRecipes();
+        List<Recipe> restored = loaded.getAllRecipes();
+        for (int i = 0; i < original.size(); i++) {
+            assertTrue("order kept at " + i, original.get(i).toString().equals(restored.get(i).toString()));
+        }
+        assertFalse("loaded book is clean", loaded.hasUnsavedChanges());
+
+        ShardedRecipeStore.save(book, dir.toString(), 2);
+        assertFalse("stale shards removed", Files.exists(dir.resolve(ShardedRecipeStore.shardFileName(2))));
+        assertEquals("resharded round trip", 50, ShardedRecipeStore.load(dir.toString()).size());
+    }
+
+    private static void testLazyLoading() throws Exception {
+        Path dir = Files.createTempDirectory("shards");
+        ShardedRecipeStore.save(sampleBook(40), dir.toString(), 8);
+        ShardedRecipeStore store = ShardedRecipeStore.open(dir.toString());
+        assertEquals("size from manifest", 40, store.size());
+        assertEquals("nothing loaded on open", 0, store.loadedShardCount());
+
+        Recipe found = store.findByName("Recipe 7");
+        assertTrue("found by name", found != null && found.getName().equals("Recipe 7"));
+        assertEquals("one shard touched", 1, store.loadedShardCount());
+        assertTrue("missing name", store.findByName("Recipe 99") == null);
+
+        List<Recipe> rice = store.searchByIngredient("rice");
+        assertEquals("search spans shards", 20, rice.size());
+        assertEquals("all shards loaded by search", 8, store.loadedShardCount());
+        assertTrue("results in saved order", rice.get(0).getName().equals("Recipe 1")
+                && rice.get(19).getName().equals("Recipe 39"));
+    }
+
+    private static void testMigration() throws Exception {
+        Path file = Files.createTempFile("recipes", ".json");
+        Path dir = Files.createTempDirectory("shards");
+        RecipeJsonStore.save(sampleBook(10), file.toString());
+        RecipeJsonStore.migrateToShards(file.toString(), dir.toString(), 3);
+        RecipeBook migrated = ShardedRecipeStore.load(dir.toString());
+        assertEquals("migrated recipes", 10, migrated.size());
+        int inShards = 0;
+        for (int s = 0; s < 3; s++) {
+            inShards += RecipeJsonStore.load(dir.resolve(ShardedRecipeStore.shardFileName(s)).toString()).size();
+        }
+        assertEquals("shards readable as plain files", 10, inShards);
+    }
+
+    private static void assertEquals(String label, int expected, int actual) {
+        if (expected != actual) {
+            throw new AssertionError(label + " expected " + expected + " but was " + actual);
+        }
+    }
+
+    private static void assertTrue(String label, boolean condition) {
+        if (!condition) {
+            throw new AssertionError(label);
+        }
+    }
+
+    private static void assertFalse(String label, boolean condition) {
+        assertTrue(label, !condition);
+    }
+}
@@ -0,0 +1,148 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * Tests for the ShoppingCart class.
+ */
+public class ShoppingCartTest {
+
+    public static void main(String[] args) {
+        testAggregate();
+        testAggregateAllMatchesSingleCarts();
+        testUnitsMerged();
+        testInvalidCarts();
+        System.out.println("All ShoppingCart tests passed.");
+    }
+
+    private static void testAggregate() {
+        Recipe pancakes = new Recipe("Pancakes", 4);
+        pancakes.addIngredient("Flour", 2);
+        pancakes.addIngredient("eggs", 2);
+        Recipe cake = new Recipe("Cake", 8);
+        cake.addIngredient("flour", 1.25);
+        cake.addIngredient("Sugar", 1.005);
+        cake.addIngredient("eggs", 1);
+
+        assertEquals("merged and sorted", Arrays.asList("3 eggs", "3.25 Flour", "1.01 Sugar"),
+                ShoppingCart.aggregate(List.of(pancakes, cake)));
+        assertEquals("first occurrence names the line", Arrays.asList("3 eggs", "3.25 flour", "1.01 Sugar"),
+                ShoppingCart.aggregate(List.of(cake, pancakes)));
+        assertEquals("null", List.of(), ShoppingCart.aggregate(null));
+        assertEquals("empty", List.of(), ShoppingCart.aggregate(List.of()));
+    }
+
+    private static void testAggregateAllMatchesSingleCarts() {
+        Random random = new Random(45);
+        String[] names = {"Salt", "salt", "Pepper", "garlic", "Garlic", "onion", "butter", "Flour", "sugar", "eggs"};
+        List<Recipe> recipes = new ArrayList<>();
+        for (int i = 0; i < 40; i++) {
+            Recipe r = new Recipe("R" + i, 2);
+            for (String name : names) {
+                if (random.nextInt(3) == 0) r.addIngredient(name, 0.25 * (1 + random.nextInt(9)));
+            }
+            recipes.add(r);
+        }
+        List<List<Recipe>> carts = new ArrayList<>();
+        for (int c = 0; c < 500; c++) {
+            List<Recipe> cart = new ArrayList<>();
+            int size = random.nextInt(6);
+            for (int k = 0; k < size; k++) {
+                cart.add(recipes.get(random.nextInt(recipes.size())));
+            }
+            carts.add(cart);
+        }
+        carts.add(null);
+
+        List<List<String>> batched = ShoppingCart.aggregateAll(carts);
+        assertTrue("one result per cart", batched.size() == carts.size());
+        for (int c = 0; c < carts.size(); c++) {
+            assertEquals("cart " + c, reference(carts.get(c)), batched.get(c));
+        }
+        assertTrue("no carts", ShoppingCart.aggregateAll(List.of()).isEmpty());
+    }
+
+    private static void testUnitsMerged() {
+        Recipe bread = new Recipe("Garlic Bread", 4);
+        bread.addIngredient("olive oil (tbsp)", 2);
+        bread.addIngredient("bread (g)", 500);
+        Recipe pasta = new Recipe("Pasta", 2);
+        pasta.addIngredient("Olive Oil (cup)", 0.25);
+        pasta.addIngredient("spaghetti (kg)", 0.2);
+        pasta.addIngredient("bread (cup)", 1);
+        pasta.addIngredient("olive oil", 1);
+
+        // 0.25 cup is 4 tbsp; volume and mass or unitless amounts stay apart
+        assertEquals("converted to first unit",
+                Arrays.asList("1 bread (cup)", "500 bread (g)", "1 olive oil", "6 olive oil (tbsp)", "0.2 spaghetti (kg)"),
+                ShoppingCart.aggregate(List.of(bread, pasta)));
+        assertEquals("other order", Arrays.asList("1 bread (cup)", "500 bread (g)", "1 olive oil",
+                "0.38 Olive Oil (cup)", "0.2 spaghetti (kg)"), ShoppingCart.aggregate(List.of(pasta, bread)));
+    }
+
+    private static void testInvalidCarts() {
+        try {
+            ShoppingCart.aggregateAll(null);
+            fail("null carts should throw");
+        } catch (IllegalArgumentException expected) {
+            // expected
+        }
+        try {
+            ShoppingCart.aggregateAll(List.of(Arrays.asList(new Recipe("Tea", 1), null)));
+            fail("null recipe should throw");
+        } catch (IllegalArgumentException expected) {
+            // expected
+        }
+    }
+
+    /**
+     * Straightforward map-based aggregation, as ShoppingCart.aggregate is specified.
+     */
+    private static List<String> reference(List<Recipe> recipes) {
+        List<String> result = new ArrayList<>();
+        if (recipes == null) {
+            return result;
+        }
+        Map<String, String> display = new LinkedHashMap<>();
+        Map<String, Double> totals = new LinkedHashMap<>();
+        for (Recipe r : recipes) {
+            for (int i = 0; i < r.getIngredientNames().size(); i++) {
+                String name = r.getIngredientNames().get(i);
+                display.putIfAbsent(name.toLowerCase(), name);
+                totals.merge(name.toLowerCase(), r.getIngredientAmounts().get(i), Double::sum);
+            }
+        }
+        List<String> keys = new ArrayList<>(display.keySet());
+        keys.sort((a, b) -> {
+            int cmp = display.get(a).compareToIgnoreCase(display.get(b));
+            return cmp != 0 ? cmp : display.get(a).compareTo(display.get(b));
+        });
+        for (String key : keys) {
+            double x = totals.get(key);
+            String amount = Math.abs(x - Math.rint(x)) < 1e-9
+                    ? String.valueOf((long) Math.rint(x))
+                    : String.format("%.2f", x).replaceAll("0+$", "").replaceAll("\\.$", "");
+            result.add(amount + " " + display.get(key));
+        }
+        return result;
+    }
+
+    private static void assertEquals(String label, List<String> expected, List<String> actual) {
+        if (!expected.equals(actual)) {
+            fail(label + " expected " + expected + " but was " + actual);
+        }
+    }
+
+    private static void assertTrue(String label, boolean condition) {
+        if (!condition) {
+            fail(label);
+        }
+    }
+
+    private static void fail(String message) {
+        throw new AssertionError(message);
+    }
+}
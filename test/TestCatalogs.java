@@ -0,0 +1,47 @@
+import java.util.Random;
+
+/**
+ * Recipe builders shared by the tests: a seeded generator for large catalogs
+ * and a shorthand for small hand-written recipes.
+ */
+final class TestCatalogs {
+    static final String[] WORDS = {"garlic", "tomato", "basil", "chicken", "rice", "lemon", "butter",
+            "onion", "pepper", "ginger", "honey", "mint", "beef", "noodle", "carrot", "spinach"};
+
+    private TestCatalogs() {
+    }
+
+    /**
+     * Returns a book of {@code size} generated recipes; the same seed always
+     * gives the same book. Recipe names are two of {@link #WORDS} and the recipe
+     * number, and each recipe has 3 to 10 ingredients named by a word and a
+     * number below {@code variants}, so fewer variants means more recipes share
+     * each ingredient.
+     */
+    static RecipeBook catalog(int size, int variants, long seed) {
+        Random random = new Random(seed);
+        RecipeBook book = new RecipeBook();
+        for (int i = 0; i < size; i++) {
+            Recipe r = new Recipe(WORDS[random.nextInt(WORDS.length)] + " " + WORDS[random.nextInt(WORDS.length)]
+                    + " " + i, 1 + random.nextInt(8));
+            int count = 3 + random.nextInt(8);
+            for (int k = 0; k < count; k++) {
+                r.addIngredient(WORDS[random.nextInt(WORDS.length)] + " " + random.nextInt(variants),
+                        0.25 * (1 + random.nextInt(16)));
+            }
+            book.addRecipe(r);
+        }
+        return book;
+    }
+
+    /**
+     * Returns a recipe for 2 with one of each of {@code ingredients}.
+     */
+    static Recipe recipe(String name, String... ingredients) {
+        Recipe r = new Recipe(name, 2);
+        for (String ingredient : ingredients) {
+            r.addIngredient(ingredient, 1);
+        }
+        return r;
+    }
+}